@@ -0,0 +1,111 @@
+package game.benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import game.view.boilerplate.BufferedCanvas;
+import game.view.boilerplate.PixelBuffer;
+import game.view.boilerplate.Shader;
+
+/**
+compares {@link PixelBuffer.Layout#ROW_MAJOR}, {@link PixelBuffer.Layout#TIGHT}, and {@link PixelBuffer.Layout#TILED}
+buffers on the kinds of things the game draws every frame:
+lots of small blended circles (plasma pulses), a few large opaque circles (asteroids),
+whole rows (the background and overlay), and for tiled buffers, putting the rows back together to present them.
+not a unit test, just run main().
+before timing anything, checks that every layout produces the same picture.
+{@link game.test.PixelBufferLayoutTest} checks that much more thoroughly, without the timing.
+
+@author Michael Johnston (tky886)
+*/
+public class PixelBufferLayoutBenchmark {
+
+	public static final int WIDTH = 1920, HEIGHT = 1080;
+	public static final int ITERATIONS = 30;
+
+	public static void main(String[] args) {
+		Random random = new Random(42L);
+		int pulses = 400;
+		double[] pulseX = new double[pulses], pulseY = new double[pulses], pulseRadius = new double[pulses];
+		for (int index = 0; index < pulses; index++) {
+			pulseX[index] = random.nextDouble() * WIDTH;
+			pulseY[index] = random.nextDouble() * HEIGHT;
+			pulseRadius[index] = 6.0D + random.nextDouble() * 14.0D;
+		}
+		int asteroids = 12;
+		double[] asteroidX = new double[asteroids], asteroidY = new double[asteroids], asteroidRadius = new double[asteroids];
+		for (int index = 0; index < asteroids; index++) {
+			asteroidX[index] = random.nextDouble() * WIDTH;
+			asteroidY[index] = random.nextDouble() * HEIGHT;
+			asteroidRadius[index] = 60.0D + random.nextDouble() * 90.0D;
+		}
+		//read-modify-write, like a plasma pulse.
+		Shader blend = context -> context.buffer.blendRGB(context.baseOffset, 255, 128 + (context.instance & 127), 32, 96);
+		//write-only, like an asteroid.
+		Shader opaque = context -> context.buffer.setGrayscale(context.baseOffset, (context.x * 7 + context.y * 13) & 255);
+
+		BufferedCanvas canvas = new BufferedCanvas(WIDTH, HEIGHT);
+		PixelBuffer rowMajor = new PixelBuffer(WIDTH, HEIGHT, PixelBuffer.Layout.ROW_MAJOR);
+		PixelBuffer tight    = new PixelBuffer(WIDTH, HEIGHT, PixelBuffer.Layout.TIGHT);
+		PixelBuffer tiled    = new PixelBuffer(WIDTH, HEIGHT, PixelBuffer.Layout.TILED);
+		PixelBuffer[] buffers = { rowMajor, tight, tiled };
+		for (PixelBuffer pixels : buffers) {
+			canvas.pixels = pixels;
+			for (int y = 0; y < HEIGHT; y++) pixels.fillGradientRow(y, 0, WIDTH, y * 0.125F);
+			canvas.runShaderCircles(asteroids, asteroidX, asteroidY, asteroidRadius, opaque);
+			canvas.runShaderCircles(pulses, pulseX, pulseY, pulseRadius, blend);
+		}
+		byte[] expected = rowMajor.getRowMajorPixels(0, 0, WIDTH, HEIGHT);
+		for (PixelBuffer pixels : buffers) {
+			byte[] actual = pixels.getRowMajorPixels(0, 0, WIDTH, HEIGHT);
+			for (int y = 0; y < HEIGHT; y++) {
+				//anything past WIDTH is padding, which isn't part of the picture.
+				if (!Arrays.equals(
+					expected, rowMajor.rowMajorOffset(0, y), rowMajor.rowMajorOffset(WIDTH, y),
+					actual,   pixels  .rowMajorOffset(0, y), pixels  .rowMajorOffset(WIDTH, y)
+				)) {
+					throw new AssertionError(pixels.layout + " produced a different picture on row " + y);
+				}
+			}
+		}
+
+		for (int round = 0; round < 2; round++) {
+			//the first round is a warm-up.
+			System.out.println(round == 0 ? "warming up..." : "best of " + ITERATIONS + " (ms):");
+			for (PixelBuffer pixels : buffers) {
+				canvas.pixels = pixels;
+				long pulseTime = Long.MAX_VALUE, asteroidTime = Long.MAX_VALUE, rowTime = Long.MAX_VALUE, presentTime = Long.MAX_VALUE;
+				for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+					long start = System.nanoTime();
+					canvas.runShaderCircles(pulses, pulseX, pulseY, pulseRadius, blend);
+					pulseTime = Math.min(pulseTime, System.nanoTime() - start);
+
+					start = System.nanoTime();
+					canvas.runShaderCircles(asteroids, asteroidX, asteroidY, asteroidRadius, opaque);
+					asteroidTime = Math.min(asteroidTime, System.nanoTime() - start);
+
+					start = System.nanoTime();
+					for (int y = 0; y < HEIGHT; y++) pixels.fillGradientRow(y, 0, WIDTH, y * 0.125F);
+					rowTime = Math.min(rowTime, System.nanoTime() - start);
+
+					start = System.nanoTime();
+					pixels.getRowMajorPixels(0, 0, WIDTH, HEIGHT);
+					presentTime = Math.min(presentTime, System.nanoTime() - start);
+				}
+				if (round != 0) {
+					System.out.printf(
+						"%-9s  pulses %7.3f  asteroids %7.3f  rows %7.3f  detile %7.3f  total %7.3f  memory %6.2f MB%n",
+						pixels.layout,
+						pulseTime * 1.0E-6D,
+						asteroidTime * 1.0E-6D,
+						rowTime * 1.0E-6D,
+						presentTime * 1.0E-6D,
+						(pulseTime + asteroidTime + rowTime + presentTime) * 1.0E-6D,
+						pixels.getAllocatedBytes() * 0x1.0p-20D
+					);
+				}
+			}
+		}
+		System.exit(0);
+	}
+}
@@ -1,10 +1,14 @@
 package game;
 
+import game.common.AbstractDoubleBinding;
 import game.controller.MenuHandler;
 import game.controller.MouseShipController;
 import game.model.Game;
 import game.view.GameView;
 import game.view.Images;
+import game.view.Sprites;
+import game.view.boilerplate.FrameScheduler;
+import game.view.boilerplate.RenderGroup;
 import game.view.entities.EntityViewRegistry;
 import game.view.menu.IngameOverlayView;
 import javafx.application.Application;
@@ -27,31 +31,54 @@ public class Main extends Application {
 	starts with max {@link game.model.entities.ShipEntity#stats stats}.
 	*/
 	public static final boolean DEBUG_MODE = false;
+	/**
+	when enabled, the {@link Game}'s coordinates scale with the height of the window.
+	the game is always {@link #LOGICAL_HEIGHT} units tall, and its width is
+	whatever matches the window's aspect ratio. so a taller window shows
+	the same amount of the game (just bigger), and a wider window shows more of it.
+	when disabled, 1 unit is always 1 pixel, and a taller window shows more of the game.
+	*/
+	public static final boolean LOGICAL_RESOLUTION = true;
+	/** height of the {@link Game} when {@link #LOGICAL_RESOLUTION} is enabled. */
+	public static final double LOGICAL_HEIGHT = DEFAULT_WINDOW_HEIGHT - IngameOverlayView.MIN_HEIGHT;
 
 	@Override
 	public void start(Stage primaryStage) {
 		Game game = new Game();
+		//renders the game (unless it has its own render thread) and the overlay at the same time.
+		RenderGroup renderGroup = new RenderGroup();
 
-		GameView gameView = new GameView(game);
+		GameView gameView = new GameView(game, renderGroup);
 		gameView.setShipController(new MouseShipController());
-		gameView.canvas.canvas.relocate(0.0D, IngameOverlayView.MIN_HEIGHT);
+		gameView.canvas.node.relocate(0.0D, IngameOverlayView.MIN_HEIGHT);
 
-		IngameOverlayView overlay = new IngameOverlayView(game);
-		overlay.canvas.canvas.relocate(0.0D, 0.0D);
+		IngameOverlayView overlay = new IngameOverlayView(game, renderGroup);
+		overlay.canvas.node.relocate(0.0D, 0.0D);
 
-		Pane rootPane = new Pane(gameView.canvas.canvas, overlay.canvas.canvas);
+		Pane rootPane = new Pane(gameView.canvas.node, overlay.canvas.node, overlay.iconLayer.node);
 		Scene scene   = new Scene(rootPane, DEFAULT_WINDOW_WIDTH, DEFAULT_WINDOW_HEIGHT);
+		//views and menus are rendered and laid out at the end of every pulse of this scene.
+		FrameScheduler.INSTANCE.install(scene);
 
 		DoubleExpression width      = scene.widthProperty();
 		DoubleExpression fullHeight = scene.heightProperty();
 		DoubleExpression gameHeight = fullHeight.subtract((double)(IngameOverlayView.MIN_HEIGHT));
 
-		game    .width .bind(width);
-		game    .height.bind(gameHeight);
+		if (LOGICAL_RESOLUTION) {
+			game.width.bind(AbstractDoubleBinding.create(
+				() -> width.doubleValue() * LOGICAL_HEIGHT / Math.max(gameHeight.doubleValue(), 1.0D),
+				width, gameHeight
+			));
+			game.height.set(LOGICAL_HEIGHT);
+		}
+		else {
+			game.width .bind(width);
+			game.height.bind(gameHeight);
+		}
 		gameView.width .bind(width);
 		gameView.height.bind(gameHeight);
 
-		//constructor will also bind overlay width and height.
+		//constructor will also bind overlay width, height, and full height.
 		MenuHandler menuHandler = new MenuHandler(rootPane, gameView, overlay);
 		scene.addEventHandler(KeyEvent.KEY_PRESSED, menuHandler);
 
@@ -72,6 +99,7 @@ public class Main extends Application {
 
 	public static void main(String[] args) {
 		Images.clinit();
+		Sprites.clinit();
 		EntityViewRegistry.clinit();
 		launch(args);
 	}
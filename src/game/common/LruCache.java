@@ -0,0 +1,101 @@
+package game.common;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+a map which remembers the order in which its entries were last used,
+and evicts the least recently used entries once the total
+{@link #weigher weight} of all entries exceeds {@link #maxWeight}.
+what "weight" means is up to the user; usually it's memory usage in bytes.
+
+all methods are synchronized, so the cache can be shared between threads.
+
+@author Michael Johnston (tky886)
+*/
+public class LruCache<K, V> {
+
+	private final LinkedHashMap<K, V> map;
+	private final ToLongFunction<? super V> weigher;
+	private long maxWeight;
+	private long totalWeight;
+	private long hits, misses, evictions;
+
+	public LruCache(long maxWeight, ToLongFunction<? super V> weigher) {
+		this.map = new LinkedHashMap<>(64, 0.75F, true);
+		this.weigher = weigher;
+		this.maxWeight = maxWeight;
+	}
+
+	/** returns the value associated with the key, or null if there isn't one. */
+	public synchronized V get(K key) {
+		V value = this.map.get(key);
+		if (value != null) this.hits++;
+		else this.misses++;
+		return value;
+	}
+
+	/** returns true if the key is present. does not count as a use of the entry. */
+	public synchronized boolean containsKey(K key) {
+		return this.map.containsKey(key);
+	}
+
+	/**
+	associates the value with the key,
+	and then evicts old entries until we are under our {@link #maxWeight} again.
+	the new entry itself is never evicted by this method,
+	even if it is heavier than maxWeight all by itself.
+	*/
+	public synchronized void put(K key, V value) {
+		V old = this.map.put(key, value);
+		if (old != null) this.totalWeight -= this.weigher.applyAsLong(old);
+		this.totalWeight += this.weigher.applyAsLong(value);
+		this.trim(key);
+	}
+
+	private void trim(K keep) {
+		for (Iterator<Map.Entry<K, V>> iterator = this.map.entrySet().iterator(); this.totalWeight > this.maxWeight && iterator.hasNext();) {
+			Map.Entry<K, V> entry = iterator.next();
+			if (entry.getKey().equals(keep)) continue;
+			this.totalWeight -= this.weigher.applyAsLong(entry.getValue());
+			iterator.remove();
+			this.evictions++;
+		}
+	}
+
+	public synchronized void clear() {
+		this.map.clear();
+		this.totalWeight = 0L;
+	}
+
+	public synchronized void setMaxWeight(long maxWeight) {
+		this.maxWeight = maxWeight;
+		this.trim(null);
+	}
+
+	public synchronized long getMaxWeight() {
+		return this.maxWeight;
+	}
+
+	public synchronized long getTotalWeight() {
+		return this.totalWeight;
+	}
+
+	public synchronized int size() {
+		return this.map.size();
+	}
+
+	public synchronized long getHits() {
+		return this.hits;
+	}
+
+	public synchronized long getMisses() {
+		return this.misses;
+	}
+
+	public synchronized long getEvictions() {
+		return this.evictions;
+	}
+}
@@ -46,6 +46,18 @@ public class NoiseGrid implements AbstractValueNoiseGrid {
 		}
 	}
 
+	/**
+	same as {@link #getValuesX(double, double, double, float[], int, int)},
+	but only layers from (inclusive) fromLayer to (exclusive) toLayer are added to out.
+	this allows low-frequency layers and high-frequency layers
+	to be sampled at different resolutions.
+	*/
+	public void getValuesX(int fromLayer, int toLayer, double x, double y, double stepSize, float[] out, int offset, int length) {
+		for (int index = fromLayer; index < toLayer; index++) {
+			this.layers[index].getValuesX(x, y, stepSize, out, offset, length);
+		}
+	}
+
 	@Override
 	public void getValuesY(double x, double y, double stepSize, float[] out, int offset, int length) {
 		for (ValueGrid layer : this.layers) {
@@ -60,6 +72,30 @@ public class NoiseGrid implements AbstractValueNoiseGrid {
 		}
 	}
 
+	/**
+	same as {@link #getValueAndDerivative(double, double, ValueAndDerivativeHolder)},
+	but only layers from (inclusive) fromLayer to (exclusive) toLayer are added to out.
+	*/
+	public void getValueAndDerivative(int fromLayer, int toLayer, double x, double y, ValueAndDerivativeHolder out) {
+		for (int index = fromLayer; index < toLayer; index++) {
+			this.layers[index].getValueAndDerivative(x, y, out);
+		}
+	}
+
+	/**
+	returns a value which is less than or equal to the sum of layers from
+	(inclusive) fromLayer to (exclusive) toLayer for every position in the box
+	from (minX, minY) to (maxX, maxY).
+	@see ValueGrid#getLowerBound
+	*/
+	public float getLowerBound(int fromLayer, int toLayer, double minX, double minY, double maxX, double maxY) {
+		float sum = 0.0F;
+		for (int index = fromLayer; index < toLayer; index++) {
+			sum += this.layers[index].getLowerBound(minX, minY, maxX, maxY);
+		}
+		return sum;
+	}
+
 	public int getLayerCount() {
 		return this.layers.length;
 	}
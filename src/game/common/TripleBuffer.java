@@ -0,0 +1,76 @@
+package game.common;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+lock-free exchange of objects between exactly one producer thread and exactly one consumer thread.
+
+there are 3 slots: the back slot, which only the producer touches,
+the front slot, which only the consumer touches,
+and the middle slot, which holds the most recently {@link #publish published} object.
+publishing swaps the back slot with the middle slot,
+and {@link #swapFront} swaps the middle slot with the front slot.
+neither side ever has to wait for the other.
+if the producer publishes twice before the consumer swaps,
+the first object is simply recycled as the new back slot,
+which means that the consumer will skip it and only ever see the newest one.
+
+@author Michael Johnston (tky886)
+*/
+public class TripleBuffer<T> {
+
+	/** set in {@link #state} when the middle slot holds something the consumer has not seen yet. */
+	private static final int FRESH = 1 << 2;
+	private static final int INDEX_MASK = 3;
+
+	/** only ever contains T's. it's an Object[] because we can't create a T[]. */
+	private final Object[] slots;
+	/** index of the middle slot, possibly combined with {@link #FRESH}. */
+	private final AtomicInteger state;
+	/** only accessed by the producer. */
+	private int backIndex;
+	/** only accessed by the consumer. */
+	private int frontIndex;
+
+	public TripleBuffer(T back, T middle, T front) {
+		this.slots = new Object[] { back, middle, front };
+		this.backIndex = 0;
+		this.state = new AtomicInteger(1);
+		this.frontIndex = 2;
+	}
+
+	/** returns the object which the producer should write to next. */
+	@SuppressWarnings("unchecked")
+	public T getBack() {
+		return (T)(this.slots[this.backIndex]);
+	}
+
+	/**
+	makes the {@link #getBack back} object available to the consumer.
+	returns true if the previously published object was never seen by the consumer,
+	and has therefore been skipped.
+	*/
+	public boolean publish() {
+		int oldState = this.state.getAndSet(this.backIndex | FRESH);
+		this.backIndex = oldState & INDEX_MASK;
+		return (oldState & FRESH) != 0;
+	}
+
+	/**
+	if something was {@link #publish published} since the last time this method was called,
+	moves it to the front slot and returns true.
+	otherwise, leaves the front slot unchanged and returns false.
+	*/
+	public boolean swapFront() {
+		if ((this.state.get() & FRESH) == 0) return false;
+		int oldState = this.state.getAndSet(this.frontIndex);
+		this.frontIndex = oldState & INDEX_MASK;
+		return true;
+	}
+
+	/** returns the object which the consumer should read from. */
+	@SuppressWarnings("unchecked")
+	public T getFront() {
+		return (T)(this.slots[this.frontIndex]);
+	}
+}
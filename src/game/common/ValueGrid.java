@@ -30,6 +30,47 @@ public class ValueGrid implements AbstractValueNoiseGrid {
 		return Util.nextUniformFloat(bits);
 	}
 
+	/**
+	returns a value which is less than or equal to {@link #getValue}
+	for every position in the box from (minX, minY) to (maxX, maxY).
+	inside one grid cell, the value is a bilinear mix of the cell's 4 corners,
+	weighted by the {@link Util#smooth smoothed} fractional position.
+	smoothing never changes which way a fraction is ordered,
+	so the part of the box inside a cell is a rectangle in smoothed coordinates too,
+	and a bilinear mix is always lowest at one of the rectangle's corners.
+	so we just need to check 4 points for every grid cell the box touches.
+	*/
+	public float getLowerBound(double minX, double minY, double maxX, double maxY) {
+		double scaledMinX = minX * this.reciprocalSize, scaledMaxX = maxX * this.reciprocalSize;
+		double scaledMinY = minY * this.reciprocalSize, scaledMaxY = maxY * this.reciprocalSize;
+		int minGridX = Util.floor(scaledMinX), maxGridX = Util.floor(scaledMaxX);
+		int minGridY = Util.floor(scaledMinY), maxGridY = Util.floor(scaledMaxY);
+		float min = 1.0F;
+		for (int gridX = minGridX; gridX <= maxGridX; gridX++) {
+			float smoothMinX = (float)(Util.smooth(Util.clamp(scaledMinX - gridX, 0.0D, 1.0D)));
+			float smoothMaxX = (float)(Util.smooth(Util.clamp(scaledMaxX - gridX, 0.0D, 1.0D)));
+			for (int gridY = minGridY; gridY <= maxGridY; gridY++) {
+				float smoothMinY = (float)(Util.smooth(Util.clamp(scaledMinY - gridY, 0.0D, 1.0D)));
+				float smoothMaxY = (float)(Util.smooth(Util.clamp(scaledMaxY - gridY, 0.0D, 1.0D)));
+				float v00 = this.getRawValue(gridX,     gridY    );
+				float v01 = this.getRawValue(gridX,     gridY + 1);
+				float v10 = this.getRawValue(gridX + 1, gridY    );
+				float v11 = this.getRawValue(gridX + 1, gridY + 1);
+				min = Math.min(min, Math.min(
+					Math.min(
+						Util.mix(Util.mix(v00, v01, smoothMinY), Util.mix(v10, v11, smoothMinY), smoothMinX),
+						Util.mix(Util.mix(v00, v01, smoothMaxY), Util.mix(v10, v11, smoothMaxY), smoothMinX)
+					),
+					Math.min(
+						Util.mix(Util.mix(v00, v01, smoothMinY), Util.mix(v10, v11, smoothMinY), smoothMaxX),
+						Util.mix(Util.mix(v00, v01, smoothMaxY), Util.mix(v10, v11, smoothMaxY), smoothMaxX)
+					)
+				));
+			}
+		}
+		return min * this.amplitude;
+	}
+
 	@Override
 	public float getValue(double x, double y) {
 		//grid points
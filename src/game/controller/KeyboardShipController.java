@@ -65,13 +65,13 @@ public class KeyboardShipController implements EventHandler<KeyEvent>, ShipContr
 
 	@Override
 	public void install(GameView gameView) {
-		gameView.canvas.canvas.addEventHandler(KeyEvent.KEY_PRESSED,  this);
-		gameView.canvas.canvas.addEventHandler(KeyEvent.KEY_RELEASED, this);
+		gameView.canvas.node.addEventHandler(KeyEvent.KEY_PRESSED,  this);
+		gameView.canvas.node.addEventHandler(KeyEvent.KEY_RELEASED, this);
 	}
 
 	@Override
 	public void uninstall(GameView gameView) {
-		gameView.canvas.canvas.removeEventHandler(KeyEvent.KEY_PRESSED,  this);
-		gameView.canvas.canvas.removeEventHandler(KeyEvent.KEY_RELEASED, this);
+		gameView.canvas.node.removeEventHandler(KeyEvent.KEY_PRESSED,  this);
+		gameView.canvas.node.removeEventHandler(KeyEvent.KEY_RELEASED, this);
 	}
 }
\ No newline at end of file
@@ -62,6 +62,7 @@ public class MenuHandler implements EventHandler<KeyEvent> {
 
 		overlay.width.bind(rootPane.widthProperty());
 		ReadOnlyDoubleProperty maxHeight = rootPane.heightProperty();
+		overlay.fullHeight.bind(maxHeight);
 		overlay.height.bind(AbstractDoubleBinding.create(
 			() -> Util.mix(IngameOverlayView.MIN_HEIGHT, maxHeight.doubleValue(), frac.doubleValue()),
 			maxHeight, frac
@@ -70,6 +71,8 @@ public class MenuHandler implements EventHandler<KeyEvent> {
 			() -> Util.round((1.0F - frac.floatValue()) * 255.0F),
 			frac
 		));
+		overlay.fps.bind(this.gameTimer.getFPS());
+		overlay.qualityGovernor = gameView.qualityGovernor;
 		ChangeListener<Number> layout = (observable, oldValue, newValue) -> this.layout();
 		overlay.width .addListener(layout);
 		overlay.height.addListener(layout);
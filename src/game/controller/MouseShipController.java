@@ -9,6 +9,8 @@ import javafx.scene.input.MouseEvent;
 /** @author Michael Johnston (tky886) */
 public class MouseShipController implements ShipController, EventHandler<MouseEvent> {
 
+	private GameView gameView;
+	/** in the game's coordinates, not the view's. */
 	private double targetX, targetY;
 
 	@Override
@@ -24,17 +26,18 @@ public class MouseShipController implements ShipController, EventHandler<MouseEv
 
 	@Override
 	public void handle(MouseEvent event) {
-		this.targetX = event.getX();
-		this.targetY = event.getY();
+		this.targetX = this.gameView.toGameX(event.getX());
+		this.targetY = this.gameView.toGameY(event.getY());
 	}
 
 	@Override
 	public void install(GameView gameView) {
-		gameView.canvas.canvas.addEventHandler(MouseEvent.MOUSE_MOVED, this);
+		this.gameView = gameView;
+		gameView.canvas.node.addEventHandler(MouseEvent.MOUSE_MOVED, this);
 	}
 
 	@Override
 	public void uninstall(GameView gameView) {
-		gameView.canvas.canvas.removeEventHandler(MouseEvent.MOUSE_MOVED, this);
+		gameView.canvas.node.removeEventHandler(MouseEvent.MOUSE_MOVED, this);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package game.model;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import game.model.entities.BackgroundEntity;
+import game.model.entities.Entity;
+import game.model.entities.ShipEntity;
+
+/**
+a copy of everything in a {@link Game} that is needed to render it,
+taken at the end of every {@link Game#tick}.
+
+the point of this is that rendering a frame can take a long time,
+and the game should not have to wait for rendering to finish before it can tick again.
+if the renderer read the game's entities directly, then the game could not
+modify them while rendering was in progress, or the renderer would see
+half-updated entities (or a {@link java.util.ConcurrentModificationException}).
+with snapshots, the renderer reads from a snapshot while the game ticks into a different one.
+the snapshots are exchanged via {@link Game#snapshots}.
+
+snapshots are re-used from frame to frame.
+every entity in the game gets a {@link Entity#createRenderCopy render copy}
+the first time it is captured, and on every subsequent capture,
+only its {@link Entity#copyRenderState render state} is copied again.
+{@link #particles} have a fixed capacity, and are copied into arrays which were allocated up-front.
+so capturing a snapshot does not allocate anything unless new entities were spawned.
+
+@author Michael Johnston (tky886)
+*/
+public class FrameSnapshot {
+
+	/** copies of {@link Game#entities}, in the same order. */
+	public final List<Entity> entities = new ArrayList<>(64);
+	public BackgroundEntity background;
+	public ShipEntity ship;
+	/** a copy of {@link Game#particles}. */
+	public final ParticleSystem particles = new ParticleSystem(ParticleSystem.DEFAULT_CAPACITY);
+	public double totalTime, deltaTime, gameSpeed;
+	public double width, height;
+
+	/**
+	maps entities in the game to their copies in this snapshot.
+	{@link #previousCopies} holds the copies from the previous capture,
+	which are moved into {@link #currentCopies} as they are re-used.
+	anything left over in previousCopies afterwards belonged to an entity which no longer exists.
+	*/
+	private IdentityHashMap<Entity, Entity> previousCopies = new IdentityHashMap<>(64), currentCopies = new IdentityHashMap<>(64);
+
+	public void capture(Game game) {
+		this.background = this.copy(game.background);
+		this.ship = this.copy(game.ship);
+		this.entities.clear();
+		for (Entity entity : game.entities) {
+			this.entities.add(this.copy(entity));
+		}
+		this.particles.copyFrom(game.particles);
+		this.totalTime = game.totalTime;
+		this.deltaTime = game.deltaTime;
+		this.gameSpeed = game.gameSpeed;
+		this.width     = game.width .doubleValue();
+		this.height    = game.height.doubleValue();
+
+		IdentityHashMap<Entity, Entity> stale = this.previousCopies;
+		stale.clear();
+		this.previousCopies = this.currentCopies;
+		this.currentCopies = stale;
+	}
+
+	@SuppressWarnings("unchecked")
+	private <E extends Entity> E copy(E entity) {
+		Entity copy = this.previousCopies.remove(entity);
+		if (copy == null) copy = entity.createRenderCopy();
+		entity.copyRenderState(copy);
+		this.currentCopies.put(entity, copy);
+		return (E)(copy);
+	}
+}
@@ -3,6 +3,7 @@ package game.model;
 import java.util.Iterator;
 
 import game.Main;
+import game.common.TripleBuffer;
 import game.model.entities.BackgroundEntity;
 import game.model.entities.Entity;
 import game.model.entities.ShipEntity;
@@ -22,6 +23,8 @@ public class Game {
 	public static final double MAX_GAME_SPEED = 5.0D;
 
 	public final EntityList entities = new EntityList();
+	/** decorative debris and exhaust. see {@link ParticleSystem}. */
+	public final ParticleSystem particles = new ParticleSystem(ParticleSystem.DEFAULT_CAPACITY);
 	public final ShipEntity ship = new ShipEntity(Main.DEFAULT_WINDOW_WIDTH * 0.5D, Main.DEFAULT_WINDOW_HEIGHT - 32.0D);
 	public BackgroundEntity background = new BackgroundEntity(0.0D, 0.0D);
 	public final EntitySpawner[] spawners = {
@@ -30,6 +33,13 @@ public class Game {
 		new PlasmaPulseSpawner(),
 	};
 
+	/**
+	the state of the game at the end of recent ticks.
+	we are the producer; the {@link game.view.GameView} is the consumer.
+	@see FrameSnapshot
+	*/
+	public final TripleBuffer<FrameSnapshot> snapshots = new TripleBuffer<>(new FrameSnapshot(), new FrameSnapshot(), new FrameSnapshot());
+
 	public final DoubleProperty width, height;
 	/** time since the game started. */
 	public double totalTime;
@@ -49,20 +59,39 @@ public class Game {
 	public Game() {
 		this.width  = new SimpleDoubleProperty(this, "width");
 		this.height = new SimpleDoubleProperty(this, "height");
+		//there should always be *something* to render, even before the first tick.
+		this.publishSnapshot();
 	}
 
 	public void reset() {
 		this.ship.reset(this.width.doubleValue() * 0.5D, this.height.doubleValue() - 32.0D);
 		this.background = new BackgroundEntity(0.0D, 0.0D); //generate new seed, cause why not.
 		this.entities.clear();
+		this.particles.clear();
 		for (EntitySpawner spawner : this.spawners) spawner.reset();
 		this.totalTime = 0.0D;
 		this.deltaTime = 0.0D;
 		this.gameSpeed = Main.DEBUG_MODE ? MAX_GAME_SPEED : MIN_GAME_SPEED;
 		this.lostTime = 0.0D;
+		this.publishSnapshot();
+	}
+
+	/**
+	captures our current state into the {@link #snapshots}'s back buffer and publishes it.
+	called automatically after every {@link #tick} and {@link #reset}.
+	*/
+	public void publishSnapshot() {
+		this.snapshots.getBack().capture(this);
+		this.snapshots.publish();
 	}
 
 	public boolean tick(double deltaTime) {
+		boolean alive = this.tick0(deltaTime);
+		this.publishSnapshot();
+		return alive;
+	}
+
+	private boolean tick0(double deltaTime) {
 		this.deltaTime = deltaTime;
 		this.totalTime += deltaTime;
 		if (this.ship.lives.getCount() >= 0) {
@@ -75,6 +104,8 @@ public class Game {
 				spawner.spawn(this);
 			}
 
+			//ticked before anything else moves, so that particles spawned this tick start exactly where they were spawned.
+			this.particles.tick((float)(deltaTime));
 			this.background.tickMovement(this);
 			this.ship.tickMovement(this);
 			for (Entity entity : this.entities) {
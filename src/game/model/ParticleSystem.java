@@ -0,0 +1,159 @@
+package game.model;
+
+import java.util.stream.IntStream;
+
+/**
+small, short-lived, purely decorative things, like debris from shattered asteroids, or the ship's exhaust.
+
+particles would be far too heavy as {@link game.model.entities.Entity Entity}'s.
+every entity is its own object, lives in several sets in the {@link EntityList},
+and gets its own {@link game.model.entities.Entity#createRenderCopy render copy} in every {@link FrameSnapshot}.
+that's fine for a few dozen asteroids, but not for tens of thousands of particles.
+so instead, every property of every particle is stored in a primitive array,
+and particle i is whatever is at index i in every array.
+the arrays are allocated once, with room for {@link #capacity} particles,
+so spawning, ticking, and removing particles never allocates anything.
+if there's no room left, new particles are simply not spawned.
+
+particles don't interact with anything, so there's no point in keeping them in order.
+dead particles are removed by moving the last particle into their index.
+
+@author Michael Johnston (tky886)
+*/
+public class ParticleSystem {
+
+	/** enough for every asteroid on screen to shatter at once, and then some. */
+	public static final int DEFAULT_CAPACITY = 1 << 15;
+	/**
+	when enabled, and there are at least {@link #PARALLEL_THRESHOLD} particles,
+	particles are moved on several threads at once.
+	removing dead particles still happens on one thread afterwards.
+	*/
+	public static boolean USE_PARALLEL_UPDATE = true;
+	/** below this many particles, starting a parallel stream costs more than it saves. */
+	public static final int PARALLEL_THRESHOLD = 4096;
+	/** the number of threads used to move particles. */
+	public static final int THREAD_COUNT = Runtime.getRuntime().availableProcessors();
+
+	public final int capacity;
+	/** positions, in the game's coordinates. */
+	public final float[] x, y;
+	/** velocities, in units per second. */
+	public final float[] velocityX, velocityY;
+	/** time since the particle was spawned, and how long it lives for, in seconds. */
+	public final float[] age, lifetime;
+	/** width and height of the particle, in the game's units. */
+	public final float[] size;
+	/**
+	non-premultiplied ARGB colors.
+	the alpha is the particle's opacity when it spawns, and it fades out to 0 over its lifetime.
+	*/
+	public final int[] color;
+	/** the number of live particles. they are always at indexes 0 (inclusive) to count (exclusive). */
+	public int count;
+
+	public ParticleSystem(int capacity) {
+		this.capacity  = capacity;
+		this.x         = new float[capacity];
+		this.y         = new float[capacity];
+		this.velocityX = new float[capacity];
+		this.velocityY = new float[capacity];
+		this.age       = new float[capacity];
+		this.lifetime  = new float[capacity];
+		this.size      = new float[capacity];
+		this.color     = new int  [capacity];
+	}
+
+	/** adds a new particle, and returns true, unless we are full, in which case false is returned. */
+	public boolean spawn(float x, float y, float velocityX, float velocityY, float lifetime, float size, int color) {
+		int index = this.count;
+		if (index >= this.capacity || !(lifetime > 0.0F)) return false;
+		this.x        [index] = x;
+		this.y        [index] = y;
+		this.velocityX[index] = velocityX;
+		this.velocityY[index] = velocityY;
+		this.age      [index] = 0.0F;
+		this.lifetime [index] = lifetime;
+		this.size     [index] = size;
+		this.color    [index] = color;
+		this.count = index + 1;
+		return true;
+	}
+
+	/** ages and moves every particle, and removes the ones which are too old now. */
+	public void tick(float deltaTime) {
+		int count = this.count;
+		if (USE_PARALLEL_UPDATE && count >= PARALLEL_THRESHOLD) {
+			int threads = Math.min(THREAD_COUNT, count);
+			IntStream.range(0, threads).parallel().forEach(thread -> {
+				this.move(count * thread / threads, count * (thread + 1) / threads, deltaTime);
+			});
+			float[] age = this.age, lifetime = this.lifetime;
+			int remaining = count;
+			for (int index = 0; index < remaining;) {
+				if (age[index] >= lifetime[index]) this.moveParticle(--remaining, index);
+				else index++;
+			}
+			this.count = remaining;
+		}
+		else {
+			//same as above, but in one pass.
+			float[] x = this.x, y = this.y, velocityX = this.velocityX, velocityY = this.velocityY, age = this.age, lifetime = this.lifetime;
+			int remaining = count;
+			for (int index = 0; index < remaining;) {
+				if ((age[index] += deltaTime) >= lifetime[index]) {
+					//the particle we move here hasn't been ticked yet, so don't advance the index.
+					this.moveParticle(--remaining, index);
+					continue;
+				}
+				x[index] += velocityX[index] * deltaTime;
+				y[index] += velocityY[index] * deltaTime;
+				index++;
+			}
+			this.count = remaining;
+		}
+	}
+
+	/** ages and moves the particles from startIndex (inclusive) to endIndex (exclusive). */
+	private void move(int startIndex, int endIndex, float deltaTime) {
+		float[] x = this.x, y = this.y, velocityX = this.velocityX, velocityY = this.velocityY, age = this.age;
+		for (int index = startIndex; index < endIndex; index++) {
+			age[index] += deltaTime;
+			x[index] += velocityX[index] * deltaTime;
+			y[index] += velocityY[index] * deltaTime;
+		}
+	}
+
+	/** copies the particle at index from into index to, overwriting whatever was there. */
+	private void moveParticle(int from, int to) {
+		this.x        [to] = this.x        [from];
+		this.y        [to] = this.y        [from];
+		this.velocityX[to] = this.velocityX[from];
+		this.velocityY[to] = this.velocityY[from];
+		this.age      [to] = this.age      [from];
+		this.lifetime [to] = this.lifetime [from];
+		this.size     [to] = this.size     [from];
+		this.color    [to] = this.color    [from];
+	}
+
+	/** removes every particle. */
+	public void clear() {
+		this.count = 0;
+	}
+
+	/**
+	replaces our particles with a copy of the other system's particles.
+	used by {@link FrameSnapshot}, so the renderer can draw particles while the game ticks them.
+	velocities aren't needed for rendering, so they aren't copied.
+	*/
+	public void copyFrom(ParticleSystem other) {
+		int count = Math.min(other.count, this.capacity);
+		System.arraycopy(other.x,         0, this.x,         0, count);
+		System.arraycopy(other.y,         0, this.y,         0, count);
+		System.arraycopy(other.age,       0, this.age,       0, count);
+		System.arraycopy(other.lifetime,  0, this.lifetime,  0, count);
+		System.arraycopy(other.size,      0, this.size,      0, count);
+		System.arraycopy(other.color,     0, this.color,     0, count);
+		this.count = count;
+	}
+}
@@ -41,6 +41,10 @@ public class AsteroidEntity extends Entity {
 	private static final RandomNumberSupplier POINT_MULTIPLIER = new RandomNumberSupplier(RANDOM, Interpolator.exponential(0.5D, 2.0D));
 	/** time (in seconds) it takes for an asteroid to disappear after its {@link #integrity} reaches 0. */
 	public static final double SHATTER_TIME = 0.5D;
+	/** number of debris particles spawned per square unit of {@link #size} when an asteroid shatters. */
+	public static final double DEBRIS_DENSITY = 1.0D / 64.0D;
+	/** fastest speed (in units per second) at which debris flies away from the asteroid's center. */
+	public static final double DEBRIS_SPEED = 96.0D;
 
 	public double velocityX, velocityY;
 	private double rotation;
@@ -75,6 +79,8 @@ public class AsteroidEntity extends Entity {
 	@see ShipEntity#addPoints
 	*/
 	public int points;
+	/** true once {@link #spawnDebris} has been called, so that it only happens once. */
+	private boolean debrisSpawned;
 
 	public AsteroidEntity(double x, double y) {
 		this(x, y, 1.0D);
@@ -117,6 +123,20 @@ public class AsteroidEntity extends Entity {
 		this.setRotation(this.rotation + angle);
 	}
 
+	@Override
+	public void copyRenderState(Entity copy) {
+		super.copyRenderState(copy);
+		AsteroidEntity asteroid = (AsteroidEntity)(copy);
+		asteroid.velocityX     = this.velocityX;
+		asteroid.velocityY     = this.velocityY;
+		asteroid.rotation      = this.rotation;
+		asteroid.cosRotation   = this.cosRotation;
+		asteroid.sinRotation   = this.sinRotation;
+		asteroid.rotationSpeed = this.rotationSpeed;
+		asteroid.integrity     = this.integrity;
+		asteroid.shatterTime   = this.shatterTime;
+	}
+
 	@Override
 	public void tickMovement(Game game) {
 		double adjustedTime = game.getScaledDeltaTime();
@@ -124,10 +144,44 @@ public class AsteroidEntity extends Entity {
 		this.y += this.velocityY * adjustedTime;
 		this.addRotation(this.rotationSpeed * adjustedTime);
 		if (this.integrity <= 0.0D) {
+			if (!this.debrisSpawned) this.spawnDebris(game);
 			this.shatterTime += game.deltaTime * (1.0D / SHATTER_TIME);
 		}
 	}
 
+	/**
+	adds a cloud of debris to the game's {@link Game#particles particles} as the shatter animation starts.
+	bigger asteroids make more debris. debris keeps moving with the asteroid,
+	and flies away from its center a bit on top of that.
+	particles move in real time, not game time, so our velocity is scaled by the game speed here.
+	*/
+	private void spawnDebris(Game game) {
+		this.debrisSpawned = true;
+		int count = Util.roundRandomly(this.size * this.size * DEBRIS_DENSITY, RANDOM);
+		double velocityX = this.velocityX * game.gameSpeed;
+		double velocityY = this.velocityY * game.gameSpeed;
+		//same range of grays as the asteroid's lit surface, but never bright enough to glow.
+		float gray = Util.mix(96.0F, 192.0F, this.brightness);
+		for (int debris = 0; debris < count; debris++) {
+			double angle = RANDOM.nextDouble() * (Math.PI * 2.0D);
+			double cos = Math.cos(angle), sin = Math.sin(angle);
+			//sqrt() spreads debris evenly over the area, instead of bunching it up in the middle.
+			double distance = Math.sqrt(RANDOM.nextDouble()) * this.size * 0.75D;
+			double speed = Util.mix(0.25D, 1.0D, RANDOM.nextDouble()) * DEBRIS_SPEED;
+			int brightness = Util.clamp((int)(gray * Util.mix(0.75F, 1.25F, RANDOM.nextFloat())), 0, 240);
+			boolean spawned = game.particles.spawn(
+				(float)(this.x + cos * distance),
+				(float)(this.y + sin * distance),
+				(float)(velocityX + cos * speed),
+				(float)(velocityY + sin * speed),
+				(float)(Util.mix(0.5D, 1.25D, RANDOM.nextDouble())),
+				(float)(Util.mix(1.5D, 3.0D, RANDOM.nextDouble())),
+				0xFF000000 | (brightness << 16) | (brightness << 8) | brightness
+			);
+			if (!spawned) break;
+		}
+	}
+
 	@Override
 	public boolean tickInteraction(Game game) {
 		return this.shatterTime < 1.0D && this.isInsideGame(game, this.size);
@@ -153,11 +207,20 @@ public class AsteroidEntity extends Entity {
 	the position should be in relative space.
 	*/
 	public boolean getSurfaceNormal(double x, double y, SeedPoint seedPoint, ValueAndDerivativeHolder out) {
+		return this.getSurfaceNormal(x, y, this.heightNoise.getLayerCount(), seedPoint, out);
+	}
+
+	/**
+	same as {@link #getSurfaceNormal(double, double, SeedPoint, ValueAndDerivativeHolder)},
+	but only the first (layers) layers of our {@link #heightNoise} are used.
+	fewer layers are faster, but less detailed.
+	*/
+	public boolean getSurfaceNormal(double x, double y, int layers, SeedPoint seedPoint, ValueAndDerivativeHolder out) {
 		out.value = out.partialDerivativeX = out.partialDerivativeY = 0.0F;
 
 		double rotatedX = x * this.cosRotation - y * this.sinRotation;
 		double rotatedY = x * this.sinRotation + y * this.cosRotation;
-		this.heightNoise.getValueAndDerivative(rotatedX, rotatedY, out);
+		this.heightNoise.getValueAndDerivative(0, Math.min(layers, this.heightNoise.getLayerCount()), rotatedX, rotatedY, out);
 		out.value += this.getHeightBias(rotatedX, rotatedY);
 		if (out.value > 0.0F && !this.isInCrack(rotatedX, rotatedY, seedPoint)) {
 			double unrotatedDx = out.partialDerivativeY * this.sinRotation + out.partialDerivativeX * this.cosRotation;
@@ -17,11 +17,14 @@ public class BackgroundEntity extends Entity {
 
 	private static final Random RANDOM = new Random();
 
+	/** everything random about how the background looks is derived from this. */
+	public final long seed;
 	public final NoiseGrid noise;
 
 	public BackgroundEntity(double x, double y) {
 		super(x, y);
-		this.noise = new NoiseGrid(RANDOM.nextLong(), 1024.0D, 0.5D, 0.1875F, 0.625F, 10);
+		this.seed = RANDOM.nextLong();
+		this.noise = new NoiseGrid(this.seed, 1024.0D, 0.5D, 0.1875F, 0.625F, 10);
 	}
 
 	public float getNoiseValue(double x, double y) {
@@ -8,7 +8,7 @@ might interact with while playing the game.
 
 @author Michael Johnston (tky886)
 */
-public abstract class Entity {
+public abstract class Entity implements Cloneable {
 
 	public double x, y;
 
@@ -47,6 +47,33 @@ public abstract class Entity {
 	*/
 	public abstract boolean tickInteraction(Game game);
 
+	/**
+	creates a new entity which will be used to hold a copy of
+	this entity's state in a {@link game.model.FrameSnapshot}.
+	the copy will be updated with {@link #copyRenderState} every frame.
+	the default implementation returns a shallow {@link #clone},
+	which shares any objects this entity references.
+	subclasses whose references are not immutable should override this method.
+	*/
+	public Entity createRenderCopy() {
+		try {
+			return (Entity)(this.clone());
+		}
+		catch (CloneNotSupportedException exception) {
+			throw new AssertionError(exception);
+		}
+	}
+
+	/**
+	copies everything that changes while this entity ticks and is needed to render it into the copy.
+	the copy was previously created by this entity's {@link #createRenderCopy}.
+	subclasses which have more mutable state than just their position should override this method.
+	*/
+	public void copyRenderState(Entity copy) {
+		copy.x = this.x;
+		copy.y = this.y;
+	}
+
 	@Override
 	public String toString() {
 		return String.format("%s at %.3f, %.3f", this.getClass().getSimpleName(), this.x, this.y);
@@ -61,6 +61,11 @@ public class PlasmaPulseEntity extends Entity {
 	}
 
 	public double getSize() {
-		return this.powerLevel * 4 + 8;
+		return getSize(this.powerLevel);
+	}
+
+	/** returns the radius of the head of a pulse with the provided power level. */
+	public static double getSize(int powerLevel) {
+		return powerLevel * 4 + 8;
 	}
 }
\ No newline at end of file
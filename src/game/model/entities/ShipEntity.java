@@ -2,6 +2,7 @@ package game.model.entities;
 
 import java.util.EnumMap;
 import java.util.Objects;
+import java.util.Random;
 
 import game.Main;
 import game.common.Interpolator;
@@ -12,6 +13,9 @@ import game.model.Game;
 import game.model.StatSlot;
 import game.model.upgrades.StatUpgradeMode;
 import game.model.ValuedStatSlot;
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.SimpleIntegerProperty;
 
 /**
 the ship is what the user controls,
@@ -24,11 +28,16 @@ asteroids, and to collect upgrades.
 */
 public class ShipEntity extends Entity {
 
+	private static final Random RANDOM = new Random();
 	public static final int MAX_SPEED_UPGRADES      = 4;
 	public static final int MAX_FIRE_RATE_UPGRADES  = 4;
 	public static final int MAX_FIRE_POWER_UPGRADES = 4;
 	public static final int MAX_EXTRA_LIVES         = 2;
 	public static final double SIZE                 = 32.0D;
+	/** number of exhaust particles spawned per second. */
+	public static final double EXHAUST_RATE         = 240.0D;
+	/** distance from the ship's center to its engine, which is directly behind it. */
+	public static final double EXHAUST_OFFSET       = 24.0D;
 
 	public double velocityX, velocityY;
 	public double targetVelocityX, targetVelocityY;
@@ -40,8 +49,9 @@ public class ShipEntity extends Entity {
 	public final ValuedStatSlot firePower = new ValuedStatSlot(this, "firePower", MAX_FIRE_POWER_UPGRADES, Interpolator.linear(16.0D, 80.0D));
 	public final StatSlot       lives     = new       StatSlot(this, "lives",     MAX_EXTRA_LIVES);
 
-	private int points;
-	private int finalScore;
+	/** properties for the same reason as {@link StatSlot#countProperty}: so that the overlay knows when to re-draw them. */
+	private final IntegerProperty points     = new SimpleIntegerProperty(this, "points");
+	private final IntegerProperty finalScore = new SimpleIntegerProperty(this, "finalScore");
 
 	/** time remaining with the "wide spread" upgrade. */
 	public double wideSpreadTime;
@@ -87,13 +97,36 @@ public class ShipEntity extends Entity {
 		this.fireRate .setCount(Main.DEBUG_MODE ? MAX_FIRE_RATE_UPGRADES  : 0);
 		this.firePower.setCount(Main.DEBUG_MODE ? MAX_FIRE_POWER_UPGRADES : 0);
 		this.lives    .setCount(Main.DEBUG_MODE ? MAX_EXTRA_LIVES         : 0);
-		this.points = 0;
-		this.finalScore = 0;
+		this.points.set(0);
+		this.finalScore.set(0);
 		this.wideSpreadTime = 0.0D;
 		this.ghostTime = 0.0D;
 		this.destroyedTime = 0.0D;
 	}
 
+	/** the copy needs its own {@link StatSlot}'s, so a shallow clone won't do. */
+	@Override
+	public ShipEntity createRenderCopy() {
+		return new ShipEntity(this.x, this.y);
+	}
+
+	@Override
+	public void copyRenderState(Entity copy) {
+		super.copyRenderState(copy);
+		ShipEntity ship = (ShipEntity)(copy);
+		ship.velocityX = this.velocityX;
+		ship.velocityY = this.velocityY;
+		ship.speed    .setCountDirect(this.speed    .getCount());
+		ship.fireRate .setCountDirect(this.fireRate .getCount());
+		ship.firePower.setCountDirect(this.firePower.getCount());
+		ship.lives    .setCountDirect(this.lives    .getCount());
+		ship.points    .set(this.points    .get());
+		ship.finalScore.set(this.finalScore.get());
+		ship.wideSpreadTime = this.wideSpreadTime;
+		ship.ghostTime      = this.ghostTime;
+		ship.destroyedTime  = this.destroyedTime;
+	}
+
 	@Override
 	public void tickMovement(Game game) {
 		Objects.requireNonNull(this.controller, "ShipController not installed").updateTargetVelocity(this);
@@ -113,6 +146,30 @@ public class ShipEntity extends Entity {
 
 		if (this.wideSpreadTime > 0.0D) this.wideSpreadTime -= game.deltaTime;
 		if (this.ghostTime > 0.0D) this.ghostTime -= game.deltaTime;
+
+		this.spawnExhaust(game);
+	}
+
+	/**
+	adds exhaust to the game's {@link Game#particles particles}.
+	hotter exhaust is more yellow and lasts a bit longer, cooler exhaust is more red.
+	exhaust is faster, and there's more of it, when the game is going faster.
+	*/
+	private void spawnExhaust(Game game) {
+		int count = Util.roundRandomly(EXHAUST_RATE * Math.sqrt(game.gameSpeed) * game.deltaTime, RANDOM);
+		for (int exhaust = 0; exhaust < count; exhaust++) {
+			float heat = RANDOM.nextFloat();
+			boolean spawned = game.particles.spawn(
+				(float)(this.x + (RANDOM.nextDouble() - 0.5D) * 8.0D),
+				(float)(this.y + EXHAUST_OFFSET),
+				(float)((RANDOM.nextDouble() - 0.5D) * 32.0D),
+				(float)(Util.mix(96.0D, 192.0D, RANDOM.nextDouble()) * game.gameSpeed),
+				(float)(Util.mix(0.15D, 0.35D, heat)),
+				2.0F,
+				0xFF000000 | (255 << 16) | (((int)(Util.mix(64.0F, 224.0F, heat))) << 8) | ((int)(Util.mix(16.0F, 96.0F, heat)))
+			);
+			if (!spawned) break;
+		}
 	}
 
 	@Override
@@ -134,15 +191,23 @@ public class ShipEntity extends Entity {
 	}
 
 	public void addPoints(int points, boolean affectFinalScore) {
-		this.points += points;
-		if (affectFinalScore) this.finalScore += points;
+		this.points.set(this.points.get() + points);
+		if (affectFinalScore) this.finalScore.set(this.finalScore.get() + points);
 	}
 
-	public int getPoints() {
+	public ReadOnlyIntegerProperty pointsProperty() {
 		return this.points;
 	}
 
-	public int getFinalScore() {
+	public int getPoints() {
+		return this.points.get();
+	}
+
+	public ReadOnlyIntegerProperty finalScoreProperty() {
 		return this.finalScore;
 	}
+
+	public int getFinalScore() {
+		return this.finalScore.get();
+	}
 }
\ No newline at end of file
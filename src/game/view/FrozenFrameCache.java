@@ -0,0 +1,142 @@
+package game.view;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import game.view.boilerplate.PixelBuffer;
+
+/**
+while the ship is exploding at game over, the {@link game.model.Game} stops ticking everything except the ship.
+so every frame of the explosion would draw the exact same background and entities, with a different explosion on top.
+instead, the first frame of the explosion draws the world as normal, and then {@link #capture}'s it.
+every frame after that just {@link #restore}'s the area which the previous explosion frame was drawn on,
+and then draws the next explosion frame on top.
+
+the cached world is only valid for as long as nothing which affects how the world is drawn changes:
+the size of the pixels, the canvas's scale, and the quality level.
+if any of those change, the world is drawn as normal again, and captured again.
+
+{@link GameView}'s pixels may be one of several buffers which take turns being drawn on
+(see {@link game.view.boilerplate.RenderThread}), and a buffer which wasn't drawn on last frame
+doesn't necessarily contain the cached world yet. so we keep track of which buffers do,
+and the ones which don't get the whole cached world copied into them,
+which is still a lot cheaper than drawing it.
+
+when {@link game.view.boilerplate.Bloom bloom} is on, the glow depends on the explosion too,
+so the first frame's glowing world is {@link #captureGlow captured} as well.
+glow from the explosion only reaches so far ({@link game.view.boilerplate.Bloom#addReach}),
+so everywhere else, every frame looks like the glowing world.
+near the explosion, the world without glow is restored instead, so that the explosion can be drawn
+and bloom can be applied over just that area, exactly like it would've been over the whole frame.
+afterwards, the parts of that area which bloom only read from get their glow back via {@link #restoreGlow}.
+
+@author Michael Johnston (tky886)
+*/
+public class FrozenFrameCache {
+
+	/** a copy of the world, without the ship. */
+	private final PixelBuffer world = new PixelBuffer();
+	/** a copy of the first frame after bloom was applied to it. only valid when hasGlow is true. */
+	private final PixelBuffer glowingWorld = new PixelBuffer();
+	private boolean valid, hasGlow;
+	private double scale;
+	private QualityGovernor.Level quality;
+	/** buffers which already contain our {@link #world} everywhere except where the explosion was drawn. */
+	private final Set<PixelBuffer> restoredBuffers = Collections.newSetFromMap(new IdentityHashMap<>(4));
+
+	/** forgets the cached world. */
+	public void invalidate() {
+		this.valid = false;
+		this.hasGlow = false;
+		this.quality = null;
+		this.restoredBuffers.clear();
+	}
+
+	/**
+	if the cached world was drawn at the same size, scale, and quality as these pixels are about to be,
+	and was {@link #captureGlow captured with glow} if and only if glow is true,
+	copies it onto the pixels and returns true. if the pixels already contain the cached world,
+	only the area between (minX, minY) (inclusive) and (maxX, maxY) (exclusive) is copied,
+	which should cover wherever the explosion (and its glow, and whatever bloom reads to add it) was drawn last time.
+	when glow is true, the world is copied without glow inside that area, and with glow everywhere else.
+	otherwise, returns false, and the world needs to be drawn as normal, and then {@link #capture}'d.
+	*/
+	public boolean restore(PixelBuffer pixels, double scale, QualityGovernor.Level quality, boolean glow, int minX, int minY, int maxX, int maxY) {
+		PixelBuffer world = this.world;
+		if (
+			!this.valid ||
+			this.hasGlow != glow ||
+			this.scale != scale ||
+			this.quality != quality ||
+			world.width .intValue() != pixels.width .intValue() ||
+			world.height.intValue() != pixels.height.intValue()
+		) {
+			return false;
+		}
+		if (this.restoredBuffers.add(pixels)) {
+			copy(glow ? this.glowingWorld : world, pixels, 0, 0, pixels.width.intValue(), pixels.height.intValue());
+			if (!glow) return true;
+		}
+		copy(world, pixels, minX, minY, maxX, maxY);
+		return true;
+	}
+
+	/**
+	after bloom was applied to the area inside glowBounds,
+	restores the glowing world between glowBounds and restoreBounds,
+	which {@link #restore} copied without glow. both are (minX, minY, maxX, maxY),
+	with min inclusive and max exclusive, and glowBounds must be inside restoreBounds.
+	*/
+	public void restoreGlow(PixelBuffer pixels, int[] glowBounds, int[] restoreBounds) {
+		PixelBuffer glowingWorld = this.glowingWorld;
+		copy(glowingWorld, pixels, restoreBounds[0], restoreBounds[1], restoreBounds[2], glowBounds[1]);
+		copy(glowingWorld, pixels, restoreBounds[0], glowBounds[3], restoreBounds[2], restoreBounds[3]);
+		copy(glowingWorld, pixels, restoreBounds[0], glowBounds[1], glowBounds[0], glowBounds[3]);
+		copy(glowingWorld, pixels, glowBounds[2], glowBounds[1], restoreBounds[2], glowBounds[3]);
+	}
+
+	/** copies the world which was just drawn on the pixels, so that it can be {@link #restore}'d later. */
+	public void capture(PixelBuffer pixels, double scale, QualityGovernor.Level quality) {
+		PixelBuffer world = this.world;
+		int width  = pixels.width .intValue();
+		int height = pixels.height.intValue();
+		world.width .set(width);
+		world.height.set(height);
+		copy(pixels, world, 0, 0, width, height);
+		this.valid = true;
+		this.hasGlow = false;
+		this.scale = scale;
+		this.quality = quality;
+		this.restoredBuffers.clear();
+		this.restoredBuffers.add(pixels);
+	}
+
+	/**
+	copies the frame which was just {@link #capture}'d after bloom was applied to it.
+	glow from the explosion doesn't reach far, so this is the glowing world everywhere except near the explosion.
+	*/
+	public void captureGlow(PixelBuffer pixels) {
+		PixelBuffer glowingWorld = this.glowingWorld;
+		int width  = pixels.width .intValue();
+		int height = pixels.height.intValue();
+		glowingWorld.width .set(width);
+		glowingWorld.height.set(height);
+		copy(pixels, glowingWorld, 0, 0, width, height);
+		this.hasGlow = true;
+	}
+
+	/** copies the area between (minX, minY) (inclusive) and (maxX, maxY) (exclusive) from one buffer to another. */
+	private static void copy(PixelBuffer from, PixelBuffer to, int minX, int minY, int maxX, int maxY) {
+		minX = Math.max(minX, 0);
+		minY = Math.max(minY, 0);
+		maxX = Math.min(maxX, Math.min(from.width .intValue(), to.width .intValue()));
+		maxY = Math.min(maxY, Math.min(from.height.intValue(), to.height.intValue()));
+		if (maxX <= minX || maxY <= minY) return;
+		to.markDirty(minX, minY, maxX, maxY);
+		byte[] source = from.getRowMajorPixels(minX, minY, maxX - minX, maxY - minY);
+		for (int y = minY; y < maxY; y++) {
+			to.copySpan(minX, y, source, from.rowMajorOffset(minX, y), maxX - minX);
+		}
+	}
+}
@@ -1,13 +1,25 @@
 package game.view;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import game.controller.ShipController;
+import game.model.FrameSnapshot;
 import game.model.Game;
+import game.model.entities.Entity;
 import game.model.entities.ShipEntity;
+import game.view.boilerplate.Bloom;
 import game.view.boilerplate.BufferedCanvasView;
+import game.view.boilerplate.CoverageMask;
+import game.view.boilerplate.RenderGroup;
+import game.view.boilerplate.RenderScaleController;
 import game.view.entities.BackgroundView;
 import game.view.entities.EntityViewRegistry;
+import game.view.entities.ParticleView;
 import game.view.entities.ShipView;
 import javafx.scene.Cursor;
+import javafx.scene.Scene;
+import javafx.stage.Window;
 
 /**
 renderer for the {@link Game} as a whole.
@@ -17,21 +29,257 @@ this only requires rendering the game's entities.
 */
 public class GameView extends BufferedCanvasView {
 
+	/**
+	when enabled, the game is rendered on a dedicated {@link game.view.boilerplate.RenderThread},
+	so that the FX application thread can keep handling input and layout
+	instead of waiting for every frame to finish drawing.
+	the render thread only reads {@link FrameSnapshot}'s, so ticking
+	the next frame can happen while the current one is being drawn.
+	*/
+	public static final boolean USE_RENDER_THREAD = true;
+	/**
+	when enabled, the {@link BackgroundView background} skips pixels which
+	are going to be covered by something opaque (currently the solid interiors of asteroids)
+	anyways. see {@link game.view.entities.EntityView#addCoverage}.
+	this only matters when the background is drawn directly instead of from its
+	{@link BackgroundView#USE_TILE_CACHE tile cache}, since copying tiles is cheap already.
+	*/
+	public static boolean USE_COVERAGE_MASK = true;
+	/**
+	when enabled, the world is only drawn once while the ship is exploding at game over,
+	because nothing but the ship changes during that time. see {@link FrozenFrameCache}.
+	*/
+	public static boolean USE_FROZEN_FRAME = true;
+	/**
+	when enabled, bright things (mostly plasma pulses and upgrade rings) glow,
+	at {@link QualityGovernor.Level#bloom quality levels} which allow it.
+	see {@link Bloom}.
+	*/
+	public static boolean USE_BLOOM = true;
+	/**
+	bounds for {@link #renderScale}, as a fraction of the number of physical pixels we are displayed with.
+	the scale can only change when {@link #USE_RENDER_THREAD} is enabled,
+	because that's where frame times are measured.
+	*/
+	public static final double
+		MIN_RENDER_SCALE = 0.5D,
+		MAX_RENDER_SCALE = 1.0D;
+	/** how long we would like to spend drawing a frame, in nanoseconds. 3/4 of a 60 FPS frame. */
+	public static final long FRAME_BUDGET = 1_000_000_000L * 3L / (60L * 4L);
+
 	public final Game game;
+	/**
+	the snapshot currently being rendered.
+	entity views should read from this instead of {@link #game},
+	because the game may be ticking while we are rendering.
+	*/
+	public FrameSnapshot frame;
+	/**
+	chooses what fraction of our display resolution to render at.
+	the resulting {@link #canvas}.{@link game.view.boilerplate.BufferedCanvas#pixels pixels}
+	are stretched to fit us when they are flushed.
+	*/
+	public final RenderScaleController renderScale = new RenderScaleController(MIN_RENDER_SCALE, MAX_RENDER_SCALE, FRAME_BUDGET);
+	/**
+	chooses how much detail to draw.
+	detail is only removed once {@link #renderScale} can't go any lower,
+	and is added back (at least up to {@link QualityGovernor.Level#DEFAULT}) before the render scale is allowed to go back up.
+	*/
+	public final QualityGovernor qualityGovernor = new QualityGovernor(FRAME_BUDGET);
+	/**
+	the {@link QualityGovernor.Level} the current frame is being rendered at.
+	like {@link #frame}, this only changes between frames.
+	*/
+	public QualityGovernor.Level quality = QualityGovernor.Level.DEFAULT;
+	/**
+	the entities in {@link #frame}, grouped by their {@link EntityViewRegistry#getIndex index}.
+	the lists are cleared and re-used every frame.
+	*/
+	private final List<List<Entity>> batches = new ArrayList<>(16);
+	/** pixels which the background doesn't need to draw this frame. re-used every frame. */
+	private final CoverageMask coverage = new CoverageMask();
+	/**
+	the number of pixels the background skipped drawing in the most recent frame,
+	because something opaque was going to cover them anyways.
+	*/
+	private volatile long coveredPixels;
+	/** the world as it was when the ship exploded. */
+	private final FrozenFrameCache frozenFrame = new FrozenFrameCache();
+	/** adds glow to our pixels after everything else has been drawn. */
+	public final Bloom bloom = new Bloom();
+	/**
+	while the ship is exploding, the area which needs to be {@link FrozenFrameCache#restore restored} every frame.
+	that's where the explosion is drawn, or with bloom on, everything which {@link #bloom} reads
+	to add glow to frozenGlowBounds, which is everywhere the explosion's glow can reach. re-used every frame.
+	*/
+	private final int[] frozenRestoreBounds = new int[4], frozenGlowBounds = new int[4];
 
 	public GameView(Game game) {
+		this(game, null);
+	}
+
+	/** if {@link #USE_RENDER_THREAD} is disabled and the group is not null, we render as part of it. */
+	public GameView(Game game, RenderGroup group) {
+		super(0.0D, 0.0D, USE_RENDER_THREAD, group);
 		this.game = game;
 		//required for {@link KeyboardShipController}
 		//to be able to receive keyboard events.
-		this.canvas.canvas.setFocusTraversable(true);
-		this.canvas.canvas.setCursor(Cursor.CROSSHAIR);
+		this.canvas.node.setFocusTraversable(true);
+		this.canvas.node.setCursor(Cursor.CROSSHAIR);
+	}
+
+	/**
+	if we have a {@link #renderThread}, updates our {@link #qualityGovernor},
+	and requests a frame at our display size multiplied by the
+	window's output scale (for HiDPI screens), and then by our {@link #renderScale}.
+	*/
+	@Override
+	public void render() {
+		if (this.renderThread == null) {
+			super.render();
+			return;
+		}
+		long averageRenderTime = this.renderThread.getAverageRenderTime();
+		if (!this.canvas.presenter.supportsScaling()) {
+			this.qualityGovernor.update(averageRenderTime, true);
+			super.render();
+			return;
+		}
+		boolean scaleAtMin = this.renderScale.getScale() <= this.renderScale.minScale;
+		QualityGovernor.Level level = this.qualityGovernor.update(averageRenderTime, scaleAtMin);
+		double scale = this.renderScale.update(averageRenderTime, level.ordinal() <= QualityGovernor.Level.DEFAULT.ordinal());
+		Scene scene = this.canvas.node.getScene();
+		Window window = scene != null ? scene.getWindow() : null;
+		double outputScaleX = window != null ? window.getOutputScaleX() : 1.0D;
+		double outputScaleY = window != null ? window.getOutputScaleY() : 1.0D;
+		this.renderThread.requestRender(
+			Math.max((int)(this.width .doubleValue() * outputScaleX * scale), 1),
+			Math.max((int)(this.height.doubleValue() * outputScaleY * scale), 1)
+		);
 	}
 
 	@Override
 	protected void doRender() {
-		BackgroundView.INSTANCE.render(this.game.background, this);
-		this.game.entities.forEach(entity -> EntityViewRegistry.get(entity).render(entity, this));
-		ShipView.INSTANCE.render(this.game.ship, this);
+		//if the game hasn't ticked since our last frame, the front snapshot is still the latest one.
+		this.game.snapshots.swapFront();
+		FrameSnapshot frame = this.frame = this.game.snapshots.getFront();
+		this.quality = this.qualityGovernor.getLevel();
+		this.canvas.maxShadingRate = this.quality.maxShadingRate;
+		//entity views draw in the game's coordinates, and the canvas converts them to our pixels.
+		if (frame.height > 0.0D) {
+			this.canvas.scale = this.canvas.pixels.height.doubleValue() / frame.height;
+		}
+		//nothing but the ship moves while it's exploding, so the rest of the world looks the same as last frame.
+		boolean exploding = USE_FROZEN_FRAME && frame.ship.lives.getCount() < 0;
+		boolean bloom = USE_BLOOM && this.quality.bloom;
+		boolean restored = false;
+		if (exploding) {
+			int[] restoreBounds = this.frozenRestoreBounds;
+			ShipView.INSTANCE.getExplosionBounds(frame.ship, this, restoreBounds);
+			if (bloom) {
+				//the explosion's glow reaches past it, and the glow there depends on everything bright near it.
+				int[] glowBounds = this.frozenGlowBounds;
+				Bloom.addReach(restoreBounds);
+				System.arraycopy(restoreBounds, 0, glowBounds, 0, 4);
+				Bloom.addReach(restoreBounds);
+			}
+			restored = this.frozenFrame.restore(this.canvas.pixels, this.canvas.scale, this.quality, bloom, restoreBounds[0], restoreBounds[1], restoreBounds[2], restoreBounds[3]);
+		}
+		else {
+			this.frozenFrame.invalidate();
+		}
+		if (restored) {
+			this.coveredPixels = 0L;
+			ShipView.INSTANCE.render(frame.ship, this);
+			if (bloom) {
+				int[] glowBounds = this.frozenGlowBounds;
+				this.bloom.apply(this.canvas.pixels, glowBounds[0], glowBounds[1], glowBounds[2], glowBounds[3]);
+				this.frozenFrame.restoreGlow(this.canvas.pixels, glowBounds, this.frozenRestoreBounds);
+			}
+			else {
+				this.bloom.skip();
+			}
+		}
+		else {
+			this.renderWorld(frame, exploding);
+			this.postProcess(bloom);
+			if (exploding && bloom) {
+				this.frozenFrame.captureGlow(this.canvas.pixels);
+			}
+		}
+	}
+
+	/** draws the whole frame, and {@link FrozenFrameCache#capture captures} it if the ship is exploding. */
+	private void renderWorld(FrameSnapshot frame, boolean exploding) {
+		//each type of entity is drawn all at once, in the order the types were registered in.
+		//entities of the same type are still drawn in the order they were spawned in.
+		List<List<Entity>> batches = this.batches;
+		while (batches.size() < EntityViewRegistry.getViewCount()) {
+			batches.add(new ArrayList<>(16));
+		}
+		for (int index = 0, size = batches.size(); index < size; index++) {
+			batches.get(index).clear();
+		}
+		for (int index = 0, size = frame.entities.size(); index < size; index++) {
+			Entity entity = frame.entities.get(index);
+			batches.get(EntityViewRegistry.getIndex(entity)).add(entity);
+		}
+		CoverageMask coverage = null;
+		this.coveredPixels = 0L;
+		if (USE_COVERAGE_MASK && !BackgroundView.USE_TILE_CACHE) {
+			coverage = this.coverage;
+			coverage.reset(this.canvas.pixels.width.intValue(), this.canvas.pixels.height.intValue());
+			for (int index = 0, size = batches.size(); index < size; index++) {
+				List<Entity> batch = batches.get(index);
+				if (!batch.isEmpty()) {
+					EntityViewRegistry.addCoverage(index, batch, this, coverage);
+				}
+			}
+			this.coveredPixels = coverage.getCoveredPixels();
+		}
+		BackgroundView.INSTANCE.render(frame.background, this, coverage);
+		for (int index = 0, size = batches.size(); index < size; index++) {
+			List<Entity> batch = batches.get(index);
+			if (!batch.isEmpty()) {
+				EntityViewRegistry.renderBatch(index, batch, this);
+			}
+		}
+		//debris is drawn over the asteroids it came from, and the ship is drawn over its exhaust.
+		ParticleView.INSTANCE.render(frame.particles, this);
+		if (exploding) {
+			this.frozenFrame.capture(this.canvas.pixels, this.canvas.scale, this.quality);
+		}
+		ShipView.INSTANCE.render(frame.ship, this);
+	}
+
+	/**
+	runs everything which applies to the whole frame after it's been drawn.
+	right now, that's just {@link #bloom}, if it's on.
+	*/
+	private void postProcess(boolean bloom) {
+		if (bloom) {
+			this.bloom.apply(this.canvas.pixels);
+		}
+		else {
+			this.bloom.skip();
+		}
+	}
+
+	/** returns the number of pixels the background skipped drawing in the most recent frame. */
+	public long getCoveredPixels() {
+		return this.coveredPixels;
+	}
+
+	/** converts an x coordinate relative to our node into the game's coordinates. */
+	public double toGameX(double x) {
+		double width = this.width.doubleValue();
+		return width > 0.0D ? x * this.game.width.doubleValue() / width : x;
+	}
+
+	/** converts a y coordinate relative to our node into the game's coordinates. */
+	public double toGameY(double y) {
+		double height = this.height.doubleValue();
+		return height > 0.0D ? y * this.game.height.doubleValue() / height : y;
 	}
 
 	public void setShipController(ShipController controller) {
@@ -0,0 +1,202 @@
+package game.view;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import game.view.entities.PlasmaPulseView;
+
+/**
+trades visual detail for frame rate when frames take too long to draw.
+
+the governor watches the average time it takes to draw a frame,
+and steps its {@link Level} down one at a time when frames are over {@link #frameBudget},
+or back up when they are comfortably under it.
+each level is a set of quality knobs which views read while rendering.
+the governor starts at {@link Level#DEFAULT}, and only goes above it when there is plenty of time to spare.
+
+to avoid flickering between 2 levels, changes use hysteresis:
+frames need to be over budget for {@link #DOWNGRADE_FRAMES} frames in a row
+before the level goes down, but under {@link #UPGRADE_HEADROOM} of the budget
+for at least {@link #MIN_UPGRADE_FRAMES} frames in a row before it goes back up.
+if a level turns out to be too expensive shortly after upgrading to it,
+upgrading to it again takes twice as long as last time.
+
+every change is recorded in a {@link #getHistory history}, for debugging.
+
+@author Michael Johnston (tky886)
+*/
+public class QualityGovernor {
+
+	public static final int DOWNGRADE_FRAMES = 15;
+	public static final int MIN_UPGRADE_FRAMES = 120;
+	public static final int MAX_UPGRADE_FRAMES = 120 << 4;
+	/** frames which take less than this fraction of {@link #frameBudget} count towards upgrading. */
+	public static final double UPGRADE_HEADROOM = 0.5D;
+	/** maximum number of {@link Decision}'s kept in the history. */
+	public static final int HISTORY_SIZE = 32;
+
+	/** how long we would like frames to take to draw, in nanoseconds. */
+	public long frameBudget;
+	private volatile Level level = Level.DEFAULT;
+	private int slowFrames, fastFrames;
+	private int upgradeFrames = MIN_UPGRADE_FRAMES;
+	/** the number of frames we've been at the current level for. */
+	private int framesAtLevel;
+	private final ArrayDeque<Decision> history = new ArrayDeque<>(HISTORY_SIZE);
+
+	public QualityGovernor(long frameBudget) {
+		this.frameBudget = frameBudget;
+	}
+
+	/**
+	called once per frame with the current average time it takes to draw a frame.
+	if allowDowngrade is false, slow frames do not count towards downgrading.
+	this lets other ways of making frames faster (like rendering at a lower resolution)
+	get a chance first, before we start removing detail.
+	returns the new level.
+	*/
+	public Level update(long averageFrameTime, boolean allowDowngrade) {
+		if (averageFrameTime <= 0L) return this.level;
+		//if we've gone a long time without having to downgrade, go back to upgrading sooner.
+		if (++this.framesAtLevel == MAX_UPGRADE_FRAMES && this.upgradeFrames > MIN_UPGRADE_FRAMES) {
+			this.upgradeFrames >>= 1;
+		}
+		if (averageFrameTime > this.frameBudget) {
+			this.fastFrames = 0;
+			if (allowDowngrade && ++this.slowFrames >= DOWNGRADE_FRAMES && this.level.ordinal() < Level.LOWEST.ordinal()) {
+				//if we just upgraded to this level and it's already too slow,
+				//wait longer before trying it again next time.
+				if (this.framesAtLevel < this.upgradeFrames) {
+					this.upgradeFrames = Math.min(this.upgradeFrames << 1, MAX_UPGRADE_FRAMES);
+				}
+				this.setLevel(Level.values()[this.level.ordinal() + 1], averageFrameTime);
+			}
+		}
+		else if (averageFrameTime < this.frameBudget * UPGRADE_HEADROOM) {
+			this.slowFrames = 0;
+			if (++this.fastFrames >= this.upgradeFrames && this.level.ordinal() > 0) {
+				this.setLevel(Level.values()[this.level.ordinal() - 1], averageFrameTime);
+			}
+		}
+		else {
+			this.slowFrames = 0;
+			this.fastFrames = 0;
+		}
+		return this.level;
+	}
+
+	private void setLevel(Level level, long averageFrameTime) {
+		synchronized (this.history) {
+			if (this.history.size() >= HISTORY_SIZE) this.history.removeFirst();
+			this.history.addLast(new Decision(System.nanoTime(), this.level, level, averageFrameTime));
+		}
+		this.level = level;
+		this.slowFrames = 0;
+		this.fastFrames = 0;
+		this.framesAtLevel = 0;
+	}
+
+	/** safe to call from any thread. */
+	public Level getLevel() {
+		return this.level;
+	}
+
+	/** returns a copy of the most recent decisions, oldest first. safe to call from any thread. */
+	public List<Decision> getHistory() {
+		synchronized (this.history) {
+			return new ArrayList<>(this.history);
+		}
+	}
+
+	/** returns the most recent decision, or null if the level has never changed. */
+	public Decision getLastDecision() {
+		synchronized (this.history) {
+			return this.history.peekLast();
+		}
+	}
+
+	/** one line summary of the current level and the most recent decision, for debugging. */
+	public String getDebugLine() {
+		Decision last = this.getLastDecision();
+		return "quality: " + this.level + (last != null ? " (last change: " + last + ")" : "");
+	}
+
+	/**
+	a set of quality knobs, from most detailed to least detailed.
+	views should read the level once per frame
+	(see {@link GameView#quality}), so that the whole frame is drawn consistently.
+	*/
+	public static enum Level {
+
+		ULTRA (0, 5, true,  PlasmaPulseView.Detail.EXACT,          1, true ),
+		HIGH  (0, 5, true,  PlasmaPulseView.Detail.STAMPED,        1, true ),
+		MEDIUM(1, 4, false, PlasmaPulseView.Detail.STAMPED,        2, true ),
+		LOW   (2, 4, false, PlasmaPulseView.Detail.COARSE_STAMPED, 2, false),
+		LOWEST(3, 3, false, PlasmaPulseView.Detail.COARSE_STAMPED, 4, false);
+
+		/**
+		the level the governor starts at.
+		levels above this one only add detail which is hard to notice,
+		so they are only used when there is plenty of time to spare.
+		*/
+		public static final Level DEFAULT = HIGH;
+
+		/**
+		number of the finest visible layers of the background's noise to skip.
+		layers which are smaller than a pixel are always skipped,
+		so this only counts layers which would otherwise be visible.
+		*/
+		public final int droppedBackgroundLayers;
+		/** maximum number of layers of an asteroid's height noise to use for shading. */
+		public final int asteroidLayers;
+		/**
+		when true, the ship crossfades between its normal and ghost sprites when ghost mode is ending.
+		when false, it snaps to whichever sprite is more visible.
+		*/
+		public final boolean ghostCrossfade;
+		/** how much detail to draw plasma pulses with. */
+		public final PlasmaPulseView.Detail pulseDetail;
+		/**
+		the largest shading rate draw calls are allowed to use.
+		see {@link game.view.boilerplate.BufferedCanvas#maxShadingRate}.
+		*/
+		public final int maxShadingRate;
+		/**
+		when true, bright things glow, as long as {@link GameView#USE_BLOOM} is enabled too.
+		see {@link game.view.boilerplate.Bloom}.
+		*/
+		public final boolean bloom;
+
+		private Level(int droppedBackgroundLayers, int asteroidLayers, boolean ghostCrossfade, PlasmaPulseView.Detail pulseDetail, int maxShadingRate, boolean bloom) {
+			this.droppedBackgroundLayers = droppedBackgroundLayers;
+			this.asteroidLayers = asteroidLayers;
+			this.ghostCrossfade = ghostCrossfade;
+			this.pulseDetail = pulseDetail;
+			this.maxShadingRate = maxShadingRate;
+			this.bloom = bloom;
+		}
+	}
+
+	/** a record of the level changing, and why. */
+	public static class Decision {
+
+		/** System.nanoTime() when the decision was made. */
+		public final long time;
+		public final Level from, to;
+		/** the average frame time which caused the decision, in nanoseconds. */
+		public final long averageFrameTime;
+
+		public Decision(long time, Level from, Level to, long averageFrameTime) {
+			this.time = time;
+			this.from = from;
+			this.to = to;
+			this.averageFrameTime = averageFrameTime;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s -> %s at %.3f ms", this.from, this.to, this.averageFrameTime * 1.0E-6D);
+		}
+	}
+}
@@ -0,0 +1,39 @@
+package game.view;
+
+import game.view.boilerplate.Sprite;
+
+/**
+{@link Sprite}'s for all the {@link Images} which are drawn onto a
+{@link game.view.boilerplate.BufferedCanvas} instead of being displayed in an ImageView.
+like Images, everything is decoded in a static initializer,
+so that no image is decoded for the first time in the middle of the game.
+
+@author Michael Johnston (tky886)
+*/
+public class Sprites {
+
+	/** frames of {@link Images#EXPLOSION}, in order. */
+	public static final Sprite[] EXPLOSION = Sprite.frames(Images.EXPLOSION, 64);
+
+	public static final Sprite
+		EXTRA_LIFE_STAT      = Sprite.of(Images.EXTRA_LIFE_STAT),
+		EXTRA_LIFE_UPGRADE   = Sprite.of(Images.EXTRA_LIFE_UPGRADE),
+		FIRE_POWER_DOWNGRADE = Sprite.of(Images.FIRE_POWER_DOWNGRADE),
+		FIRE_POWER_STAT      = Sprite.of(Images.FIRE_POWER_STAT),
+		FIRE_POWER_UPGRADE   = Sprite.of(Images.FIRE_POWER_UPGRADE),
+		FIRE_RATE_DOWNGRADE  = Sprite.of(Images.FIRE_RATE_DOWNGRADE),
+		FIRE_RATE_STAT       = Sprite.of(Images.FIRE_RATE_STAT),
+		FIRE_RATE_UPGRADE    = Sprite.of(Images.FIRE_RATE_UPGRADE),
+		GHOST_UPGRADE        = Sprite.of(Images.GHOST_UPGRADE),
+		SHIP                 = Sprite.of(Images.SHIP),
+		SHIP_GHOST           = Sprite.of(Images.SHIP_GHOST),
+		SPEED_DOWNGRADE      = Sprite.of(Images.SPEED_DOWNGRADE),
+		SPEED_STAT           = Sprite.of(Images.SPEED_STAT),
+		SPEED_UPGRADE        = Sprite.of(Images.SPEED_UPGRADE),
+		TIME_WARP_UPGRADE    = Sprite.of(Images.TIME_WARP_UPGRADE),
+		WIDE_SPREAD_UPGRADE  = Sprite.of(Images.WIDE_SPREAD_UPGRADE);
+
+	//does nothing, but will trigger classloading and
+	//therefore initialization of all the above sprites.
+	public static void clinit() {}
+}
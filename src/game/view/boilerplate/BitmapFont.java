@@ -0,0 +1,258 @@
+package game.view.boilerplate;
+
+import java.util.Arrays;
+
+import game.common.LruCache;
+
+/**
+a tiny pixel font, for drawing numbers and short labels into a {@link PixelBuffer}.
+
+JavaFX text nodes would need their own spot in the scene graph, and would be laid out and
+rasterized again every time their text changes. points change every time an asteroid is destroyed,
+so instead, every glyph is a 5x7 grid of on/off pixels (see {@link #GLYPHS}), and all of them are
+baked once, side by side, into a single {@link Sprite} called the {@link #atlas}, at an integer {@link #scale}.
+every glyph is {@link #ADVANCE} font pixels apart, so text is monospaced,
+and a string's glyphs are always at the same positions, no matter what the glyphs are.
+
+strings are drawn from sprites of their own, which are copied together from the atlas the first time
+each string is drawn, and kept in an {@link LruCache}. text which doesn't change costs one sprite draw.
+
+lowercase letters are drawn as uppercase letters. characters which we don't have glyphs for are drawn as spaces.
+
+@author Michael Johnston (tky886)
+*/
+public class BitmapFont {
+
+	/** size of a glyph, in font pixels. every font pixel is {@link #scale} by {@link #scale} real pixels. */
+	public static final int GLYPH_WIDTH = 5, GLYPH_HEIGHT = 7;
+	/** distance between the left edges of 2 glyphs next to each other, in font pixels. */
+	public static final int ADVANCE = GLYPH_WIDTH + 1;
+	/** memory limit for {@link #strings}. */
+	public static final long DEFAULT_MAX_BYTES = 64L << 10;
+	/**
+	when enabled, strings are drawn from {@link #strings cached} sprites.
+	when disabled, every glyph is drawn straight from the {@link #atlas}, one at a time.
+	both produce identical results.
+	*/
+	public static boolean USE_STRING_CACHE = true;
+	/**
+	every glyph we have. the first character is the character the glyph is for,
+	and the rest is its rows, from top to bottom, where # is a pixel which is on.
+	*/
+	private static final String[] GLYPHS = {
+		"  ..... ..... ..... ..... ..... ..... .....",
+		"0 .###. #...# #..## #.#.# ##..# #...# .###.",
+		"1 ..#.. .##.. ..#.. ..#.. ..#.. ..#.. .###.",
+		"2 .###. #...# ....# ...#. ..#.. .#... #####",
+		"3 ##### ...#. ..#.. ...#. ....# #...# .###.",
+		"4 ...#. ..##. .#.#. #..#. ##### ...#. ...#.",
+		"5 ##### #.... ####. ....# ....# #...# .###.",
+		"6 ..##. .#... #.... ####. #...# #...# .###.",
+		"7 ##### ....# ...#. ..#.. .#... .#... .#...",
+		"8 .###. #...# #...# .###. #...# #...# .###.",
+		"9 .###. #...# #...# .#### ....# ...#. .##..",
+		"A .###. #...# #...# ##### #...# #...# #...#",
+		"B ####. #...# #...# ####. #...# #...# ####.",
+		"C .###. #...# #.... #.... #.... #...# .###.",
+		"D ###.. #..#. #...# #...# #...# #..#. ###..",
+		"E ##### #.... #.... ####. #.... #.... #####",
+		"F ##### #.... #.... ####. #.... #.... #....",
+		"G .###. #...# #.... #.### #...# #...# .####",
+		"H #...# #...# #...# ##### #...# #...# #...#",
+		"I .###. ..#.. ..#.. ..#.. ..#.. ..#.. .###.",
+		"J ..### ...#. ...#. ...#. ...#. #..#. .##..",
+		"K #...# #..#. #.#.. ##... #.#.. #..#. #...#",
+		"L #.... #.... #.... #.... #.... #.... #####",
+		"M #...# ##.## #.#.# #.#.# #...# #...# #...#",
+		"N #...# #...# ##..# #.#.# #..## #...# #...#",
+		"O .###. #...# #...# #...# #...# #...# .###.",
+		"P ####. #...# #...# ####. #.... #.... #....",
+		"Q .###. #...# #...# #...# #.#.# #..#. .##.#",
+		"R ####. #...# #...# ####. #.#.. #..#. #...#",
+		"S .#### #.... #.... .###. ....# ....# ####.",
+		"T ##### ..#.. ..#.. ..#.. ..#.. ..#.. ..#..",
+		"U #...# #...# #...# #...# #...# #...# .###.",
+		"V #...# #...# #...# #...# #...# .#.#. ..#..",
+		"W #...# #...# #...# #.#.# #.#.# #.#.# .#.#.",
+		"X #...# #...# .#.#. ..#.. .#.#. #...# #...#",
+		"Y #...# #...# .#.#. ..#.. ..#.. ..#.. ..#..",
+		"Z ##### ....# ...#. ..#.. .#... #.... #####",
+		". ..... ..... ..... ..... ..... .##.. .##..",
+		": ..... .##.. .##.. ..... .##.. .##.. .....",
+		"- ..... ..... ..... .###. ..... ..... .....",
+		"/ ....# ....# ...#. ..#.. .#... #.... #....",
+		"% ##..# ##..# ...#. ..#.. .#... #..## #..##",
+		"( ...#. ..#.. .#... .#... .#... ..#.. ...#.",
+		") .#... ..#.. ...#. ...#. ...#. ..#.. .#...",
+		"> .#... ..#.. ...#. ....# ...#. ..#.. .#...",
+	};
+	/** maps ASCII characters to their index in {@link #GLYPHS}. characters without a glyph map to the space at index 0. */
+	private static final byte[] GLYPH_INDEXES = new byte[128];
+	static {
+		for (int index = 0; index < GLYPHS.length; index++) {
+			GLYPH_INDEXES[GLYPHS[index].charAt(0)] = (byte)(index);
+		}
+	}
+
+	/** size of every font pixel, in real pixels. */
+	public final int scale;
+	/** non-premultiplied ARGB color of every glyph. */
+	public final int color;
+	/** every glyph, side by side, in the same order as {@link #GLYPHS}. */
+	public final Sprite atlas;
+	/** sprites for strings which have been drawn before. */
+	private final LruCache<String, Sprite> strings;
+
+	public BitmapFont(int scale, int color) {
+		this(scale, color, DEFAULT_MAX_BYTES);
+	}
+
+	public BitmapFont(int scale, int color, long maxBytes) {
+		this.scale = scale;
+		this.color = color;
+		this.atlas = bakeAtlas(scale, Sprite.scale(0xFF000000 | color, color >>> 24));
+		this.strings = new LruCache<>(maxBytes, sprite -> ((long)(sprite.pixels.length)) * (Integer.BYTES + Integer.BYTES));
+	}
+
+	private static Sprite bakeAtlas(int scale, int premultipliedColor) {
+		int glyphWidth = GLYPH_WIDTH * scale;
+		int width = GLYPHS.length * glyphWidth;
+		int height = GLYPH_HEIGHT * scale;
+		int[] pixels = new int[width * height];
+		for (int glyph = 0; glyph < GLYPHS.length; glyph++) {
+			String[] rows = GLYPHS[glyph].substring(2).split(" ");
+			for (int row = 0; row < GLYPH_HEIGHT; row++) {
+				for (int column = 0; column < GLYPH_WIDTH; column++) {
+					if (rows[row].charAt(column) != '#') continue;
+					for (int y = row * scale, maxY = y + scale; y < maxY; y++) {
+						int start = y * width + glyph * glyphWidth + column * scale;
+						Arrays.fill(pixels, start, start + scale, premultipliedColor);
+					}
+				}
+			}
+		}
+		return new Sprite(width, height, pixels);
+	}
+
+	public static int getGlyphIndex(char character) {
+		character = Character.toUpperCase(character);
+		return character < GLYPH_INDEXES.length ? GLYPH_INDEXES[character] : 0;
+	}
+
+	/** returns the distance between the left edges of 2 glyphs next to each other, in real pixels. */
+	public int getAdvance() {
+		return ADVANCE * this.scale;
+	}
+
+	/** returns the height of every glyph, in real pixels. */
+	public int getHeight() {
+		return GLYPH_HEIGHT * this.scale;
+	}
+
+	/** returns the width of the text, in real pixels. there is no space after the last glyph. */
+	public int getWidth(String text) {
+		return text.isEmpty() ? 0 : (text.length() * ADVANCE - 1) * this.scale;
+	}
+
+	/** returns a sprite with the text drawn on it. the sprite is cached, so the same text returns the same sprite. */
+	public Sprite getSprite(String text) {
+		Sprite sprite = this.strings.get(text);
+		if (sprite == null) {
+			sprite = this.bakeString(text);
+			this.strings.put(text, sprite);
+		}
+		return sprite;
+	}
+
+	/** copies every glyph in the text out of the {@link #atlas}, one row at a time. */
+	private Sprite bakeString(String text) {
+		int glyphWidth = GLYPH_WIDTH * this.scale;
+		int advance = this.getAdvance();
+		int width = Math.max(this.getWidth(text), 1);
+		int height = this.getHeight();
+		int[] atlas = this.atlas.pixels;
+		int atlasWidth = this.atlas.width;
+		int[] pixels = new int[width * height];
+		for (int index = 0, length = text.length(); index < length; index++) {
+			int glyph = getGlyphIndex(text.charAt(index));
+			for (int row = 0; row < height; row++) {
+				System.arraycopy(atlas, row * atlasWidth + glyph * glyphWidth, pixels, row * width + index * advance, glyphWidth);
+			}
+		}
+		return new Sprite(width, height, pixels);
+	}
+
+	/**
+	draws the text with its top left corner at (x, y),
+	with its alpha multiplied by opacity, which is in the [0, 255] range.
+	*/
+	public void draw(BufferedCanvas canvas, int x, int y, String text, int opacity) {
+		this.drawClipped(canvas, x, y, text, opacity, Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+	}
+
+	/**
+	same as {@link #draw}, but only the parts of the text which are
+	between (clipMinX, clipMinY) (inclusive) and (clipMaxX, clipMaxY) (exclusive) are drawn.
+	*/
+	public void drawClipped(BufferedCanvas canvas, int x, int y, String text, int opacity, int clipMinX, int clipMinY, int clipMaxX, int clipMaxY) {
+		if (text.isEmpty() || opacity <= 0) return;
+		if (USE_STRING_CACHE) {
+			canvas.drawSpriteClipped(x, y, this.getSprite(text), opacity, clipMinX, clipMinY, clipMaxX, clipMaxY);
+			return;
+		}
+		int glyphWidth = GLYPH_WIDTH * this.scale;
+		int advance = this.getAdvance();
+		int height = this.getHeight();
+		for (int index = 0, length = text.length(); index < length; index++) {
+			int glyphX = x + index * advance;
+			int minX = Math.max(glyphX, clipMinX);
+			int minY = Math.max(y, clipMinY);
+			int maxX = Math.min(glyphX + glyphWidth, clipMaxX);
+			int maxY = Math.min(y + height, clipMaxY);
+			if (maxX <= minX || maxY <= minY) continue;
+			int atlasX = getGlyphIndex(text.charAt(index)) * glyphWidth + minX - glyphX;
+			canvas.drawSpriteRegion(minX, minY, this.atlas, atlasX, minY - y, maxX - minX, maxY - minY, opacity);
+		}
+	}
+
+	/**
+	if the text oldText drawn at (oldX, y) looks any different from newText drawn at (newX, y),
+	stores the smallest box which covers every glyph that differs in bounds as {minX, minY, maxX, maxY},
+	where the maxes are exclusive, and returns true. otherwise, returns false, and bounds is not modified.
+	a glyph is the same if the other text has the same character at exactly the same position.
+	so for example, when a number goes from 1234 to 1235 and it doesn't move, only the last digit is covered.
+	*/
+	public boolean getChangedBounds(String oldText, int oldX, String newText, int newX, int y, int[] bounds) {
+		int advance = this.getAdvance();
+		int minX = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE;
+		for (int pass = 0; pass < 2; pass++) {
+			String text  = pass == 0 ? oldText : newText;
+			String other = pass == 0 ? newText : oldText;
+			int x        = pass == 0 ? oldX    : newX;
+			int otherX   = pass == 0 ? newX    : oldX;
+			for (int index = 0, length = text.length(); index < length; index++) {
+				int glyphX = x + index * advance;
+				int otherIndex = Math.floorDiv(glyphX - otherX, advance);
+				int glyph = getGlyphIndex(text.charAt(index));
+				if (
+					otherX + otherIndex * advance == glyphX &&
+					otherIndex >= 0 &&
+					otherIndex < other.length() &&
+					getGlyphIndex(other.charAt(otherIndex)) == glyph
+				) {
+					continue;
+				}
+				//spaces look the same as nothing at all.
+				if (glyph == 0) continue;
+				minX = Math.min(minX, glyphX);
+				maxX = Math.max(maxX, glyphX + GLYPH_WIDTH * this.scale);
+			}
+		}
+		if (maxX <= minX) return false;
+		bounds[0] = minX;
+		bounds[1] = y;
+		bounds[2] = maxX;
+		bounds[3] = y + this.getHeight();
+		return true;
+	}
+}
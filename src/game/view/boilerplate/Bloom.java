@@ -0,0 +1,429 @@
+package game.view.boilerplate;
+
+import java.util.stream.IntStream;
+
+import game.common.Util;
+
+/**
+adds a glow around the brightest parts of a {@link PixelBuffer},
+which in practice means plasma pulses and upgrade rings.
+
+bloom is usually done as 4 separate passes:
+a bright-pass which extracts everything bright enough to glow into a half resolution buffer,
+a horizontal blur, a vertical blur, and a composite which adds the blurred glow back onto the pixels.
+but each of those passes would sweep over a whole frame (or a quarter of one) on its own,
+so we fuse them into 2 {@link Sweep}'s instead:
+
+first, each thread takes a band of rows, and for each row, extracts the bright pixels
+into a scratch row, and immediately blurs that row horizontally into our half resolution buffer,
+while it's still in cache. this is the only part which needs to read the whole frame.
+rows which don't contain anything bright are skipped entirely.
+
+then, each thread takes a band of columns, and for each row, blurs its columns vertically,
+and adds the result straight onto the pixels, at full resolution.
+this only covers the area which is close enough to something bright to have any glow.
+
+the blur is a 13 tap binomial filter, which is very close to a gaussian.
+at half resolution, it spreads glow about {@link #RADIUS} * 2 pixels in every direction.
+
+glow can also be added to just part of the pixels (see {@link #apply(PixelBuffer, int, int, int, int)}),
+in which case only the pixels close enough to that part to glow onto it are read.
+the glow which is added is exactly the same as the glow which would've been added there
+if the whole frame had been done at once.
+
+@author Michael Johnston (tky886)
+*/
+public class Bloom {
+
+	/**
+	pixels whose brightest channel is at or below this (in the [0, 255] range) don't glow at all.
+	the background is mostly blue, and its blue channel is often above 200,
+	but only about 1 in 1000 of its pixels are above 240, and hardly any are above 248.
+	plasma pulses and the brightest parts of upgrades are 255.
+	values outside the [0, 254] range are clamped to it, since at 255 nothing could ever glow.
+	*/
+	public static int THRESHOLD = 248;
+	/** how bright the glow is compared to the pixels which caused it, in the [0, 256] range. values outside it are clamped. */
+	public static int STRENGTH = 224;
+	/** how many pixels the blur spreads glow in each direction, at half resolution. */
+	public static final int RADIUS = 6;
+	/** row 12 of pascal's triangle. */
+	private static final int[] WEIGHTS = { 1, 12, 66, 220, 495, 792, 924, 792, 495, 220, 66, 12, 1 };
+	/** 1 << WEIGHT_SHIFT == the sum of {@link #WEIGHTS}. */
+	private static final int WEIGHT_SHIFT = 12;
+	/** 1 << STRENGTH_SHIFT == the maximum {@link #STRENGTH}. */
+	private static final int STRENGTH_SHIFT = 8;
+	/**
+	the blurs work on colors which are {@link #widen widened} to a long, with each channel
+	in its own LANE_BITS bit lane. that's enough room for a channel multiplied by the sum of {@link #WEIGHTS},
+	so every tap of the blur only needs 1 multiply for all 3 channels, instead of 3.
+	*/
+	private static final int LANE_BITS = 21;
+	private static final long LANE_MASK = (1L << LANE_BITS) - 1L;
+	/** the lowest 8 bits of every lane. */
+	private static final long CHANNEL_MASK = widen(0x00FFFFFF);
+
+	/** the extracted glow, blurred horizontally. one {@link #widen widened} color per half resolution pixel, row by row. */
+	private long[] glow = new long[0];
+	/** true for rows of {@link #glow} which are completely black, and haven't been written to this frame. */
+	private boolean[] emptyRows = new boolean[0];
+	/** per-thread scratch space. re-used every frame. */
+	private final long[][] rowScratch = new long[BufferedCanvas.THREAD_COUNT][];
+	private final int[][] spanScratch = new int[BufferedCanvas.THREAD_COUNT][];
+	/** per-thread offsets and weights of the rows which the column blur's taps read from. */
+	private final int[][] tapOffsetScratch = new int[BufferedCanvas.THREAD_COUNT][(RADIUS << 1) + 1];
+	private final int[][] tapWeightScratch = new int[BufferedCanvas.THREAD_COUNT][(RADIUS << 1) + 1];
+	/** the bounds of the bright pixels in each band of rows, 4 ints per band. */
+	private final int[] bandBounds = new int[BufferedCanvas.THREAD_COUNT << 2];
+	/**
+	the area which the most recent call to {@link #apply} added glow to,
+	as (minX, minY, maxX, maxY), with min inclusive and max exclusive.
+	all 0's if it didn't add any.
+	*/
+	private final int[] bounds = new int[4];
+
+	/** how long each {@link Sweep} took in the most recent frame, and a moving average of that, in nanoseconds. */
+	private final long[] lastTimes = new long[Sweep.VALUES.length], averageTimes = new long[Sweep.VALUES.length];
+
+	/**
+	adds glow around the bright parts of the pixels, and {@link PixelBuffer#markDirty marks} what it changed.
+	returns true if anything was bright enough to glow.
+	must not be called while anything else is drawing on the pixels.
+	*/
+	public boolean apply(PixelBuffer pixels) {
+		return this.apply(pixels, 0, 0, Integer.MAX_VALUE, Integer.MAX_VALUE);
+	}
+
+	/**
+	same as {@link #apply(PixelBuffer)}, but only adds glow from (minX, minY) (inclusive) to (maxX, maxY) (exclusive),
+	rounded out to even coordinates. only the pixels in that area {@link #addReach grown by our reach} are read.
+	returns true if anything glowed onto the area.
+	*/
+	public boolean apply(PixelBuffer pixels, int minX, int minY, int maxX, int maxY) {
+		int[] bounds = this.bounds;
+		bounds[0] = bounds[1] = bounds[2] = bounds[3] = 0;
+		int width  = pixels.width .intValue();
+		int height = pixels.height.intValue();
+		int halfWidth  = (width  + 1) >> 1;
+		int halfHeight = (height + 1) >> 1;
+		//the half resolution pixels which glow is added to.
+		int areaMinX = Math.max(minX >> 1, 0);
+		int areaMinY = Math.max(minY >> 1, 0);
+		int areaMaxX = (Math.min(maxX, width ) + 1) >> 1;
+		int areaMaxY = (Math.min(maxY, height) + 1) >> 1;
+		if (areaMaxX <= areaMinX || areaMaxY <= areaMinY) {
+			this.skip();
+			return false;
+		}
+		//the half resolution pixels which can glow onto them.
+		int readMinX = Math.max(areaMinX - RADIUS, 0);
+		int readMinY = Math.max(areaMinY - RADIUS, 0);
+		int readMaxX = Math.min(areaMaxX + RADIUS, halfWidth);
+		int readMaxY = Math.min(areaMaxY + RADIUS, halfHeight);
+		if (this.glow.length < halfWidth * halfHeight) {
+			this.glow = new long[halfWidth * halfHeight];
+		}
+		if (this.emptyRows.length < halfHeight) {
+			this.emptyRows = new boolean[halfHeight];
+		}
+
+		long startTime = System.nanoTime();
+		int rowThreads = Math.min(BufferedCanvas.THREAD_COUNT, readMaxY - readMinY);
+		IntStream.range(0, rowThreads).parallel().forEach(thread -> {
+			this.extractAndBlurRows(
+				pixels,
+				width,
+				height,
+				halfWidth,
+				readMinX,
+				readMaxX,
+				areaMinX,
+				areaMaxX,
+				readMinY + (readMaxY - readMinY) * thread / rowThreads,
+				readMinY + (readMaxY - readMinY) * (thread + 1) / rowThreads,
+				thread
+			);
+		});
+		int brightMinX = Integer.MAX_VALUE, brightMinY = Integer.MAX_VALUE, brightMaxX = Integer.MIN_VALUE, brightMaxY = Integer.MIN_VALUE;
+		int[] bandBounds = this.bandBounds;
+		for (int band = 0; band < rowThreads << 2; band += 4) {
+			brightMinX = Math.min(brightMinX, bandBounds[band    ]);
+			brightMinY = Math.min(brightMinY, bandBounds[band | 1]);
+			brightMaxX = Math.max(brightMaxX, bandBounds[band | 2]);
+			brightMaxY = Math.max(brightMaxY, bandBounds[band | 3]);
+		}
+		long midTime = System.nanoTime();
+		this.recordTime(Sweep.EXTRACT_AND_BLUR_ROWS, midTime - startTime);
+		if (brightMaxX < brightMinX) {
+			this.recordTime(Sweep.BLUR_COLUMNS_AND_COMPOSITE, 0L);
+			return false;
+		}
+
+		//glow spreads RADIUS half resolution pixels away from the bright ones.
+		int glowMinX = Math.max(brightMinX - RADIUS, areaMinX);
+		int glowMinY = Math.max(brightMinY - RADIUS, areaMinY);
+		int glowMaxX = Math.min(brightMaxX + RADIUS + 1, areaMaxX);
+		int glowMaxY = Math.min(brightMaxY + RADIUS + 1, areaMaxY);
+		if (glowMaxX <= glowMinX || glowMaxY <= glowMinY) {
+			this.recordTime(Sweep.BLUR_COLUMNS_AND_COMPOSITE, 0L);
+			return false;
+		}
+		int columnThreads = Math.min(BufferedCanvas.THREAD_COUNT, glowMaxX - glowMinX);
+		IntStream.range(0, columnThreads).parallel().forEach(thread -> {
+			this.blurColumnsAndComposite(
+				pixels,
+				width,
+				height,
+				halfWidth,
+				halfHeight,
+				glowMinX + (glowMaxX - glowMinX) * thread / columnThreads,
+				glowMinX + (glowMaxX - glowMinX) * (thread + 1) / columnThreads,
+				glowMinY,
+				glowMaxY,
+				thread
+			);
+		});
+		bounds[0] = glowMinX << 1;
+		bounds[1] = glowMinY << 1;
+		bounds[2] = Math.min(glowMaxX << 1, width);
+		bounds[3] = Math.min(glowMaxY << 1, height);
+		pixels.markDirty(bounds[0], bounds[1], bounds[2], bounds[3]);
+		this.recordTime(Sweep.BLUR_COLUMNS_AND_COMPOSITE, System.nanoTime() - midTime);
+		return true;
+	}
+
+	/**
+	called when we are turned off for a frame, so that our bounds and
+	timings don't keep reporting whatever the last frame we were on did.
+	*/
+	public void skip() {
+		int[] bounds = this.bounds;
+		bounds[0] = bounds[1] = bounds[2] = bounds[3] = 0;
+		this.recordTime(Sweep.EXTRACT_AND_BLUR_ROWS, 0L);
+		this.recordTime(Sweep.BLUR_COLUMNS_AND_COMPOSITE, 0L);
+	}
+
+	/**
+	the first {@link Sweep}, for half resolution rows from minY (inclusive) to maxY (exclusive).
+	pixels are extracted from readMinX (inclusive) to readMaxX (exclusive),
+	and blurred from areaMinX (inclusive) to areaMaxX (exclusive).
+	*/
+	private void extractAndBlurRows(PixelBuffer pixels, int width, int height, int halfWidth, int readMinX, int readMaxX, int areaMinX, int areaMaxX, int minY, int maxY, int thread) {
+		long[] row = this.rowScratch[thread];
+		if (row == null || row.length < halfWidth + (RADIUS << 1)) {
+			row = this.rowScratch[thread] = new long[halfWidth + (RADIUS << 1)];
+		}
+		long[] glow = this.glow;
+		int threshold = Util.clamp(THRESHOLD, 0, 254);
+		int brightMinX = Integer.MAX_VALUE, brightMinY = Integer.MAX_VALUE, brightMaxX = Integer.MIN_VALUE, brightMaxY = Integer.MIN_VALUE;
+		for (int y = minY; y < maxY; y++) {
+			int fullY0 = y << 1;
+			int fullY1 = Math.min(fullY0 + 1, height - 1);
+			byte[] source = pixels.getRowMajorPixels(readMinX << 1, fullY0, Math.min(readMaxX << 1, width) - (readMinX << 1), fullY1 - fullY0 + 1);
+			int topRow    = pixels.rowMajorOffset(0, fullY0);
+			int bottomRow = pixels.rowMajorOffset(0, fullY1);
+			int rowMinX = Integer.MAX_VALUE, rowMaxX = Integer.MIN_VALUE;
+			//bright-pass. row[RADIUS + x] holds half resolution pixel x.
+			for (int x = readMinX; x < readMaxX; x++) {
+				int left  = x << (1 + PixelBuffer.BYTES_PER_PIXEL_SHIFT);
+				int right = Math.min((x << 1) + 1, width - 1) << PixelBuffer.BYTES_PER_PIXEL_SHIFT;
+				int topLeft     = PixelBuffer.getPackedARGB(source, topRow    + left );
+				int topRight    = PixelBuffer.getPackedARGB(source, topRow    + right);
+				int bottomLeft  = PixelBuffer.getPackedARGB(source, bottomRow + left );
+				int bottomRight = PixelBuffer.getPackedARGB(source, bottomRow + right);
+				//4 channels of 8 bits add up to at most 10 bits, so red and blue can share an int.
+				int redBlue = (topLeft & 0x00FF00FF) + (topRight & 0x00FF00FF) + (bottomLeft & 0x00FF00FF) + (bottomRight & 0x00FF00FF);
+				int green   = (topLeft & 0x0000FF00) + (topRight & 0x0000FF00) + (bottomLeft & 0x0000FF00) + (bottomRight & 0x0000FF00);
+				int brightest = Math.max(Math.max(redBlue >>> 18, green >>> 10), (redBlue & 0x3FF) >>> 2);
+				if (brightest <= threshold) {
+					row[RADIUS + x] = 0L;
+					continue;
+				}
+				int average = ((redBlue >>> 2) & 0x00FF00FF) | ((green >>> 2) & 0x0000FF00);
+				row[RADIUS + x] = widen(PixelBuffer.multiplyARGB(average, (brightest - threshold) * 255 / (255 - threshold)));
+				if (rowMinX == Integer.MAX_VALUE) rowMinX = x;
+				rowMaxX = x;
+			}
+			if (rowMaxX < rowMinX) {
+				this.emptyRows[y] = true;
+				continue;
+			}
+			this.emptyRows[y] = false;
+			brightMinX = Math.min(brightMinX, rowMinX);
+			brightMaxX = Math.max(brightMaxX, rowMaxX);
+			if (brightMinY == Integer.MAX_VALUE) brightMinY = y;
+			brightMaxY = y;
+			//clamp to the edges of the row. the blur never reads past the edges of what we read otherwise.
+			for (int x = 0; x < RADIUS; x++) {
+				if (readMinX == 0) row[x] = row[RADIUS];
+				if (readMaxX == halfWidth) row[RADIUS + halfWidth + x] = row[RADIUS + halfWidth - 1];
+			}
+			//horizontal blur. everything further than RADIUS from a bright pixel is black.
+			int rowOffset = y * halfWidth;
+			int blurMinX = Math.max(rowMinX - RADIUS, areaMinX);
+			int blurMaxX = Math.min(rowMaxX + RADIUS + 1, areaMaxX);
+			for (int x = areaMinX, end = Math.min(blurMinX, areaMaxX); x < end; x++) {
+				glow[rowOffset + x] = 0L;
+			}
+			//same as the vertical blur, every tap adds a whole row at once, straight into the glow.
+			long round = widen(0x00808080) << (WEIGHT_SHIFT - 8);
+			for (int x = blurMinX; x < blurMaxX; x++) {
+				glow[rowOffset + x] = round;
+			}
+			for (int tap = 0; tap <= RADIUS << 1; tap++) {
+				long weight = WEIGHTS[tap];
+				int offset = tap - rowOffset;
+				for (int x = rowOffset + blurMinX, end = rowOffset + blurMaxX; x < end; x++) {
+					glow[x] += row[x + offset] * weight;
+				}
+			}
+			for (int x = blurMinX; x < blurMaxX; x++) {
+				glow[rowOffset + x] = (glow[rowOffset + x] >>> WEIGHT_SHIFT) & CHANNEL_MASK;
+			}
+			for (int x = Math.max(blurMaxX, areaMinX); x < areaMaxX; x++) {
+				glow[rowOffset + x] = 0L;
+			}
+		}
+		int band = thread << 2;
+		this.bandBounds[band    ] = brightMinX;
+		this.bandBounds[band | 1] = brightMinY;
+		this.bandBounds[band | 2] = brightMaxX;
+		this.bandBounds[band | 3] = brightMaxY;
+	}
+
+	/**
+	the second {@link Sweep}, for half resolution columns from minX (inclusive) to maxX (exclusive),
+	and rows from minY (inclusive) to maxY (exclusive).
+	*/
+	private void blurColumnsAndComposite(PixelBuffer pixels, int width, int height, int halfWidth, int halfHeight, int minX, int maxX, int minY, int maxY, int thread) {
+		int[] span = this.spanScratch[thread];
+		if (span == null || span.length < (maxX - minX) << 1) {
+			span = this.spanScratch[thread] = new int[(maxX - minX) << 1];
+		}
+		//the sums are kept in a row, and every tap adds a whole row to them at once,
+		//so that we read each row of the glow in order, instead of jumping between 13 rows for every pixel.
+		long[] sums = this.rowScratch[thread];
+		if (sums == null || sums.length < maxX - minX) {
+			sums = this.rowScratch[thread] = new long[maxX - minX];
+		}
+		int columns = maxX - minX;
+		long[] glow = this.glow;
+		boolean[] emptyRows = this.emptyRows;
+		int strength = Util.clamp(STRENGTH, 0, 1 << STRENGTH_SHIFT);
+		int shift = WEIGHT_SHIFT + STRENGTH_SHIFT;
+		int round = 1 << (shift - 1);
+		int fullMinX = minX << 1;
+		int fullLength = Math.min(maxX << 1, width) - fullMinX;
+		//the offsets and weights of the rows which the current row's taps read from. empty rows are left out.
+		int[] tapOffsets = this.tapOffsetScratch[thread];
+		int[] tapWeights = this.tapWeightScratch[thread];
+		for (int y = minY; y < maxY; y++) {
+			int taps = 0;
+			for (int tap = 0; tap <= RADIUS << 1; tap++) {
+				int tapY = Math.min(Math.max(y + tap - RADIUS, 0), halfHeight - 1);
+				if (emptyRows[tapY]) continue;
+				tapOffsets[taps] = tapY * halfWidth;
+				tapWeights[taps] = WEIGHTS[tap];
+				taps++;
+			}
+			if (taps == 0) continue;
+			int offset = tapOffsets[0] + minX;
+			long weight = tapWeights[0];
+			for (int x = 0; x < columns; x++) {
+				sums[x] = glow[offset + x] * weight;
+			}
+			for (int tap = 1; tap < taps; tap++) {
+				offset = tapOffsets[tap] + minX;
+				weight = tapWeights[tap];
+				for (int x = 0; x < columns; x++) {
+					sums[x] += glow[offset + x] * weight;
+				}
+			}
+			boolean any = false;
+			for (int x = 0; x < columns; x++) {
+				long sum = sums[x];
+				//sum has at most 20 bits per channel, and the strength adds 8 more, which doesn't fit in a lane anymore.
+				int color = (
+					((((int)(sum >>> (LANE_BITS << 1))             ) * strength + round) >>> shift) << 16 |
+					((((int)(sum >>>  LANE_BITS       ) & (int)(LANE_MASK)) * strength + round) >>> shift) <<  8 |
+					((((int)(sum                      ) & (int)(LANE_MASK)) * strength + round) >>> shift)
+				);
+				any |= color != 0;
+				int index = x << 1;
+				span[index] = span[index + 1] = color;
+			}
+			if (!any) continue;
+			int fullY = y << 1;
+			pixels.addSpan(fullMinX, fullY, span, 0, fullLength);
+			if (fullY + 1 < height) {
+				pixels.addSpan(fullMinX, fullY + 1, span, 0, fullLength);
+			}
+		}
+	}
+
+	/**
+	grows the bounds (minX, minY, maxX, maxY), with min inclusive and max exclusive,
+	to cover every pixel which glow from the pixels inside them could reach.
+	that's also every pixel which {@link #apply(PixelBuffer, int, int, int, int)} reads to add glow inside them.
+	*/
+	public static void addReach(int[] bounds) {
+		bounds[0] = ( bounds[0]      & -2) - (RADIUS << 1);
+		bounds[1] = ( bounds[1]      & -2) - (RADIUS << 1);
+		bounds[2] = ((bounds[2] + 1) & -2) + (RADIUS << 1);
+		bounds[3] = ((bounds[3] + 1) & -2) + (RADIUS << 1);
+	}
+
+	/** spreads the red, green, and blue channels of a packed color out into their own {@link #LANE_BITS} bit lanes. */
+	private static long widen(int rgb) {
+		return (
+			(((long)((rgb >>> 16) & 255)) << (LANE_BITS << 1)) |
+			(((long)((rgb >>>  8) & 255)) <<  LANE_BITS      ) |
+			(((long)((rgb       ) & 255))                    )
+		);
+	}
+
+	private void recordTime(Sweep sweep, long time) {
+		int index = sweep.ordinal();
+		this.lastTimes[index] = time;
+		this.averageTimes[index] += (time - this.averageTimes[index]) >> 3;
+	}
+
+	/**
+	copies the area which the most recent call to {@link #apply} added glow to into bounds,
+	as (minX, minY, maxX, maxY), with min inclusive and max exclusive.
+	all 0's if it didn't add any.
+	*/
+	public void getBounds(int[] bounds) {
+		System.arraycopy(this.bounds, 0, bounds, 0, 4);
+	}
+
+	/** returns how long the sweep took in the most recent frame, in nanoseconds. */
+	public long getLastTime(Sweep sweep) {
+		return this.lastTimes[sweep.ordinal()];
+	}
+
+	/** returns a moving average of how long the sweep takes, in nanoseconds. */
+	public long getAverageTime(Sweep sweep) {
+		return this.averageTimes[sweep.ordinal()];
+	}
+
+	/** one line summary of how long each sweep takes, for debugging. */
+	public String getDebugLine() {
+		StringBuilder builder = new StringBuilder("bloom:");
+		for (Sweep sweep : Sweep.VALUES) {
+			builder.append(' ').append(sweep).append(String.format(" %.3f ms", this.getAverageTime(sweep) * 1.0E-6D));
+		}
+		return builder.toString();
+	}
+
+	/** the passes which {@link #apply} does, grouped by which ones share a sweep over the pixels. */
+	public static enum Sweep {
+
+		/** bright-pass into half resolution, then horizontal blur. parallel by rows. reads the whole frame. */
+		EXTRACT_AND_BLUR_ROWS,
+		/** vertical blur, then composite. parallel by columns. only covers the area around bright pixels. */
+		BLUR_COLUMNS_AND_COMPOSITE;
+
+		public static final Sweep[] VALUES = values();
+	}
+}
@@ -1,13 +1,14 @@
 package game.view.boilerplate;
 
+import java.util.Arrays;
 import java.util.stream.IntStream;
 
 import game.common.Util;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.SimpleDoubleProperty;
-import javafx.scene.canvas.Canvas;
+import javafx.beans.value.ChangeListener;
+import javafx.scene.Node;
 import javafx.scene.image.Image;
-import javafx.scene.image.PixelFormat;
 
 /**
 basically, when you call Canvas.getGraphicsContext2D().getPixelWriter().setArgb(),
@@ -17,6 +18,7 @@ processing this queue is very slow for single-pixel requests.
 it's faster for bulk operations.
 so, this class acts as an intermediate buffer to store pixels directly,
 and flush them once per frame.
+how they get flushed is up to our {@link #presenter}.
 
 @author Michael Johnston (tky886)
 */
@@ -24,6 +26,8 @@ public class BufferedCanvas {
 
 	/** the number of threads used for shaders. */
 	public static final int THREAD_COUNT;
+	/** the largest shading rate runShader() methods support. see {@link CoarseShading}. */
+	public static final int MAX_SHADING_RATE = 8;
 	/**
 	in {@link #runShaderEllipse}, we want to ensure that
 	every thread is doing the same amount of work.
@@ -87,73 +91,270 @@ public class BufferedCanvas {
 		slices[THREAD_COUNT] = 1.0D;
 		CIRCLE_SLICE_POSITIONS = slices;
 	}
+	/**
+	arrays and {@link CoarseShading}'s which are re-used by every runShader() call on the same thread,
+	so that they don't need to be allocated again for every call.
+	every thread gets its own, since different canvases can be drawn on different threads at the same time.
+	*/
+	private static final ThreadLocal<ShaderScratch> SCRATCH = ThreadLocal.withInitial(ShaderScratch::new);
 
 	public final DoubleProperty width, height;
-	public final Canvas canvas;
-	public final PixelBuffer pixels;
+	public final FramePresenter presenter;
+	/** the node to add to the scene graph. shortcut for {@link #presenter}.{@link FramePresenter#getNode getNode()}. */
+	public final Node node;
+	/**
+	the buffer currently being drawn on.
+	normally this never changes, but a {@link RenderThread}
+	will swap it out for a different buffer every frame.
+	*/
+	public PixelBuffer pixels;
+	/**
+	number of pixels per logical unit.
+	{@link #runShaderCircle}, {@link #runShaderEllipse}, and the
+	drawSpriteCentered() methods take logical coordinates, which are multiplied by this.
+	everything else takes pixel coordinates.
+	this is 1 unless whoever owns us is rendering at a different resolution than the one being displayed.
+	*/
+	public double scale = 1.0D;
+	/**
+	upper limit for the shading rate which runShader() methods will use,
+	regardless of what rate they are asked for. 1 means every pixel is always shaded.
+	must be a power of 2, no larger than {@link #MAX_SHADING_RATE}.
+	@see CoarseShading
+	*/
+	public int maxShadingRate = MAX_SHADING_RATE;
+
+	/** how long the most recent {@link #flush} took, in nanoseconds. */
+	private long lastFlushTime;
+	/** exponential moving average of {@link #lastFlushTime}, weighted 1/16 towards the newest value. */
+	private long averageFlushTime;
 
 	public BufferedCanvas() {
 		this(0.0D, 0.0D);
 	}
 
 	public BufferedCanvas(double width, double height) {
+		this(width, height, FramePresenter.DEFAULT_MODE);
+	}
+
+	public BufferedCanvas(double width, double height, FramePresenter.Mode presentationMode) {
 		this.width  = new SimpleDoubleProperty(this, "width", width);
 		this.height = new SimpleDoubleProperty(this, "height", height);
 
-		this.canvas = new Canvas(width, height);
-		this.pixels = new PixelBuffer(width, height);
+		this.presenter = FramePresenter.create(presentationMode, width, height);
+		this.node      = this.presenter.getNode();
+		this.pixels    = new PixelBuffer(width, height);
 
-		this.canvas. widthProperty().bind(this.width);
-		this.canvas.heightProperty().bind(this.height);
+		ChangeListener<Number> onResize = (observable, oldValue, newValue) -> this.presenter.resize(this.width.doubleValue(), this.height.doubleValue());
+		this.width .addListener(onResize);
+		this.height.addListener(onResize);
 		this.pixels.width .bind(this.width);
 		this.pixels.height.bind(this.height);
+	}
 
-		PixelFormat<?> format = this.canvas.getGraphicsContext2D().getPixelWriter().getPixelFormat();
-		if (format != PixelBuffer.FORMAT) {
-			System.err.println("Canvas has an unexpected pixel format: " + format + ". Framerate may decrease as a result.");
+	/** copies the contents of our pixel buffer to the screen via our {@link #presenter}. */
+	public void flush() {
+		this.flush(this.pixels);
+	}
+
+	/**
+	copies the contents of the provided pixel buffer to the screen via our {@link #presenter}.
+	the buffer does not need to be the same size as we are.
+	if our presenter {@link FramePresenter#supportsScaling supports scaling},
+	the buffer is stretched to fit us. otherwise, the overlapping area is copied as-is.
+	only the buffer's {@link PixelBuffer#dirty dirty} region is copied,
+	and afterwards, the buffer is marked as clean,
+	and {@link PixelBuffer#compact compacted} if it has more memory than it needs.
+	*/
+	public void flush(PixelBuffer pixels) {
+		long startTime = System.nanoTime();
+		int width  = pixels.width .intValue();
+		int height = pixels.height.intValue();
+		DirtyRegion dirty = pixels.dirty;
+		if (width > 0 && height > 0) {
+			if (dirty.isFull()) {
+				this.presenter.present(pixels, 0, 0, width, height);
+			}
+			else {
+				for (int index = 0, count = dirty.getCount(); index < count; index++) {
+					int minX = dirty.getMinX(index), minY = dirty.getMinY(index);
+					this.presenter.present(pixels, minX, minY, dirty.getMaxX(index) - minX, dirty.getMaxY(index) - minY);
+				}
+			}
+			dirty.clear();
+			pixels.compact();
 		}
+		long time = this.lastFlushTime = System.nanoTime() - startTime;
+		this.averageFlushTime += (time - this.averageFlushTime) >> 4;
 	}
 
-	/** copies the contents of our pixel buffer to our wrapped canvas. */
-	public void flush() {
-		this.canvas.getGraphicsContext2D().getPixelWriter().setPixels(
-			0,
-			0,
-			this.width.intValue(),
-			this.height.intValue(),
-			PixelBuffer.FORMAT,
-			this.pixels.getBackingArray(),
-			0,
-			this.pixels.getScanlineStride()
-		);
+	/** returns how long the most recent {@link #flush} took, in nanoseconds. */
+	public long getLastFlushTime() {
+		return this.lastFlushTime;
+	}
+
+	/**
+	returns a moving average of how long {@link #flush} takes, in nanoseconds.
+	useful for comparing {@link FramePresenter.Mode}'s against each other.
+	*/
+	public long getAverageFlushTime() {
+		return this.averageFlushTime;
 	}
 
 	/**
 	draws the provided image at the provided coordinates, using standard alpha blending.
+	the image is decoded into a {@link Sprite} the first time it is drawn.
 	if a different blend mode is desired, consider using a {@link Shader} instead.
 	see the documentation on {@link Shader} for more information on how shaders work.
 	*/
 	public void drawImage(int x, int y, Image image) {
-		this.drawImage(x, y, 0, 0, (int)(image.getWidth()), (int)(image.getHeight()), image);
+		this.drawSprite(x, y, Sprite.of(image));
 	}
 
 	/**
 	draws the provided region of the image at the provided coordinates, using standard alpha blending.
+	the image is decoded into a {@link Sprite} the first time it is drawn.
 	if a different blend mode is desired, consider using a {@link Shader} instead.
 	see the documentation on {@link Shader} for more information on how shaders work.
 	*/
 	public void drawImage(int x, int y, int imageStartX, int imageStartY, int imageWidth, int imageHeight, Image image) {
-		TranslatedSampler sampler = new TranslatedSampler(image, imageStartX, imageStartY, x, y);
-		this.runShaderSquare(x, y, x + imageWidth, y + imageHeight, context -> {
-			int color = sampler.getArgb(context.x, context.y);
-				context.buffer.blendRGB(
-				context.baseOffset,
-				(color >>> 16) & 255,
-				(color >>>  8) & 255,
-				(color       ) & 255,
-				(color >>> 24)
-			);
-		});
+		this.drawSpriteRegion(x, y, Sprite.of(image), imageStartX, imageStartY, imageWidth, imageHeight, 255);
+	}
+
+	/** draws the sprite with its top left corner at the provided coordinates. */
+	public void drawSprite(int x, int y, Sprite sprite) {
+		this.drawSpriteRegion(x, y, sprite, 0, 0, sprite.width, sprite.height, 255);
+	}
+
+	/**
+	draws the sprite with its top left corner at the provided coordinates,
+	with its alpha multiplied by opacity, which is in the [0, 255] range.
+	*/
+	public void drawSprite(int x, int y, Sprite sprite, int opacity) {
+		this.drawSpriteRegion(x, y, sprite, 0, 0, sprite.width, sprite.height, opacity);
+	}
+
+	/**
+	draws the provided region of the sprite with its top left corner at the provided coordinates,
+	with its alpha multiplied by opacity, which is in the [0, 255] range.
+	only the sprite's {@link Sprite#spanStarts spans} are visited.
+	opaque spans are copied as-is when opacity is 255, and everything else is blended.
+
+	sprites are small, so unlike shaders, this is not split across multiple threads.
+	the overhead of starting a parallel stream is larger than the work itself.
+	*/
+	public void drawSpriteRegion(int x, int y, Sprite sprite, int spriteX, int spriteY, int width, int height, int opacity) {
+		if (opacity <= 0) return;
+		PixelBuffer pixels = this.pixels;
+		//translation from sprite coordinates to pixel coordinates.
+		int offsetX = x - spriteX;
+		int offsetY = y - spriteY;
+		int minX = Math.max(Math.max(spriteX, sprite.minX), -offsetX);
+		int minY = Math.max(Math.max(spriteY, sprite.minY), -offsetY);
+		int maxX = Math.min(Math.min(spriteX + width,  sprite.maxX), pixels.width .intValue() - offsetX);
+		int maxY = Math.min(Math.min(spriteY + height, sprite.maxY), pixels.height.intValue() - offsetY);
+		if (maxX <= minX || maxY <= minY) return;
+		pixels.markDirty(minX + offsetX, minY + offsetY, maxX + offsetX, maxY + offsetY);
+		int[] colors = sprite.pixels;
+		for (int row = minY; row < maxY; row++) {
+			int rowIndex = row * sprite.width;
+			for (int span = sprite.rowSpans[row], end = sprite.rowSpans[row + 1]; span < end; span++) {
+				int spanMinX = Math.max(sprite.spanStarts[span], minX);
+				int spanMaxX = Math.min(sprite.spanEnds  [span], maxX);
+				if (spanMaxX <= spanMinX) continue;
+				if (sprite.spanOpaque[span] && opacity >= 255) {
+					pixels.copySpan(
+						spanMinX + offsetX,
+						row + offsetY,
+						sprite.bgra,
+						(rowIndex + spanMinX) << PixelBuffer.BYTES_PER_PIXEL_SHIFT,
+						spanMaxX - spanMinX
+					);
+				}
+				else {
+					pixels.blendSpan(spanMinX + offsetX, row + offsetY, colors, rowIndex + spanMinX, spanMaxX - spanMinX, opacity);
+				}
+			}
+		}
+	}
+
+	/**
+	draws the sprite with its top left corner at the provided coordinates,
+	with its alpha multiplied by opacity, which is in the [0, 255] range,
+	but only the parts of it which are between (clipMinX, clipMinY) (inclusive) and (clipMaxX, clipMaxY) (exclusive).
+	used to re-draw part of something which was drawn before, without touching anything outside that part.
+	*/
+	public void drawSpriteClipped(int x, int y, Sprite sprite, int opacity, int clipMinX, int clipMinY, int clipMaxX, int clipMaxY) {
+		int minX = Math.max(clipMinX, x);
+		int minY = Math.max(clipMinY, y);
+		int maxX = Math.min(clipMaxX, x + sprite.width);
+		int maxY = Math.min(clipMaxY, y + sprite.height);
+		if (maxX <= minX || maxY <= minY) return;
+		this.drawSpriteRegion(minX, minY, sprite, minX - x, minY - y, maxX - minX, maxY - minY, opacity);
+	}
+
+	/**
+	draws the sprite centered on the provided logical coordinates.
+	if our {@link #scale} is not 1, a {@link Sprite#scaled scaled} copy of the sprite is drawn instead.
+	*/
+	public void drawSpriteCentered(double centerX, double centerY, Sprite sprite) {
+		sprite = sprite.scaled(this.scale);
+		this.drawSprite(
+			Util.floor(centerX * this.scale - sprite.width  * 0.5D),
+			Util.floor(centerY * this.scale - sprite.height * 0.5D),
+			sprite
+		);
+	}
+
+	/**
+	draws a mix of 2 sprites centered on the provided logical coordinates.
+	@see #drawSpriteCrossfade
+	@see #drawSpriteCentered
+	*/
+	public void drawSpriteCrossfadeCentered(double centerX, double centerY, Sprite from, Sprite to, int amount) {
+		from = from.scaled(this.scale);
+		to   = to  .scaled(this.scale);
+		this.drawSpriteCrossfade(
+			Util.floor(centerX * this.scale - from.width  * 0.5D),
+			Util.floor(centerY * this.scale - from.height * 0.5D),
+			from,
+			to,
+			amount
+		);
+	}
+
+	/**
+	draws a mix of 2 sprites with their top left corners at the provided coordinates.
+	an amount of 0 draws only from, and an amount of 255 draws only to.
+	both sprites must be the same size.
+	*/
+	public void drawSpriteCrossfade(int x, int y, Sprite from, Sprite to, int amount) {
+		if (amount <= 0) {
+			this.drawSprite(x, y, from);
+			return;
+		}
+		if (amount >= 255) {
+			this.drawSprite(x, y, to);
+			return;
+		}
+		if (from.width != to.width || from.height != to.height) {
+			throw new IllegalArgumentException("Sprites must be the same size: " + from.width + 'x' + from.height + " and " + to.width + 'x' + to.height);
+		}
+		PixelBuffer pixels = this.pixels;
+		int minX = Math.max(Math.min(from.minX, to.minX), -x);
+		int minY = Math.max(Math.min(from.minY, to.minY), -y);
+		int maxX = Math.min(Math.max(from.maxX, to.maxX), pixels.width .intValue() - x);
+		int maxY = Math.min(Math.max(from.maxY, to.maxY), pixels.height.intValue() - y);
+		pixels.markDirty(minX + x, minY + y, maxX + x, maxY + y);
+		int[] fromColors = from.pixels, toColors = to.pixels;
+		for (int row = minY; row < maxY; row++) {
+			int index = row * from.width + minX;
+			int baseOffset = pixels.baseOffset(minX + x, row + y);
+			for (int column = minX; column < maxX; column++, index++) {
+				pixels.blendPremultipliedARGB(baseOffset, Sprite.mix(fromColors[index], toColors[index], amount));
+				baseOffset = pixels.advance(baseOffset, column + x + 1);
+			}
+		}
 	}
 
 	/**
@@ -161,12 +362,43 @@ public class BufferedCanvas {
 	see the documentation on {@link Shader} for more information on how shaders work.
 	*/
 	public void runShaderSquare(int minX, int minY, int maxX, int maxY, Shader shader) {
+		this.runShaderSquare(minX, minY, maxX, maxY, 1, shader);
+	}
+
+	/**
+	runs the shader in a square area, once per (rate) by (rate) block of pixels where possible.
+	see {@link CoarseShading} for more information on shading rates.
+	*/
+	public void runShaderSquare(int minX, int minY, int maxX, int maxY, int rate, Shader shader) {
 		minX = Math.max(minX, 0);
 		minY = Math.max(minY, 0);
-		maxX = Math.min(maxX, this.width.intValue());
-		maxY = Math.min(maxY, this.height.intValue());
+		maxX = Math.min(maxX, this.pixels.width.intValue());
+		maxY = Math.min(maxY, this.pixels.height.intValue());
 		if (maxX > minX && maxY > minY) {
-			this.runShaderSquareUnchecked(minX, minY, maxX, maxY, shader);
+			this.pixels.markDirty(minX, minY, maxX, maxY);
+			rate = this.getShadingRate(rate);
+			if (rate == 1) {
+				this.runShaderSquareUnchecked(minX, minY, maxX, maxY, shader);
+			}
+			else {
+				int squareMinX = minX, squareMaxX = maxX;
+				int threads = Math.min(THREAD_COUNT, maxY - minY);
+				ShaderScratch scratch = SCRATCH.get().single(minY, maxY, minX, maxX, rate);
+				for (int thread = 0; thread <= threads; thread++) {
+					scratch.bands[thread] = minY + (maxY - minY) * thread / threads;
+				}
+				this.runShaderSpans(
+					scratch,
+					1,
+					(instance, y, span) -> {
+						span[0] = squareMinX;
+						span[1] = squareMaxX;
+					},
+					rate,
+					threads,
+					shader
+				);
+			}
 		}
 	}
 
@@ -176,7 +408,7 @@ public class BufferedCanvas {
 		IntStream.range(0, threads).parallel().forEach(thread -> {
 			int threadMinY = minY + (maxY - minY) * thread / threads;
 			int threadMaxY = minY + (maxY - minY) * (thread + 1) / threads;
-			Shader.Context context = new Shader.Context(this.pixels);
+			Shader.Context context = new Shader.Context(this.pixels, this.scale);
 			for (int y = threadMinY; y < threadMaxY; y++) {
 				for (context.startRow(minX, y); context.x < maxX; context.moveRight()) {
 					shader.run(context);
@@ -187,28 +419,80 @@ public class BufferedCanvas {
 
 	/**
 	runs the shader in a circular area.
+	the center and radius are in logical coordinates.
 	see the documentation on {@link Shader} for more information on how shaders work.
 	*/
 	public void runShaderCircle(double centerX, double centerY, double radius, Shader shader) {
-		this.runShaderEllipse(centerX, centerY, radius, radius, shader);
+		this.runShaderEllipse(centerX, centerY, radius, radius, 1, shader);
+	}
+
+	/**
+	runs the shader in a circular area, once per (rate) by (rate) block of pixels where possible.
+	see {@link CoarseShading} for more information on shading rates.
+	*/
+	public void runShaderCircle(double centerX, double centerY, double radius, int rate, Shader shader) {
+		this.runShaderEllipse(centerX, centerY, radius, radius, rate, shader);
 	}
 
 	/**
 	runs the shader in an elliptical area.
+	the center and radii are in logical coordinates.
 	see the documentation on {@link Shader} for more information on how shaders work.
 	*/
 	public void runShaderEllipse(double centerX, double centerY, double radiusX, double radiusY, Shader shader) {
+		this.runShaderEllipse(centerX, centerY, radiusX, radiusY, 1, shader);
+	}
+
+	/**
+	runs the shader in an elliptical area, once per (rate) by (rate) block of pixels where possible.
+	see {@link CoarseShading} for more information on shading rates.
+	*/
+	public void runShaderEllipse(double centerX, double centerY, double radiusX, double radiusY, int rate, Shader shader) {
+		double scale = this.scale;
+		this.runShaderEllipseScaled(centerX * scale, centerY * scale, radiusX * scale, radiusY * scale, scale, this.getShadingRate(rate), shader);
+	}
+
+	/** same as {@link #runShaderEllipse}, but everything has already been multiplied by scale. */
+	private void runShaderEllipseScaled(double centerX, double centerY, double radiusX, double radiusY, double scale, int rate, Shader shader) {
 		int minY = Math.max(Util.ceil(centerY - radiusY), 0);
-		int maxY = Math.min(Util.floor(centerY + radiusY) + 1, this.height.intValue());
+		int maxY = Math.min(Util.floor(centerY + radiusY) + 1, this.pixels.height.intValue());
 		if (maxY > minY) {
+			PixelBuffer pixels = this.pixels;
+			int width = pixels.width.intValue();
+			pixels.markDirty(Util.floor(centerX - radiusX), minY, Util.ceil(centerX + radiusX) + 1, maxY);
+			if (rate > 1) {
+				ShaderScratch scratch = SCRATCH.get().single(
+					minY,
+					maxY,
+					Math.max(Util.floor(centerX - radiusX), 0),
+					Math.min(Util.ceil(centerX + radiusX), width),
+					rate
+				);
+				for (int thread = 0; thread <= THREAD_COUNT; thread++) {
+					scratch.bands[thread] = Util.round(minY + (maxY - minY) * CIRCLE_SLICE_POSITIONS[thread]);
+				}
+				this.runShaderSpans(
+					scratch,
+					1,
+					(instance, y, span) -> {
+						double rowRadius = Math.sqrt(1.0D - Util.square((y - centerY) / radiusY)) * radiusX;
+						span[0] = Math.max(Util.ceil(centerX - rowRadius), 0);
+						span[1] = Math.min(Util.floor(centerX + rowRadius) + 1, width);
+					},
+					rate,
+					THREAD_COUNT,
+					shader
+				);
+				return;
+			}
 			IntStream.range(0, THREAD_COUNT).parallel().forEach(thread -> {
 				int threadMinY = Util.round(minY + (maxY - minY) * CIRCLE_SLICE_POSITIONS[thread]);
 				int threadMaxY = Util.round(minY + (maxY - minY) * CIRCLE_SLICE_POSITIONS[thread + 1]);
-				Shader.Context context = new Shader.Context(this.pixels);
+				Shader.Context context = new Shader.Context(pixels, scale);
 				for (int y = threadMinY; y < threadMaxY; y++) {
 					double rowRadius = Math.sqrt(1.0D - Util.square((y - centerY) / radiusY)) * radiusX;
 					int rowMinX = Math.max(Util.ceil(centerX - rowRadius), 0);
-					int rowMaxX = Math.min(Util.floor(centerX + rowRadius) + 1, this.width.intValue());
+					int rowMaxX = Math.min(Util.floor(centerX + rowRadius) + 1, width);
 					for (context.startRow(rowMinX, y); context.x < rowMaxX; context.moveRight()) {
 						shader.run(context);
 					}
@@ -216,4 +500,258 @@ public class BufferedCanvas {
 			});
 		}
 	}
+
+	/**
+	runs the shader in several circular areas in one parallel pass,
+	which is faster than calling {@link #runShaderCircle} for each one
+	when there are a lot of small circles, because every call to
+	runShaderCircle() starts and waits for its own parallel pass.
+	the first count elements of centerX, centerY, and radius describe the circles,
+	in logical coordinates. the shader can tell which circle it is drawing from
+	the Context's {@link Shader.Context#instance instance}.
+
+	the screen is split into horizontal bands which each contain roughly
+	the same number of pixels to draw, and every band is drawn by a different thread.
+	this means every pixel is only ever drawn by one thread,
+	even where circles overlap, so the shader still only needs to
+	modify the pixel at the Context's position, just like with runShaderCircle().
+	within a band, pixels where circles overlap are drawn in order of index,
+	so the result is the same as calling runShaderCircle() for every circle in order.
+	*/
+	public void runShaderCircles(int count, double[] centerX, double[] centerY, double[] radius, Shader shader) {
+		this.runShaderCircles(count, centerX, centerY, radius, null, shader);
+	}
+
+	/**
+	same as {@link #runShaderCircles(int, double[], double[], double[], Shader)},
+	but every circle can also have its own shading rate.
+	if rates is null, every circle is shaded at full rate.
+	see {@link CoarseShading} for more information on shading rates.
+	*/
+	public void runShaderCircles(int count, double[] centerX, double[] centerY, double[] radius, int[] rates, Shader shader) {
+		if (count <= 0) return;
+		double scale = this.scale;
+		PixelBuffer pixels = this.pixels;
+		int width  = pixels.width .intValue();
+		int height = pixels.height.intValue();
+		ShaderScratch scratch = SCRATCH.get();
+		scratch.ensureCapacity(count);
+		double[] scaledX = scratch.scaledX, scaledY = scratch.scaledY, scaledRadius = scratch.scaledRadius;
+		int[] minYs = scratch.minYs, maxYs = scratch.maxYs;
+		int[] minXs = scratch.minXs, maxXs = scratch.maxXs;
+		int[] effectiveRates = scratch.rates;
+		int groupRows = 1;
+		int batchMinY = height, batchMaxY = 0;
+		for (int index = 0; index < count; index++) {
+			scaledX[index] = centerX[index] * scale;
+			scaledY[index] = centerY[index] * scale;
+			scaledRadius[index] = radius[index] * scale;
+			int minY = minYs[index] = Math.max(Util.ceil(scaledY[index] - scaledRadius[index]), 0);
+			int maxY = Math.min(Util.floor(scaledY[index] + scaledRadius[index]) + 1, height);
+			if (!(scaledRadius[index] > 0.0D)) maxY = minY;
+			maxYs[index] = maxY;
+			minXs[index] = Math.max(Util.floor(scaledX[index] - scaledRadius[index]), 0);
+			maxXs[index] = Math.min(Util.ceil (scaledX[index] + scaledRadius[index]), width);
+			if (maxY > minY) {
+				pixels.markDirty(minXs[index], minY, maxXs[index] + 1, maxY);
+				batchMinY = Math.min(batchMinY, minY);
+				batchMaxY = Math.max(batchMaxY, maxY);
+				int rate = effectiveRates[index] = rates != null ? this.getShadingRate(rates[index]) : 1;
+				groupRows = Math.max(groupRows, rate);
+			}
+			else {
+				effectiveRates[index] = 1;
+			}
+		}
+		if (batchMaxY <= batchMinY) return;
+
+		//estimate how much work there is on each row,
+		//then find where to split the rows so that every thread gets the same amount of it.
+		//cumulativeWork[row] is the total work on all rows before batchMinY + row.
+		int rows = batchMaxY - batchMinY;
+		double[] cumulativeWork = scratch.getCumulativeWork(rows + 1);
+		for (int index = 0; index < count; index++) {
+			for (int y = minYs[index]; y < maxYs[index]; y++) {
+				cumulativeWork[y - batchMinY + 1] += rowRadius(scaledY[index], scaledRadius[index], y);
+			}
+		}
+		for (int row = 1; row <= rows; row++) {
+			cumulativeWork[row] += cumulativeWork[row - 1];
+		}
+		int threads = Math.min(THREAD_COUNT, rows);
+		int[] bands = scratch.bands;
+		double totalWork = cumulativeWork[rows];
+		for (int thread = 1, row = 0; thread < threads; thread++) {
+			double target = totalWork * thread / threads;
+			while (row < rows && cumulativeWork[row] < target) row++;
+			bands[thread] = batchMinY + row;
+		}
+		bands[0] = batchMinY;
+		bands[threads] = batchMaxY;
+
+		this.runShaderSpans(
+			scratch,
+			count,
+			(instance, y, span) -> {
+				double rowRadius = rowRadius(scaledY[instance], scaledRadius[instance], y);
+				span[0] = Math.max(Util.ceil(scaledX[instance] - rowRadius), 0);
+				span[1] = Math.min(Util.floor(scaledX[instance] + rowRadius) + 1, width);
+			},
+			groupRows,
+			threads,
+			shader
+		);
+	}
+
+	/** returns the rate that draw calls which ask for the provided rate should actually use. */
+	private int getShadingRate(int rate) {
+		return Integer.highestOneBit(Util.clamp(Math.min(rate, this.maxShadingRate), 1, MAX_SHADING_RATE));
+	}
+
+	/**
+	runs the shader on several shapes, which are each made of one span of pixels per row.
+	the shapes are described by the scratch's arrays:
+	shape i covers rows from (inclusive) minYs[i] to (exclusive) maxYs[i],
+	and never goes further left than minXs[i] or further right than maxXs[i].
+	rates[i] is its shading rate, which must be a power of 2 no larger than groupRows.
+	every thread draws the rows between 2 consecutive bands (of which there are threads + 1),
+	which are moved to multiples of groupRows if they aren't already,
+	so that blocks of pixels never cross from one thread's band into another's.
+	rows are drawn in groups of groupRows rows, and within a group, shapes are drawn in order of index,
+	so pixels where shapes overlap are still drawn in order of index.
+	*/
+	private void runShaderSpans(
+		ShaderScratch scratch,
+		int count,
+		RowSpan rowSpan,
+		int groupRows,
+		int threads,
+		Shader shader
+	) {
+		int[] minYs = scratch.minYs, maxYs = scratch.maxYs, rates = scratch.rates, bands = scratch.bands;
+		for (int thread = 0; thread < threads; thread++) {
+			bands[thread] &= -groupRows;
+		}
+		PixelBuffer pixels = this.pixels;
+		double scale = this.scale;
+		IntStream.range(0, threads).parallel().forEach(thread -> {
+			int bandMinY = bands[thread];
+			int bandMaxY = bands[thread + 1];
+			Shader.Context context = new Shader.Context(pixels, scale);
+			BandScratch band = scratch.bandScratch[thread];
+			CoarseShading coarse = band.coarse;
+			if (groupRows > 1) coarse.begin(shader, context, count, scratch.minXs, scratch.maxXs);
+			int[] span = band.span;
+			int[] rowMinX = band.rowMinX, rowMaxX = band.rowMaxX;
+			for (int groupY = bandMinY; groupY < bandMaxY; groupY += groupRows) {
+				for (int index = 0; index < count; index++) {
+					if (groupY + groupRows <= minYs[index] || groupY >= maxYs[index]) continue;
+					context.instance = index;
+					int rate = rates[index];
+					if (rate == 1) {
+						int minY = Math.max(groupY, minYs[index]);
+						int maxY = Math.min(Math.min(groupY + groupRows, bandMaxY), maxYs[index]);
+						for (int y = minY; y < maxY; y++) {
+							rowSpan.getSpan(index, y, span);
+							for (context.startRow(span[0], y); context.x < span[1]; context.moveRight()) {
+								shader.run(context);
+							}
+						}
+					}
+					else {
+						for (int subGroupY = groupY; subGroupY < groupY + groupRows; subGroupY += rate) {
+							for (int row = 0; row < rate; row++) {
+								int y = subGroupY + row;
+								if (y >= minYs[index] && y < maxYs[index] && y < bandMaxY) {
+									rowSpan.getSpan(index, y, span);
+									rowMinX[row] = span[0];
+									rowMaxX[row] = span[1];
+								}
+								else {
+									rowMinX[row] = rowMaxX[row] = 0;
+								}
+							}
+							coarse.shadeGroup(subGroupY, rate, rowMinX, rowMaxX);
+						}
+					}
+				}
+			}
+			if (groupRows > 1) coarse.end();
+		});
+	}
+
+	/** arrays which runShader() methods would otherwise allocate every time. see {@link #SCRATCH}. */
+	private static final class ShaderScratch {
+
+		/** the shapes passed to {@link #runShaderSpans}, and in {@link #runShaderCircles}, their centers and radii in pixels. */
+		double[] scaledX = new double[0], scaledY = new double[0], scaledRadius = new double[0];
+		int[] minYs = new int[0], maxYs = new int[0], minXs = new int[0], maxXs = new int[0], rates = new int[0];
+		double[] cumulativeWork = new double[0];
+		/** the rows where every thread's band starts and ends. */
+		final int[] bands = new int[THREAD_COUNT + 1];
+		/** one for every band, so that no 2 threads ever share one. */
+		final BandScratch[] bandScratch = new BandScratch[THREAD_COUNT];
+
+		ShaderScratch() {
+			for (int thread = 0; thread < THREAD_COUNT; thread++) {
+				this.bandScratch[thread] = new BandScratch();
+			}
+		}
+
+		/** makes sure every per-shape array has room for at least count shapes. */
+		void ensureCapacity(int count) {
+			if (this.minYs.length < count) {
+				int capacity = Math.max(count, this.minYs.length << 1);
+				this.scaledX      = new double[capacity];
+				this.scaledY      = new double[capacity];
+				this.scaledRadius = new double[capacity];
+				this.minYs        = new int   [capacity];
+				this.maxYs        = new int   [capacity];
+				this.minXs        = new int   [capacity];
+				this.maxXs        = new int   [capacity];
+				this.rates        = new int   [capacity];
+			}
+		}
+
+		/** stores a single shape, and returns this for convenience. */
+		ShaderScratch single(int minY, int maxY, int minX, int maxX, int rate) {
+			this.ensureCapacity(1);
+			this.minYs[0] = minY;
+			this.maxYs[0] = maxY;
+			this.minXs[0] = minX;
+			this.maxXs[0] = maxX;
+			this.rates[0] = rate;
+			return this;
+		}
+
+		/** returns an array of at least the requested length, whose first length elements are 0. */
+		double[] getCumulativeWork(int length) {
+			if (this.cumulativeWork.length < length) {
+				return this.cumulativeWork = new double[Math.max(length, this.cumulativeWork.length << 1)];
+			}
+			Arrays.fill(this.cumulativeWork, 0, length, 0.0D);
+			return this.cumulativeWork;
+		}
+	}
+
+	/** things which only the thread drawing one band in {@link #runShaderSpans} touches. */
+	private static final class BandScratch {
+
+		final int[] span = new int[2];
+		final int[] rowMinX = new int[MAX_SHADING_RATE], rowMaxX = new int[MAX_SHADING_RATE];
+		final CoarseShading coarse = new CoarseShading();
+	}
+
+	/** computes the span of pixels a shape covers on a row. see {@link #runShaderSpans}. */
+	@FunctionalInterface
+	private static interface RowSpan {
+
+		/** stores the (inclusive) start and (exclusive) end of the span in span[0] and span[1]. */
+		public abstract void getSpan(int instance, int y, int[] span);
+	}
+
+	/** half the width of a circle at row y, or NaN if y is outside the circle. */
+	private static double rowRadius(double centerY, double radius, int y) {
+		return Math.sqrt(1.0D - Util.square((y - centerY) / radius)) * radius;
+	}
 }
\ No newline at end of file
@@ -9,6 +9,12 @@ holder for a {@link BufferedCanvas} which also controls drawing to that {@link #
 drawing will be performed whenever the {@link #width} or {@link #height} changes,
 or whenever {@link #render} is called.
 
+by default, drawing happens on the FX application thread.
+views constructed with useRenderThread = true will
+draw on a dedicated {@link RenderThread} instead.
+views constructed with a {@link RenderGroup} will draw on the group's
+threads, at the same time as every other view in the group.
+
 @author Michael Johnston (tky886)
 */
 public abstract class BufferedCanvasView {
@@ -16,21 +22,59 @@ public abstract class BufferedCanvasView {
 	public final DoubleProperty width, height;
 	public final BufferedCanvas canvas;
 	private final DelayedRunnable reRenderTask;
+	/** null unless this view was constructed with useRenderThread = true. */
+	public final RenderThread renderThread;
+	/** null unless this view was constructed with a RenderGroup, and without useRenderThread. */
+	public final RenderGroup renderGroup;
 
 	public BufferedCanvasView() {
 		this(0.0D, 0.0D);
 	}
 
 	public BufferedCanvasView(double width, double height) {
+		this(width, height, false);
+	}
+
+	public BufferedCanvasView(double width, double height, boolean useRenderThread) {
+		this(width, height, useRenderThread, null);
+	}
+
+	/**
+	if useRenderThread is true, the group is ignored.
+	otherwise, if the group is not null, we join it.
+	otherwise, we draw on the FX application thread.
+	*/
+	public BufferedCanvasView(double width, double height, boolean useRenderThread, RenderGroup group) {
 		this.width  = new SimpleDoubleProperty(this, "width",  width );
 		this.height = new SimpleDoubleProperty(this, "height", height);
 		this.canvas = new BufferedCanvas(width, height);
 		this.canvas.width .bind(this.width );
 		this.canvas.height.bind(this.height);
-		this.reRenderTask = new DelayedRunnable(() -> {
-			this.doRender();
-			this.canvas.flush();
-		});
+		if (useRenderThread) {
+			this.reRenderTask = null;
+			this.renderThread = new RenderThread(this);
+			this.renderThread.start();
+			this.renderGroup = null;
+		}
+		else {
+			//our pixels must not be resized while they're being drawn on,
+			//which could be on another thread. so they are resized by prepareRender() instead.
+			this.canvas.pixels.width .unbind();
+			this.canvas.pixels.height.unbind();
+			if (group != null) {
+				this.reRenderTask = null;
+				this.renderGroup = group;
+			}
+			else {
+				this.reRenderTask = new DelayedRunnable(() -> {
+					this.prepareRender();
+					this.doRender();
+					this.flush();
+				});
+				this.renderGroup = null;
+			}
+			this.renderThread = null;
+		}
 
 		ChangeListener<Number> onResize = (observable, oldValue, newValue) -> this.render();
 		this.width .addListener(onResize);
@@ -38,8 +82,46 @@ public abstract class BufferedCanvasView {
 	}
 
 	public void render() {
-		this.reRenderTask.runLater();
+		if (this.renderThread != null) {
+			this.renderThread.requestRender(this.width.intValue(), this.height.intValue());
+		}
+		else if (this.renderGroup != null) {
+			this.renderGroup.requestRender(this);
+		}
+		else {
+			this.reRenderTask.runLater();
+		}
 	}
 
+	/** returns the number of bytes this view's pixels take up, including every buffer our {@link #renderThread} uses. */
+	public long getAllocatedBytes() {
+		return this.renderThread != null ? this.renderThread.getAllocatedBytes() : this.canvas.pixels.getAllocatedBytes();
+	}
+
+	/**
+	called on the FX application thread right before every call to {@link #doRender},
+	unless this view uses a {@link #renderThread}.
+	doRender() may be called on a different thread, so anything it needs from the
+	scene graph or from properties bound to it should be read here, and saved for later.
+	by default, resizes our {@link #canvas}'s pixels to match the canvas.
+	*/
+	protected void prepareRender() {
+		this.canvas.pixels.width .set(this.canvas.width .get());
+		this.canvas.pixels.height.set(this.canvas.height.get());
+	}
+
+	/**
+	draws this view on {@link #canvas}.{@link BufferedCanvas#pixels pixels}.
+	if this view uses a {@link #renderThread}, this method will be called on that thread.
+	if this view uses a {@link #renderGroup}, this method will be called on one of the group's threads.
+	*/
 	protected abstract void doRender();
+
+	/**
+	called on the FX application thread after {@link #doRender} finishes,
+	unless this view uses a {@link #renderThread}. by default, flushes our {@link #canvas}.
+	*/
+	protected void flush() {
+		this.canvas.flush();
+	}
 }
\ No newline at end of file
@@ -0,0 +1,215 @@
+package game.view.boilerplate;
+
+import java.util.Arrays;
+
+/**
+runs a {@link Shader} at a coarse rate: once per (rate) by (rate) block of pixels,
+instead of once per pixel. the shader is run at the 4 corners of every block,
+and the pixels in between are filled in by interpolating between the corners bilinearly.
+corners are shared between neighboring blocks, so on average,
+the shader only runs once per block.
+
+this only works for shaders which completely overwrite pixels,
+without depending on what was there before.
+so shaders need to opt in by setting the Context's {@link Shader.Context#opaque opaque}
+flag whenever they do that. similarly, shaders can set the Context's
+{@link Shader.Context#transparent transparent} flag when they don't draw anything,
+and blocks where all 4 corners are transparent are skipped entirely.
+any other block is probably on the edge of whatever is being drawn,
+so the whole block is shaded at full rate instead.
+features which are smaller than a block and don't touch any of its corners can still be missed,
+so draw calls should only ask for a coarse rate when their shader is smooth.
+
+one of these is kept for every band of pixels which a thread can draw,
+and re-used by every runShader() call which that thread makes.
+{@link #begin} prepares it for the next call.
+see {@link BufferedCanvas#runShaderCircles(int, double[], double[], double[], int[], Shader)}.
+
+@author Michael Johnston (tky886)
+*/
+public class CoarseShading {
+
+	private Shader shader;
+	private Shader.Context context;
+	private PixelBuffer pixels;
+	/** samples are shaded into this buffer instead of {@link #pixels}, and then copied into {@link #colors}. */
+	private final PixelBuffer sample = new PixelBuffer(1.0D, 1.0D, PixelBuffer.Layout.ROW_MAJOR);
+	/** the same as {@link #context}, except that it draws on our {@link #sample} buffer. */
+	private Shader.Context sampleContext;
+	/** the leftmost and rightmost pixel that every instance can draw on. */
+	private int[] minXs, maxXs;
+	/**
+	shaded corners for every instance, as ARGB, where alpha is 255 if the corner is
+	{@link Shader.Context#opaque opaque}, 0 if it's {@link Shader.Context#transparent transparent},
+	and 1 if it's neither. the corners for 2 rows of blocks
+	are kept at once, so that a row of blocks can re-use the corners shared with the row above it.
+	*/
+	private int[][] colors = new int[0][];
+	/** which row of corners each entry in {@link #colors} belongs to, so that we know when it needs to be shaded again. */
+	private int[][] cornerRows = new int[0][];
+	/**
+	the {@link #call} that each instance's {@link #cornerRows} were last used in.
+	if it's not the current call, they're left over from an earlier call, and need to be reset.
+	*/
+	private int[] instanceCalls = new int[0];
+	/** incremented by every call to {@link #begin}. */
+	private int call;
+
+	/**
+	prepares us to shade count instances with the provided shader and context.
+	the minXs and maxXs must stay the same until the next time this method is called.
+	*/
+	public void begin(Shader shader, Shader.Context context, int count, int[] minXs, int[] maxXs) {
+		this.shader = shader;
+		this.context = context;
+		this.pixels = context.buffer;
+		if (this.sampleContext == null || this.sampleContext.reciprocalScale != context.reciprocalScale) {
+			this.sampleContext = new Shader.Context(this.sample, context);
+		}
+		this.minXs = minXs;
+		this.maxXs = maxXs;
+		if (this.colors.length < count) {
+			this.colors        = Arrays.copyOf(this.colors,        count);
+			this.cornerRows    = Arrays.copyOf(this.cornerRows,    count);
+			this.instanceCalls = Arrays.copyOf(this.instanceCalls, count);
+		}
+		this.call++;
+	}
+
+	/** forgets everything which was passed to {@link #begin}, so that we don't keep it alive until the next call. */
+	public void end() {
+		this.shader = null;
+		this.context = null;
+		this.pixels = null;
+		this.sampleContext.perThreadStorage = null;
+	}
+
+	/**
+	shades (rate) rows starting at groupY, which must be a multiple of the rate.
+	the rate must be a power of 2. row r covers pixels from (inclusive) minX[r] to (exclusive) maxX[r].
+	rows which shouldn't be drawn at all should have minX[r] == maxX[r].
+	the Context's {@link Shader.Context#instance instance} must already be set.
+	*/
+	public void shadeGroup(int groupY, int rate, int[] minX, int[] maxX) {
+		int shift = Integer.numberOfTrailingZeros(rate);
+		//the blocks which are completely inside every row.
+		int innerMinX = Integer.MIN_VALUE, innerMaxX = Integer.MAX_VALUE;
+		for (int row = 0; row < rate; row++) {
+			innerMinX = Math.max(innerMinX, minX[row]);
+			innerMaxX = Math.min(innerMaxX, maxX[row]);
+		}
+		innerMinX = (innerMinX + rate - 1) & -rate;
+		innerMaxX &= -rate;
+		if (innerMaxX <= innerMinX) {
+			for (int row = 0; row < rate; row++) {
+				this.shadeRow(groupY + row, minX[row], maxX[row]);
+			}
+			return;
+		}
+		for (int row = 0; row < rate; row++) {
+			this.shadeRow(groupY + row, minX[row], innerMinX);
+			this.shadeRow(groupY + row, innerMaxX, maxX[row]);
+		}
+		for (int blockX = innerMinX; blockX < innerMaxX; blockX += rate) {
+			int topLeft     = this.getCorner(blockX,        groupY,        shift);
+			int topRight    = this.getCorner(blockX + rate, groupY,        shift);
+			int bottomLeft  = this.getCorner(blockX,        groupY + rate, shift);
+			int bottomRight = this.getCorner(blockX + rate, groupY + rate, shift);
+			if ((topLeft & topRight & bottomLeft & bottomRight) >>> 24 == 255) {
+				this.fillBlock(blockX, groupY, shift, topLeft, topRight, bottomLeft, bottomRight);
+			}
+			else if ((topLeft | topRight | bottomLeft | bottomRight) >>> 24 == 0) {
+				//completely outside the shape, nothing to draw.
+			}
+			else {
+				for (int row = 0; row < rate; row++) {
+					this.shadeRow(groupY + row, blockX, blockX + rate);
+				}
+			}
+		}
+	}
+
+	/** runs the shader at full rate on pixels from (inclusive) minX to (exclusive) maxX on row y. */
+	private void shadeRow(int y, int minX, int maxX) {
+		Shader.Context context = this.context;
+		for (context.startRow(minX, y); context.x < maxX; context.moveRight()) {
+			this.shader.run(context);
+		}
+	}
+
+	/** returns the shaded color at (x, y), which must be a corner of a (1 << shift) by (1 << shift) block. */
+	private int getCorner(int x, int y, int shift) {
+		int instance = this.context.instance;
+		int originColumn = this.minXs[instance] >> shift;
+		int columns = (this.maxXs[instance] >> shift) - originColumn + 2;
+		int[] colors = this.colors[instance];
+		int[] cornerRows = this.cornerRows[instance];
+		if (colors == null || colors.length < columns << 1) {
+			colors = this.colors[instance] = new int[columns << 1];
+			cornerRows = this.cornerRows[instance] = new int[columns << 1];
+			Arrays.fill(cornerRows, Integer.MIN_VALUE);
+			this.instanceCalls[instance] = this.call;
+		}
+		else if (this.instanceCalls[instance] != this.call) {
+			Arrays.fill(cornerRows, 0, columns << 1, Integer.MIN_VALUE);
+			this.instanceCalls[instance] = this.call;
+		}
+		int cornerRow = y >> shift;
+		int index = (cornerRow & 1) * columns + (x >> shift) - originColumn;
+		if (cornerRows[index] != cornerRow) {
+			cornerRows[index] = cornerRow;
+			colors[index] = this.shadeSample(x, y);
+		}
+		return colors[index];
+	}
+
+	/** runs the shader on our {@link #sample} buffer at the provided position, and returns the result. */
+	private int shadeSample(int x, int y) {
+		Shader.Context sampleContext = this.sampleContext;
+		PixelBuffer sample = this.sample;
+		sampleContext.x = x;
+		sampleContext.y = y;
+		sampleContext.baseOffset = 0;
+		sampleContext.opaque = false;
+		sampleContext.transparent = false;
+		sampleContext.instance = this.context.instance;
+		sampleContext.perThreadStorage = this.context.perThreadStorage;
+		this.shader.run(sampleContext);
+		//the shader might have only just initialized its storage.
+		this.context.perThreadStorage = sampleContext.perThreadStorage;
+		return (
+			(sampleContext.opaque ? 255 << 24 : sampleContext.transparent ? 0 : 1 << 24) |
+			(sample.getRed  (0) << 16) |
+			(sample.getGreen(0) <<  8) |
+			(sample.getBlue (0)      )
+		);
+	}
+
+	/** fills a (1 << shift) by (1 << shift) block by interpolating between its corners. */
+	private void fillBlock(int blockX, int blockY, int shift, int topLeft, int topRight, int bottomLeft, int bottomRight) {
+		PixelBuffer pixels = this.pixels;
+		int rate = 1 << shift;
+		int roundingOffset = 1 << ((shift << 1) - 1);
+		for (int row = 0; row < rate; row++) {
+			int top = rate - row;
+			//left and right edges, multiplied by rate.
+			int leftRed    = ((topLeft  >> 16) & 255) * top + ((bottomLeft  >> 16) & 255) * row;
+			int leftGreen  = ((topLeft  >>  8) & 255) * top + ((bottomLeft  >>  8) & 255) * row;
+			int leftBlue   = ((topLeft       ) & 255) * top + ((bottomLeft       ) & 255) * row;
+			int rightRed   = ((topRight >> 16) & 255) * top + ((bottomRight >> 16) & 255) * row;
+			int rightGreen = ((topRight >>  8) & 255) * top + ((bottomRight >>  8) & 255) * row;
+			int rightBlue  = ((topRight      ) & 255) * top + ((bottomRight      ) & 255) * row;
+			int baseOffset = pixels.baseOffset(blockX, blockY + row);
+			for (int column = 0; column < rate; column++) {
+				int left = rate - column;
+				pixels.setRGB(
+					baseOffset,
+					(leftRed   * left + rightRed   * column + roundingOffset) >> (shift << 1),
+					(leftGreen * left + rightGreen * column + roundingOffset) >> (shift << 1),
+					(leftBlue  * left + rightBlue  * column + roundingOffset) >> (shift << 1)
+				);
+				baseOffset = pixels.advance(baseOffset, blockX + column + 1);
+			}
+		}
+	}
+}
@@ -0,0 +1,135 @@
+package game.view.boilerplate;
+
+import java.util.Arrays;
+
+import game.common.Util;
+
+/**
+a set of pixels which are going to be completely covered by something opaque later in the frame,
+stored as a sorted list of non-overlapping spans for every row.
+anything drawn underneath these pixels before then is just going to be overwritten,
+so it doesn't need to be drawn at all.
+see {@link game.view.entities.EntityView#addCoverage}.
+
+@author Michael Johnston (tky886)
+*/
+public class CoverageMask {
+
+	private int width, height;
+	/** the number of spans on every row. */
+	private int[] counts = new int[0];
+	/** the spans on every row, as pairs of (inclusive) start and (exclusive) end x coordinates. */
+	private int[][] spans = new int[0][];
+
+	/** removes all spans, and sets the size of the area we cover. */
+	public void reset(int width, int height) {
+		this.width = width;
+		this.height = height;
+		if (this.counts.length < height) {
+			this.counts = new int[height];
+			int[][] spans = new int[height][];
+			System.arraycopy(this.spans, 0, spans, 0, this.spans.length);
+			this.spans = spans;
+		}
+		else {
+			Arrays.fill(this.counts, 0, height, 0);
+		}
+	}
+
+	/** marks pixels from (inclusive) start to (exclusive) end on row y as covered. */
+	public void addSpan(int y, int start, int end) {
+		if (y < 0 || y >= this.height) return;
+		start = Math.max(start, 0);
+		end = Math.min(end, this.width);
+		if (end <= start) return;
+
+		int[] row = this.spans[y];
+		int count = this.counts[y];
+		if (row == null) row = this.spans[y] = new int[8];
+		//find the spans which touch the new one, and merge them all into one span.
+		int first = 0;
+		while (first < count && row[(first << 1) | 1] < start) first++;
+		int last = first;
+		while (last < count && row[last << 1] <= end) {
+			start = Math.min(start, row[ last << 1     ]);
+			end   = Math.max(end,   row[(last << 1) | 1]);
+			last++;
+		}
+		int newCount = count - (last - first) + 1;
+		if ((newCount << 1) > row.length) {
+			row = this.spans[y] = Arrays.copyOf(row, row.length << 1);
+		}
+		System.arraycopy(row, last << 1, row, (first + 1) << 1, (count - last) << 1);
+		row[ first << 1     ] = start;
+		row[(first << 1) | 1] = end;
+		this.counts[y] = newCount;
+	}
+
+	/**
+	marks every pixel whose position is strictly inside the circle as covered.
+	the center and radius are in pixels.
+	these are always a subset of the pixels that {@link BufferedCanvas#runShaderCircles} would visit for the same circle.
+	*/
+	public void addCircle(double centerX, double centerY, double radius) {
+		if (!(radius > 0.0D)) return;
+		int minY = Math.max(Util.floor(centerY - radius) + 1, 0);
+		int maxY = Math.min(Util.ceil (centerY + radius), this.height);
+		for (int y = minY; y < maxY; y++) {
+			double rowRadius = Math.sqrt(radius * radius - Util.square(y - centerY));
+			this.addSpan(y, Util.floor(centerX - rowRadius) + 1, Util.ceil(centerX + rowRadius));
+		}
+	}
+
+	public int getSpanCount(int y) {
+		return this.counts[y];
+	}
+
+	public int getSpanStart(int y, int index) {
+		return this.spans[y][index << 1];
+	}
+
+	public int getSpanEnd(int y, int index) {
+		return this.spans[y][(index << 1) | 1];
+	}
+
+	/** returns true if no pixels are covered. */
+	public boolean isEmpty() {
+		for (int y = 0; y < this.height; y++) {
+			if (this.counts[y] != 0) return false;
+		}
+		return true;
+	}
+
+	/** returns the total number of covered pixels. */
+	public long getCoveredPixels() {
+		long total = 0L;
+		for (int y = 0; y < this.height; y++) {
+			for (int index = 0; index < this.counts[y]; index++) {
+				total += this.getSpanEnd(y, index) - this.getSpanStart(y, index);
+			}
+		}
+		return total;
+	}
+
+	/**
+	calls the action for every span of pixels on row y
+	from (inclusive) minX to (exclusive) maxX which is NOT covered.
+	spans are visited left to right.
+	*/
+	public void forEachGap(int y, int minX, int maxX, SpanAction action) {
+		int count = y >= 0 && y < this.height ? this.counts[y] : 0;
+		int x = minX;
+		for (int index = 0; index < count && x < maxX; index++) {
+			int start = this.getSpanStart(y, index);
+			if (start > x) action.accept(x, Math.min(start, maxX));
+			x = Math.max(x, this.getSpanEnd(y, index));
+		}
+		if (x < maxX) action.accept(x, maxX);
+	}
+
+	@FunctionalInterface
+	public static interface SpanAction {
+
+		public abstract void accept(int start, int end);
+	}
+}
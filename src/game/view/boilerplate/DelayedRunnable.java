@@ -1,7 +1,5 @@
 package game.view.boilerplate;
 
-import javafx.application.Platform;
-
 /**
 holder for an action which is expected to be
 called multiple times as the result of some trigger.
@@ -14,6 +12,8 @@ it is normal (and somewhat expected) for the
 width and height to be changed at the same time,
 but the layout logic should only happen once.
 
+the action runs at the end of the current pulse, via {@link FrameScheduler#INSTANCE}.
+
 @author Michael Johnston (tky886)
 */
 public class DelayedRunnable implements Runnable {
@@ -28,7 +28,7 @@ public class DelayedRunnable implements Runnable {
 	public void runLater() {
 		if (!this.isQueued) {
 			this.isQueued = true;
-			Platform.runLater(this);
+			FrameScheduler.INSTANCE.schedule(this);
 		}
 	}
 
@@ -0,0 +1,112 @@
+package game.view.boilerplate;
+
+/**
+the parts of a {@link PixelBuffer} which have changed since it was last
+{@link BufferedCanvas#flush flushed}, so that flushing only needs to upload those parts.
+stored as a small set of rectangles. when a new rectangle is added and there is no room for it,
+it is merged with whichever rectangle grows the least by doing so.
+merging can only ever make the region bigger, never smaller,
+so nothing which changed is ever left out.
+
+@author Michael Johnston (tky886)
+*/
+public class DirtyRegion {
+
+	public static final int MAX_RECTANGLES = 8;
+
+	private int count;
+	/** bounds of each rectangle. mins are inclusive, maxes are exclusive. */
+	private final int[] minXs = new int[MAX_RECTANGLES], minYs = new int[MAX_RECTANGLES];
+	private final int[] maxXs = new int[MAX_RECTANGLES], maxYs = new int[MAX_RECTANGLES];
+	/** when true, everything is dirty, and the rectangles are ignored. */
+	private boolean full;
+
+	/** adds the rectangle from (minX, minY) (inclusive) to (maxX, maxY) (exclusive). */
+	public void add(int minX, int minY, int maxX, int maxY) {
+		if (this.full || maxX <= minX || maxY <= minY) return;
+		long area = area(minX, minY, maxX, maxY);
+		int best = -1;
+		long bestGrowth = Long.MAX_VALUE;
+		for (int index = 0; index < this.count; index++) {
+			//how much area would be marked dirty which isn't part of either rectangle.
+			long growth = area(
+				Math.min(minX, this.minXs[index]),
+				Math.min(minY, this.minYs[index]),
+				Math.max(maxX, this.maxXs[index]),
+				Math.max(maxY, this.maxYs[index])
+			)
+			- area(this.minXs[index], this.minYs[index], this.maxXs[index], this.maxYs[index])
+			- area
+			+ area(
+				Math.max(minX, this.minXs[index]),
+				Math.max(minY, this.minYs[index]),
+				Math.min(maxX, this.maxXs[index]),
+				Math.min(maxY, this.maxYs[index])
+			);
+			if (growth < bestGrowth) {
+				best = index;
+				bestGrowth = growth;
+			}
+		}
+		//merge if it's free (for example, 2 rows next to each other), or if we're out of room.
+		if (best >= 0 && (bestGrowth <= 0L || this.count == MAX_RECTANGLES)) {
+			this.minXs[best] = Math.min(minX, this.minXs[best]);
+			this.minYs[best] = Math.min(minY, this.minYs[best]);
+			this.maxXs[best] = Math.max(maxX, this.maxXs[best]);
+			this.maxYs[best] = Math.max(maxY, this.maxYs[best]);
+		}
+		else {
+			this.minXs[this.count] = minX;
+			this.minYs[this.count] = minY;
+			this.maxXs[this.count] = maxX;
+			this.maxYs[this.count] = maxY;
+			this.count++;
+		}
+	}
+
+	/** adds every rectangle in the other region, or everything if the other region is {@link #isFull full}. */
+	public void add(DirtyRegion other) {
+		if (other.full) {
+			this.addAll();
+			return;
+		}
+		for (int index = 0; index < other.count; index++) {
+			this.add(other.minXs[index], other.minYs[index], other.maxXs[index], other.maxYs[index]);
+		}
+	}
+
+	/** marks everything as dirty, for example because the buffer was resized. */
+	public void addAll() {
+		this.full = true;
+		this.count = 0;
+	}
+
+	/** marks everything as clean. called after flushing. */
+	public void clear() {
+		this.full = false;
+		this.count = 0;
+	}
+
+	public boolean isFull() {
+		return this.full;
+	}
+
+	public boolean isEmpty() {
+		return !this.full && this.count == 0;
+	}
+
+	/** the number of rectangles. always 0 when {@link #isFull full}. */
+	public int getCount() {
+		return this.count;
+	}
+
+	public int getMinX(int index) { return this.minXs[index]; }
+	public int getMinY(int index) { return this.minYs[index]; }
+	public int getMaxX(int index) { return this.maxXs[index]; }
+	public int getMaxY(int index) { return this.maxYs[index]; }
+
+	/** returns the area of the rectangle, or 0 if it's empty. */
+	private static long area(int minX, int minY, int maxX, int maxY) {
+		return maxX > minX && maxY > minY ? ((long)(maxX - minX)) * ((long)(maxY - minY)) : 0L;
+	}
+}
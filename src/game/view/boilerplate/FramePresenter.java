@@ -0,0 +1,198 @@
+package game.view.boilerplate;
+
+import javafx.geometry.Rectangle2D;
+import javafx.scene.Node;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+/**
+responsible for getting the contents of a {@link PixelBuffer} onto the screen.
+{@link BufferedCanvas} used to do this itself by writing to a {@link Canvas},
+but there is more than one way to do it, and they do not perform the same.
+
+{@link CanvasPresenter} is the original strategy.
+Canvas.getGraphicsContext2D().getPixelWriter().setPixels() does not write the pixels immediately.
+instead, it copies them into the canvas's command queue,
+and then the render thread copies them *again* into the canvas's texture.
+
+{@link ImagePresenter} writes into a {@link WritableImage} displayed by an {@link ImageView}.
+WritableImage.getPixelWriter().setPixels() writes directly into
+the image's own pixel storage, which is what gets uploaded to the GPU.
+so there is one less full-frame copy every frame,
+and the command queue never grows to the size of the window.
+
+@author Michael Johnston (tky886)
+*/
+public abstract class FramePresenter {
+
+	/** the presentation strategy used by {@link BufferedCanvas}'s which don't specify one explicitly. */
+	public static Mode DEFAULT_MODE = Mode.IMAGE;
+
+	/** the node which should be added to the scene graph. */
+	public abstract Node getNode();
+
+	/** called whenever the size of the {@link #getNode node} should change. */
+	public abstract void resize(double width, double height);
+
+	/**
+	copies the provided region of the pixels to the screen.
+	the pixels may be larger than the region,
+	in which case anything outside the region is left as-is.
+	if we {@link #supportsScaling support scaling}, the pixels
+	will be stretched to fill our {@link #getNode node}.
+	*/
+	public abstract void present(PixelBuffer pixels, int x, int y, int width, int height);
+
+	/**
+	returns true if {@link #present} can display a {@link PixelBuffer}
+	which is larger or smaller than our node, by stretching it to fit.
+	*/
+	public abstract boolean supportsScaling();
+
+	public static FramePresenter create(Mode mode, double width, double height) {
+		switch (mode) {
+			case CANVAS: return new CanvasPresenter(width, height);
+			case IMAGE:  return new  ImagePresenter(width, height);
+			default: throw new AssertionError(mode);
+		}
+	}
+
+	public static enum Mode {
+		CANVAS,
+		IMAGE;
+	}
+
+	public static class CanvasPresenter extends FramePresenter {
+
+		public final Canvas canvas;
+
+		public CanvasPresenter(double width, double height) {
+			this.canvas = new Canvas(width, height);
+			PixelFormat<?> format = this.canvas.getGraphicsContext2D().getPixelWriter().getPixelFormat();
+			if (format != PixelBuffer.FORMAT) {
+				System.err.println("Canvas has an unexpected pixel format: " + format + ". Framerate may decrease as a result.");
+			}
+		}
+
+		@Override
+		public Node getNode() {
+			return this.canvas;
+		}
+
+		@Override
+		public void resize(double width, double height) {
+			this.canvas.setWidth(width);
+			this.canvas.setHeight(height);
+		}
+
+		@Override
+		public void present(PixelBuffer pixels, int x, int y, int width, int height) {
+			width  = Math.min(width,  ((int)(this.canvas.getWidth ())) - x);
+			height = Math.min(height, ((int)(this.canvas.getHeight())) - y);
+			if (width <= 0 || height <= 0) return;
+			this.canvas.getGraphicsContext2D().getPixelWriter().setPixels(
+				x,
+				y,
+				width,
+				height,
+				PixelBuffer.FORMAT,
+				pixels.getRowMajorPixels(x, y, width, height),
+				pixels.rowMajorOffset(x, y),
+				pixels.getScanlineStride()
+			);
+		}
+
+		@Override
+		public boolean supportsScaling() {
+			return false;
+		}
+	}
+
+	/**
+	the backing {@link #image} is kept at the {@link PixelBuffer#getRoundedWidth rounded}
+	size of the {@link PixelBuffer} it presents, so it only needs to be re-allocated
+	when the PixelBuffer itself re-allocates its backing array.
+	the {@link #imageView}'s viewport hides the unused area.
+
+	the viewport always covers the PixelBuffer's actual size, and the image view
+	is always fit to our own size. so if the two differ, the GPU scales
+	the image for us, with smoothing enabled. this is what allows
+	a view to render at a lower resolution than it is displayed at,
+	or at the screen's full resolution on HiDPI displays.
+	*/
+	public static class ImagePresenter extends FramePresenter {
+
+		public final ImageView imageView;
+		private WritableImage image;
+		private double width, height;
+		private int viewportWidth, viewportHeight;
+
+		public ImagePresenter(double width, double height) {
+			this.imageView = new ImageView();
+			this.imageView.setSmooth(false);
+			this.imageView.setPreserveRatio(false);
+			this.resize(width, height);
+		}
+
+		@Override
+		public Node getNode() {
+			return this.imageView;
+		}
+
+		@Override
+		public void resize(double width, double height) {
+			this.width  = width;
+			this.height = height;
+			this.imageView.setFitWidth(width);
+			this.imageView.setFitHeight(height);
+			this.updateViewport(this.viewportWidth, this.viewportHeight);
+		}
+
+		private void updateViewport(int width, int height) {
+			this.viewportWidth  = width;
+			this.viewportHeight = height;
+			if (width > 0 && height > 0) {
+				this.imageView.setViewport(new Rectangle2D(0.0D, 0.0D, width, height));
+				this.imageView.setSmooth(width != this.width || height != this.height);
+			}
+		}
+
+		@Override
+		public void present(PixelBuffer pixels, int x, int y, int width, int height) {
+			WritableImage image = this.image;
+			int imageWidth  = pixels.getRoundedWidth();
+			int imageHeight = pixels.getRoundedHeight();
+			if (image == null || ((int)(image.getWidth())) != imageWidth || ((int)(image.getHeight())) != imageHeight) {
+				//new image means nothing outside the region is initialized.
+				image = this.image = new WritableImage(imageWidth, imageHeight);
+				x = 0;
+				y = 0;
+				width  = pixels.width .intValue();
+				height = pixels.height.intValue();
+				this.imageView.setImage(image);
+			}
+			int pixelsWidth  = pixels.width .intValue();
+			int pixelsHeight = pixels.height.intValue();
+			if (pixelsWidth != this.viewportWidth || pixelsHeight != this.viewportHeight) {
+				this.updateViewport(pixelsWidth, pixelsHeight);
+			}
+			image.getPixelWriter().setPixels(
+				x,
+				y,
+				width,
+				height,
+				PixelBuffer.FORMAT,
+				pixels.getRowMajorPixels(x, y, width, height),
+				pixels.rowMajorOffset(x, y),
+				pixels.getScanlineStride()
+			);
+		}
+
+		@Override
+		public boolean supportsScaling() {
+			return true;
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package game.view.boilerplate;
+
+import java.util.LinkedHashSet;
+
+import javafx.application.Platform;
+import javafx.scene.Scene;
+
+/**
+collects work which needs to happen once per frame (rendering views, laying out menus, etc.),
+and runs all of it at one point at the end of the pulse it was requested in,
+after JavaFX has finished laying out the scene, but before the scene is drawn.
+so anything done by a task shows up in the same pulse,
+instead of in whichever pulse comes after Platform.runLater() gets around to it.
+
+like {@link DelayedRunnable}, scheduling the same task more than once before it runs only runs it once.
+tasks run in the order they were first scheduled in. tasks which are scheduled
+by other tasks run in the same pulse too, up to {@link #MAX_ROUNDS} rounds deep.
+
+until a scene is {@link #install}'ed, tasks are run with Platform.runLater() instead.
+everything here must happen on the FX application thread.
+
+@author Michael Johnston (tky886)
+*/
+public class FrameScheduler {
+
+	public static final FrameScheduler INSTANCE = new FrameScheduler();
+	/**
+	maximum number of times per pulse that we go back and run tasks which were scheduled by other tasks.
+	anything still pending after that waits for the next pulse, so that tasks which keep re-scheduling
+	each other can't stop the pulse from finishing.
+	*/
+	public static final int MAX_ROUNDS = 4;
+
+	/** tasks waiting for the end of the pulse. */
+	private LinkedHashSet<Runnable> pending = new LinkedHashSet<>(16);
+	/** tasks being run right now. swapped with {@link #pending} every round. */
+	private LinkedHashSet<Runnable> running = new LinkedHashSet<>(16);
+	private final Runnable pulseListener = this::runPending;
+	private Scene scene;
+	/** true if {@link #runPending} was queued with Platform.runLater() because there's no scene yet. */
+	private boolean fallbackQueued;
+
+	/** how long the most recent pulse spent running tasks, in nanoseconds. */
+	private long lastPulseTime;
+	/** exponential moving average of {@link #lastPulseTime}, weighted 1/16 towards the newest value. */
+	private long averagePulseTime;
+	/** how many tasks the most recent pulse ran. */
+	private int lastTaskCount;
+
+	/** runs our tasks at the end of every pulse of the provided scene, instead of the previous one. */
+	public void install(Scene scene) {
+		if (this.scene != null) this.scene.removePostLayoutPulseListener(this.pulseListener);
+		this.scene = scene;
+		scene.addPostLayoutPulseListener(this.pulseListener);
+		if (!this.pending.isEmpty()) Platform.requestNextPulse();
+	}
+
+	/** runs the task at the end of the current pulse, or the next one if we're not in a pulse right now. */
+	public void schedule(Runnable task) {
+		if (this.pending.add(task)) this.requestPulse();
+	}
+
+	private void requestPulse() {
+		if (this.scene != null) {
+			//a pulse only happens when something changed, and scheduling a task doesn't count as a change.
+			Platform.requestNextPulse();
+		}
+		else if (!this.fallbackQueued) {
+			this.fallbackQueued = true;
+			Platform.runLater(() -> {
+				this.fallbackQueued = false;
+				this.runPending();
+			});
+		}
+	}
+
+	private void runPending() {
+		if (this.pending.isEmpty()) return;
+		long startTime = System.nanoTime();
+		int taskCount = 0;
+		for (int round = 0; round < MAX_ROUNDS && !this.pending.isEmpty(); round++) {
+			LinkedHashSet<Runnable> running = this.pending;
+			this.pending = this.running;
+			this.running = running;
+			for (Runnable task : running) {
+				taskCount++;
+				try {
+					task.run();
+				}
+				catch (Throwable throwable) {
+					//don't let one task stop the rest from running.
+					throwable.printStackTrace();
+				}
+			}
+			running.clear();
+		}
+		if (!this.pending.isEmpty()) this.requestPulse();
+		long time = this.lastPulseTime = System.nanoTime() - startTime;
+		this.averagePulseTime += (time - this.averagePulseTime) >> 4;
+		this.lastTaskCount = taskCount;
+	}
+
+	/** returns how long the most recent pulse which ran any tasks spent running them, in nanoseconds. */
+	public long getLastPulseTime() {
+		return this.lastPulseTime;
+	}
+
+	/** returns a moving average of how long pulses which run any tasks spend running them, in nanoseconds. */
+	public long getAveragePulseTime() {
+		return this.averagePulseTime;
+	}
+
+	/** returns how many tasks the most recent pulse which ran any tasks ran. */
+	public int getLastTaskCount() {
+		return this.lastTaskCount;
+	}
+}
@@ -0,0 +1,149 @@
+package game.view.boilerplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javafx.application.Platform;
+
+/**
+renders several {@link BufferedCanvasView}'s at the same time, and flushes them together.
+views join a group by passing it to their {@link BufferedCanvasView#BufferedCanvasView(double, double, boolean, RenderGroup) constructor}.
+
+when any view in the group asks to be {@link BufferedCanvasView#render rendered},
+the group waits until the end of the current pulse (via {@link FrameScheduler#INSTANCE}),
+so that every view which wants to be rendered this frame gets a chance to ask.
+then, on the FX application thread, it calls every requested view's
+{@link BufferedCanvasView#prepareRender prepareRender()}, and submits all of their
+{@link BufferedCanvasView#doRender doRender()} calls to the {@link #POOL} at once.
+once every one of them has finished, all of their {@link BufferedCanvasView#flush flush()} methods
+are called together, back on the FX application thread, in the order the views were requested in.
+
+only one frame is ever in progress at a time. views which ask to be rendered
+while a frame is in progress are rendered in the next frame, once the current one is flushed.
+so like {@link RenderThread}, if rendering falls behind, requests are merged instead of queued.
+
+@author Michael Johnston (tky886)
+*/
+public class RenderGroup {
+
+	/** threads used to call doRender(). shared by every group. */
+	private static final ExecutorService POOL = Executors.newFixedThreadPool(
+		Math.max(Math.min(BufferedCanvas.THREAD_COUNT, 4), 2),
+		runnable -> {
+			Thread thread = new Thread(runnable, "Render group worker");
+			thread.setDaemon(true);
+			return thread;
+		}
+	);
+
+	/** views which have asked to be rendered in the next frame. only accessed on the FX application thread. */
+	private final LinkedHashSet<BufferedCanvasView> requested = new LinkedHashSet<>(8);
+	/** true if {@link #startFrame} has been queued, but hasn't run yet. */
+	private boolean startQueued;
+	private final Runnable startFrame = this::startFrame;
+	/** true while a frame is being rendered on the {@link #POOL}. */
+	private boolean rendering;
+
+	/** how long the most recent frame took to render, in nanoseconds. */
+	private volatile long lastFrameTime;
+	/** exponential moving average of {@link #lastFrameTime}, weighted 1/8 towards the newest value. */
+	private volatile long averageFrameTime;
+
+	/** asks for the view to be rendered in the next frame. must be called on the FX application thread. */
+	public void requestRender(BufferedCanvasView view) {
+		this.requested.add(view);
+		this.queueStart();
+	}
+
+	private void queueStart() {
+		if (!this.startQueued && !this.rendering) {
+			this.startQueued = true;
+			FrameScheduler.INSTANCE.schedule(this.startFrame);
+		}
+	}
+
+	/** called on the FX application thread. */
+	private void startFrame() {
+		this.startQueued = false;
+		if (this.requested.isEmpty()) return;
+		List<BufferedCanvasView> views = new ArrayList<>(this.requested);
+		this.requested.clear();
+		this.rendering = true;
+		//from here on, every view needs a task, even if it fails,
+		//because the frame only finishes (and sets rendering back to false) once every task is done.
+		//if a view fails before its task is started, it gets a task that's already done instead.
+		boolean[] succeeded = new boolean[views.size()];
+		CompletableFuture<?>[] tasks = new CompletableFuture<?>[views.size()];
+		for (int index = 0, size = views.size(); index < size; index++) {
+			try {
+				views.get(index).prepareRender();
+			}
+			catch (Throwable throwable) {
+				throwable.printStackTrace();
+				tasks[index] = CompletableFuture.completedFuture(null);
+			}
+		}
+		long startTime = System.nanoTime();
+		for (int index = 0, size = views.size(); index < size; index++) {
+			if (tasks[index] != null) continue;
+			BufferedCanvasView view = views.get(index);
+			int viewIndex = index;
+			try {
+				tasks[index] = CompletableFuture.runAsync(() -> {
+					try {
+						view.doRender();
+						succeeded[viewIndex] = true;
+					}
+					catch (Throwable throwable) {
+						//don't let one view stop the others from being flushed.
+						throwable.printStackTrace();
+					}
+				}, POOL);
+			}
+			catch (Throwable throwable) {
+				throwable.printStackTrace();
+				tasks[index] = CompletableFuture.completedFuture(null);
+			}
+		}
+		CompletableFuture.allOf(tasks).thenRun(() -> {
+			long time = this.lastFrameTime = System.nanoTime() - startTime;
+			this.averageFrameTime += (time - this.averageFrameTime) >> 3;
+			Platform.runLater(() -> this.finishFrame(views, succeeded));
+		});
+	}
+
+	/** called on the FX application thread. */
+	private void finishFrame(List<BufferedCanvasView> views, boolean[] succeeded) {
+		try {
+			for (int index = 0, size = views.size(); index < size; index++) {
+				if (!succeeded[index]) continue;
+				try {
+					views.get(index).flush();
+				}
+				catch (Throwable throwable) {
+					//don't let one view stop the others from being flushed.
+					throwable.printStackTrace();
+				}
+			}
+		}
+		finally {
+			//if this never happened, we would never start another frame.
+			this.rendering = false;
+			if (!this.requested.isEmpty()) this.queueStart();
+		}
+	}
+
+	/** returns how long the most recent frame took to render, in nanoseconds. */
+	public long getLastFrameTime() {
+		return this.lastFrameTime;
+	}
+
+	/** returns a moving average of how long frames take to render, in nanoseconds. */
+	public long getAverageFrameTime() {
+		return this.averageFrameTime;
+	}
+}
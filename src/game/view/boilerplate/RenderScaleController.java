@@ -0,0 +1,79 @@
+package game.view.boilerplate;
+
+/**
+chooses the resolution a view should render at, based on how long its frames take to draw.
+the {@link #getScale scale} is a fraction of the resolution the view is displayed at,
+and is kept between {@link #minScale} and {@link #maxScale}.
+
+the cost of a frame is roughly proportional to the number of pixels in it,
+which is proportional to the square of the scale.
+so when frames take too long, the scale is reduced by the square root of
+how far over {@link #frameBudget} we are. when frames are comfortably
+under budget, the scale is increased slowly, one {@link #STEP} at a time.
+increasing the scale slowly and decreasing it quickly avoids oscillating between 2 scales.
+
+scales are always multiples of {@link #STEP}, so that small fluctuations
+in frame time don't cause the render resolution to change every frame.
+after every change, the average frame time needs some time to catch up,
+so changes are only made once every {@link #COOLDOWN_FRAMES} frames.
+
+@author Michael Johnston (tky886)
+*/
+public class RenderScaleController {
+
+	public static final double STEP = 1.0D / 16.0D;
+	public static final int COOLDOWN_FRAMES = 30;
+	/** frames which take less than this fraction of {@link #frameBudget} allow the scale to increase. */
+	public static final double HEADROOM = 0.625D;
+
+	public double minScale, maxScale;
+	/** how long we would like frames to take to draw, in nanoseconds. */
+	public long frameBudget;
+	private double scale;
+	private int cooldown;
+
+	public RenderScaleController(double minScale, double maxScale, long frameBudget) {
+		this.minScale = minScale;
+		this.maxScale = maxScale;
+		this.frameBudget = frameBudget;
+		this.scale = maxScale;
+	}
+
+	/**
+	called once per frame with the current average time it takes to draw a frame.
+	returns the new scale.
+	*/
+	public double update(long averageFrameTime) {
+		return this.update(averageFrameTime, true);
+	}
+
+	/**
+	same as {@link #update(long)}, but if allowIncrease is false,
+	the scale can only stay the same or decrease.
+	*/
+	public double update(long averageFrameTime, boolean allowIncrease) {
+		if (this.cooldown > 0) {
+			this.cooldown--;
+		}
+		else if (averageFrameTime > 0L) {
+			double newScale = this.scale;
+			if (averageFrameTime > this.frameBudget) {
+				newScale *= Math.sqrt(((double)(this.frameBudget)) / ((double)(averageFrameTime)));
+				newScale = Math.floor(newScale / STEP) * STEP;
+			}
+			else if (allowIncrease && averageFrameTime < this.frameBudget * HEADROOM) {
+				newScale += STEP;
+			}
+			newScale = Math.max(Math.min(newScale, this.maxScale), this.minScale);
+			if (newScale != this.scale) {
+				this.scale = newScale;
+				this.cooldown = COOLDOWN_FRAMES;
+			}
+		}
+		return this.scale;
+	}
+
+	public double getScale() {
+		return this.scale;
+	}
+}
@@ -0,0 +1,184 @@
+package game.view.boilerplate;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import game.common.TripleBuffer;
+import javafx.application.Platform;
+
+/**
+dedicated thread which calls a {@link BufferedCanvasView}'s
+{@link BufferedCanvasView#doRender doRender()} method,
+so that the FX application thread doesn't have to.
+
+frames are drawn into one of 3 {@link PixelBuffer}'s, exchanged via a {@link TripleBuffer}.
+once a frame is finished, the FX application thread is asked to flush it.
+the FX application thread only ever flushes the most recently finished frame,
+and this thread only ever renders the most recently requested frame.
+so if rendering falls behind, frames are skipped instead of queued,
+and the FX application thread is never blocked waiting for a frame to finish.
+
+the screen shows whichever buffer was flushed most recently, which is never the one being drawn on.
+so when a buffer is flushed, it's not enough to only upload what changed in its own last frame;
+everything drawn on the other buffers since it was last flushed changed on the screen too.
+so for every buffer, we keep track of what was drawn on the other buffers since it was last drawn on
+(see {@link #missedRegions}), and add that to its {@link PixelBuffer#dirty dirty} region after drawing on it.
+the buffer's dirty region is cleared when it's flushed,
+so it always covers everything drawn anywhere since it was last flushed.
+
+only the view's {@link BufferedCanvas#pixels} are swapped;
+everything else doRender() touches must be safe to read from this thread.
+
+@author Michael Johnston (tky886)
+*/
+public class RenderThread extends Thread {
+
+	public final BufferedCanvasView view;
+	private final TripleBuffer<PixelBuffer> buffers;
+	/** the same buffers as {@link #buffers}, in no particular order. */
+	private final PixelBuffer[] allBuffers;
+	/**
+	for every buffer in {@link #allBuffers}, the area drawn on the other buffers since this buffer was last drawn on.
+	only accessed from this thread.
+	*/
+	private final DirtyRegion[] missedRegions = { new DirtyRegion(), new DirtyRegion(), new DirtyRegion() };
+	private final AtomicBoolean flushQueued = new AtomicBoolean();
+
+	//guarded by this.
+	private boolean requested;
+	private int requestedWidth, requestedHeight;
+
+	/** number of requested frames which were never drawn because a newer frame was requested first. */
+	private volatile int skippedRenders;
+	/** number of drawn frames which were never flushed because a newer frame finished first. */
+	private volatile int skippedFlushes;
+	/** how long the most recent call to doRender() took, in nanoseconds. */
+	private volatile long lastRenderTime;
+	/** exponential moving average of {@link #lastRenderTime}, weighted 1/8 towards the newest value. */
+	private volatile long averageRenderTime;
+
+	public RenderThread(BufferedCanvasView view) {
+		super("Render thread for " + view.getClass().getSimpleName());
+		this.setDaemon(true);
+		this.view = view;
+		PixelBuffer first = view.canvas.pixels;
+		//the sizes of our buffers are controlled by us now,
+		//and must not change while we're drawing on them.
+		first.width .unbind();
+		first.height.unbind();
+		this.allBuffers = new PixelBuffer[] { first, new PixelBuffer(), new PixelBuffer() };
+		this.buffers = new TripleBuffer<>(this.allBuffers[0], this.allBuffers[1], this.allBuffers[2]);
+	}
+
+	/**
+	asks this thread to draw a new frame at the provided size.
+	if the previous request has not been started yet, it is replaced by this one.
+	*/
+	public void requestRender(int width, int height) {
+		synchronized (this) {
+			if (this.requested) this.skippedRenders++;
+			this.requested = true;
+			this.requestedWidth = width;
+			this.requestedHeight = height;
+			this.notify();
+		}
+	}
+
+	@Override
+	public void run() {
+		while (true) {
+			int width, height;
+			synchronized (this) {
+				while (!this.requested) {
+					try {
+						this.wait();
+					}
+					catch (InterruptedException exception) {
+						return;
+					}
+				}
+				this.requested = false;
+				width  = this.requestedWidth;
+				height = this.requestedHeight;
+			}
+			if (width <= 0 || height <= 0) continue;
+
+			PixelBuffer back = this.buffers.getBack();
+			int backIndex = this.indexOf(back);
+			back.width .set(width);
+			back.height.set(height);
+			//set aside whatever is still dirty from before, so that
+			//after drawing, the dirty region is only what this frame drew.
+			DirtyRegion missed = this.missedRegions[backIndex];
+			missed.add(back.dirty);
+			back.dirty.clear();
+			this.view.canvas.pixels = back;
+			long startTime = System.nanoTime();
+			try {
+				this.view.doRender();
+			}
+			catch (Throwable throwable) {
+				//keep the thread alive so that the next frame still has a chance of working.
+				//this frame is never flushed, so the other buffers don't need to know what it drew,
+				//and this buffer will set it aside along with everything else next time.
+				throwable.printStackTrace();
+				continue;
+			}
+			long time = this.lastRenderTime = System.nanoTime() - startTime;
+			this.averageRenderTime += (time - this.averageRenderTime) >> 3;
+			for (int index = 0; index < this.missedRegions.length; index++) {
+				if (index != backIndex) this.missedRegions[index].add(back.dirty);
+			}
+			back.dirty.add(missed);
+			missed.clear();
+			if (this.buffers.publish()) this.skippedFlushes++;
+			if (this.flushQueued.compareAndSet(false, true)) {
+				Platform.runLater(this::flushLatest);
+			}
+		}
+	}
+
+	private int indexOf(PixelBuffer buffer) {
+		for (int index = 0; index < this.allBuffers.length; index++) {
+			if (this.allBuffers[index] == buffer) return index;
+		}
+		throw new IllegalStateException("Not one of our buffers: " + buffer);
+	}
+
+	/** called on the FX application thread. */
+	private void flushLatest() {
+		this.flushQueued.set(false);
+		if (this.buffers.swapFront()) {
+			this.view.canvas.flush(this.buffers.getFront());
+		}
+	}
+
+	public int getSkippedRenders() {
+		return this.skippedRenders;
+	}
+
+	public int getSkippedFlushes() {
+		return this.skippedFlushes;
+	}
+
+	/** returns how long the most recent frame took to draw, in nanoseconds. */
+	public long getLastRenderTime() {
+		return this.lastRenderTime;
+	}
+
+	/** returns a moving average of how long frames take to draw, in nanoseconds. */
+	public long getAverageRenderTime() {
+		return this.averageRenderTime;
+	}
+
+	/**
+	returns the number of bytes all 3 of our buffers take up.
+	the buffers may be re-allocated while this is running, so this is only approximate.
+	*/
+	public long getAllocatedBytes() {
+		long bytes = 0L;
+		for (PixelBuffer buffer : this.allBuffers) {
+			bytes += buffer.getAllocatedBytes();
+		}
+		return bytes;
+	}
+}
@@ -7,7 +7,7 @@ a Shader is a callback that can draw things on a per-pixel basis using multiple
 these are not GLSL or HLSL shaders, unfortunately. they're pure java.
 Shaders are run in parallel over an area (currently a
 {@link BufferedCanvas#runShaderSquare square}, {@link BufferedCanvas#runShaderCircle circle},
-or {@link BufferedCanvas#runShaderEllipse ellipse}),
+{@link BufferedCanvas#runShaderEllipse ellipse}, or several {@link BufferedCanvas#runShaderCircles circles} at once),
 the Shader will receive a {@link Shader.Context} object which contains
 information about where the Shader should draw things in this invocation.
 
@@ -29,6 +29,10 @@ when modifying the {@link Context#buffer} at these coordinates.
 however, undefined behavior (including possible race conditions) can occur if
 the Shader attempts to modify the {@link Context#buffer} at any other location.
 
+runShader() methods can also take a shading rate, which allows the Shader
+to be run only once per block of pixels, instead of once per pixel.
+see {@link CoarseShading} for what a Shader needs to do to support this.
+
 if the Shader needs to construct additional objects to run,
 it is recommended to store these objects in the Context's {@link Context#perThreadStorage}
 so that these objects can be re-used for all pixels in the region
@@ -44,19 +48,62 @@ public interface Shader {
 
 	public class Context {
 
+		/**
+		the buffer to draw on. when shading at a coarse rate, the corners of blocks
+		are shaded with a different Context, which draws on a different buffer.
+		see {@link CoarseShading}.
+		*/
 		public final PixelBuffer buffer;
+		/**
+		logical units per pixel. see {@link BufferedCanvas#scale}.
+		{@link #x} and {@link #y} are always in pixels,
+		use {@link #getLogicalX()} and {@link #getLogicalY()} for logical coordinates.
+		*/
+		public final double reciprocalScale;
 
 		public int x, y;
+		/**
+		when drawing several shapes at once with {@link BufferedCanvas#runShaderCircles},
+		the index of the shape currently being drawn. otherwise, 0.
+		*/
+		public int instance;
 		/** the {@link PixelBuffer#baseOffset} of our {@link #x} and {@link #y} position. */
 		public int baseOffset;
 		/**
+		shaders which completely overwrite the pixel at our position
+		(without depending on what was there before) should set this to true when they do so.
+		likewise, shaders which decide not to draw anything at our position should set {@link #transparent}.
+		this is how {@link CoarseShading} tells the inside and outside of a shape from its edges,
+		so shaders which never set either are always run at full rate.
+		*/
+		public boolean opaque, transparent;
+		/**
 		null by default, but can be initialized by the shader itself.
 		@see #getPerThreadStorage(Supplier)
 		*/
 		public Object perThreadStorage;
 
 		public Context(PixelBuffer buffer) {
+			this(buffer, 1.0D);
+		}
+
+		public Context(PixelBuffer buffer, double scale) {
+			this.buffer = buffer;
+			this.reciprocalScale = 1.0D / scale;
+		}
+
+		/** creates a Context which draws on the provided buffer, at the same scale as the other Context. */
+		public Context(PixelBuffer buffer, Context other) {
 			this.buffer = buffer;
+			this.reciprocalScale = other.reciprocalScale;
+		}
+
+		public double getLogicalX() {
+			return this.x * this.reciprocalScale;
+		}
+
+		public double getLogicalY() {
+			return this.y * this.reciprocalScale;
 		}
 
 		public void startRow(int x, int y) {
@@ -66,8 +113,7 @@ public interface Shader {
 		}
 
 		public void moveRight() {
-			this.x++;
-			this.baseOffset += PixelBuffer.BYTES_PER_PIXEL;
+			this.baseOffset = this.buffer.advance(this.baseOffset, ++this.x);
 		}
 
 		/**
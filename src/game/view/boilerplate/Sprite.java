@@ -0,0 +1,245 @@
+package game.view.boilerplate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import game.common.Util;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+
+/**
+an {@link Image} (or a region of one) which has been decoded
+into an int[] of premultiplied ARGB colors ahead of time.
+
+Image.getPixelReader().getArgb() is slow: every call looks up the
+image's platform pixels, converts from whatever format they're stored in,
+and un-premultiplies the result, just for us to re-multiply it again in
+{@link PixelBuffer#blendRGB}. doing that for every pixel of every sprite
+every frame adds up. sprites do all of that exactly once.
+
+sprites are drawn with {@link BufferedCanvas#drawSprite}.
+
+most sprites are a round shape in the middle of a transparent square,
+so every row is also split into spans of pixels which are either
+fully opaque, or partially transparent. opaque spans can be copied
+directly into a {@link PixelBuffer} with System.arraycopy(),
+and only partially transparent spans need to be blended.
+fully transparent spans are not stored at all, since there is nothing to draw there.
+
+@author Michael Johnston (tky886)
+*/
+public class Sprite {
+
+	/** sprites for entire images, so that each image is only decoded once. */
+	private static final Map<Image, Sprite> CACHE = new ConcurrentHashMap<>(64);
+
+	public final int width, height;
+	/** premultiplied ARGB colors, row by row, with no padding between rows. */
+	public final int[] pixels;
+	/**
+	bounding box of all pixels which are not fully transparent.
+	min is inclusive, max is exclusive.
+	if the sprite is entirely transparent, minX == maxX and minY == maxY.
+	*/
+	public final int minX, minY, maxX, maxY;
+	/**
+	the same colors as {@link #pixels}, but in {@link PixelBuffer#FORMAT},
+	so that opaque spans can be copied into a PixelBuffer as-is.
+	*/
+	public final byte[] bgra;
+	/**
+	the spans on row y are at indexes rowSpans[y] (inclusive) to rowSpans[y + 1] (exclusive)
+	in {@link #spanStarts}, {@link #spanEnds}, and {@link #spanOpaque}.
+	spans are sorted left to right, and never overlap.
+	*/
+	public final int[] rowSpans;
+	/** x coordinates of the first pixel in each span, inclusive. */
+	public final int[] spanStarts;
+	/** x coordinates of the last pixel in each span, exclusive. */
+	public final int[] spanEnds;
+	/** true if every pixel in the span has an alpha of 255, false if any pixel in it is partially transparent. */
+	public final boolean[] spanOpaque;
+	/** the most recent result of {@link #scaled}. */
+	private volatile Scaled scaled;
+
+	public Sprite(Image image) {
+		this(image, 0, 0, (int)(image.getWidth()), (int)(image.getHeight()));
+	}
+
+	public Sprite(Image image, int x, int y, int width, int height) {
+		this(width, height, decode(image, x, y, width, height));
+	}
+
+	/** pixels must be premultiplied ARGB colors, and will not be copied. */
+	public Sprite(int width, int height, int[] pixels) {
+		this.width  = width;
+		this.height = height;
+		this.pixels = pixels;
+
+		int minX = width, minY = height, maxX = 0, maxY = 0;
+		for (int row = 0, index = 0; row < height; row++) {
+			for (int column = 0; column < width; column++, index++) {
+				if (this.pixels[index] >>> 24 != 0) {
+					if (column <  minX) minX = column;
+					if (column >= maxX) maxX = column + 1;
+					if (row    <  minY) minY = row;
+					maxY = row + 1;
+				}
+			}
+		}
+		if (maxX <= minX) minX = maxX = minY = maxY = 0;
+		this.minX = minX;
+		this.minY = minY;
+		this.maxX = maxX;
+		this.maxY = maxY;
+
+		this.bgra = new byte[width * height * PixelBuffer.BYTES_PER_PIXEL];
+		for (int index = 0, baseOffset = 0; index < this.pixels.length; index++, baseOffset += PixelBuffer.BYTES_PER_PIXEL) {
+			int color = this.pixels[index];
+			this.bgra[baseOffset |   PixelBuffer.RED_OFFSET] = (byte)(color >>> 16);
+			this.bgra[baseOffset | PixelBuffer.GREEN_OFFSET] = (byte)(color >>>  8);
+			this.bgra[baseOffset |  PixelBuffer.BLUE_OFFSET] = (byte)(color       );
+			this.bgra[baseOffset | PixelBuffer.ALPHA_OFFSET] = (byte)(color >>> 24);
+		}
+
+		//first pass counts spans, second pass fills them in.
+		this.rowSpans = new int[height + 1];
+		int spanCount = this.findSpans(null, null, null);
+		this.spanStarts = new int[spanCount];
+		this.spanEnds   = new int[spanCount];
+		this.spanOpaque = new boolean[spanCount];
+		this.findSpans(this.spanStarts, this.spanEnds, this.spanOpaque);
+	}
+
+	/**
+	splits every row into spans of opaque pixels and spans of partially transparent pixels.
+	if the arrays are non-null, the spans are stored in them.
+	returns the total number of spans.
+	*/
+	private int findSpans(int[] starts, int[] ends, boolean[] opaque) {
+		int count = 0;
+		for (int row = 0; row < this.height; row++) {
+			this.rowSpans[row] = count;
+			int index = row * this.width;
+			for (int column = 0; column < this.width;) {
+				int alpha = this.pixels[index + column] >>> 24;
+				if (alpha == 0) {
+					column++;
+					continue;
+				}
+				boolean isOpaque = alpha == 255;
+				int start = column;
+				while (++column < this.width) {
+					alpha = this.pixels[index + column] >>> 24;
+					if (alpha == 0 || (alpha == 255) != isOpaque) break;
+				}
+				if (starts != null) {
+					starts[count] = start;
+					ends  [count] = column;
+					opaque[count] = isOpaque;
+				}
+				count++;
+			}
+		}
+		this.rowSpans[this.height] = count;
+		return count;
+	}
+
+	private static int[] decode(Image image, int x, int y, int width, int height) {
+		int[] pixels = new int[width * height];
+		image.getPixelReader().getPixels(x, y, width, height, PixelFormat.getIntArgbPreInstance(), pixels, 0, width);
+		return pixels;
+	}
+
+	/**
+	returns a copy of this sprite which is (scale) times larger, resampled bilinearly.
+	the most recently requested scale is cached, since it rarely changes.
+	if scale is 1, returns this sprite itself.
+	*/
+	public Sprite scaled(double scale) {
+		if (scale == 1.0D) return this;
+		Scaled scaled = this.scaled;
+		if (scaled == null || scaled.scale != scale) {
+			this.scaled = scaled = new Scaled(scale, this.resample(scale));
+		}
+		return scaled.sprite;
+	}
+
+	private Sprite resample(double scale) {
+		int width  = Math.max((int)(Math.round(this.width  * scale)), 1);
+		int height = Math.max((int)(Math.round(this.height * scale)), 1);
+		double stepX = ((double)(this.width )) / width;
+		double stepY = ((double)(this.height)) / height;
+		int[] pixels = new int[width * height];
+		for (int y = 0, index = 0; y < height; y++) {
+			double sourceY = (y + 0.5D) * stepY - 0.5D;
+			int y0 = Util.clamp(Util.floor(sourceY), 0, this.height - 1);
+			int y1 = Math.min(y0 + 1, this.height - 1);
+			int fracY = Util.clamp((int)((sourceY - y0) * 255.0D + 0.5D), 0, 255);
+			for (int x = 0; x < width; x++, index++) {
+				double sourceX = (x + 0.5D) * stepX - 0.5D;
+				int x0 = Util.clamp(Util.floor(sourceX), 0, this.width - 1);
+				int x1 = Math.min(x0 + 1, this.width - 1);
+				int fracX = Util.clamp((int)((sourceX - x0) * 255.0D + 0.5D), 0, 255);
+				//premultiplied colors can be interpolated directly.
+				pixels[index] = mix(
+					mix(this.getARGB(x0, y0), this.getARGB(x1, y0), fracX),
+					mix(this.getARGB(x0, y1), this.getARGB(x1, y1), fracX),
+					fracY
+				);
+			}
+		}
+		return new Sprite(width, height, pixels);
+	}
+
+	/** returns a cached sprite for the entire image. */
+	public static Sprite of(Image image) {
+		return CACHE.computeIfAbsent(image, Sprite::new);
+	}
+
+	/**
+	splits an image into frames which are arranged horizontally left to right,
+	each (frameWidth) pixels wide and as tall as the image itself.
+	*/
+	public static Sprite[] frames(Image image, int frameWidth) {
+		int height = (int)(image.getHeight());
+		Sprite[] frames = new Sprite[((int)(image.getWidth())) / frameWidth];
+		for (int index = 0; index < frames.length; index++) {
+			frames[index] = new Sprite(image, index * frameWidth, 0, frameWidth, height);
+		}
+		return frames;
+	}
+
+	public int getARGB(int x, int y) {
+		return this.pixels[y * this.width + x];
+	}
+
+	/** multiplies all 4 channels of a premultiplied color by opacity, which is in the [0, 255] range. */
+	public static int scale(int argb, int opacity) {
+		return PixelBuffer.multiplyARGB(argb, opacity);
+	}
+
+	/**
+	interpolates between 2 premultiplied colors.
+	an amount of 0 returns from, and an amount of 255 returns to.
+	*/
+	public static int mix(int from, int to, int amount) {
+		return (
+			(PixelBuffer.blend((from >>> 24)      , (to >>> 24)      , amount) << 24) |
+			(PixelBuffer.blend((from >>> 16) & 255, (to >>> 16) & 255, amount) << 16) |
+			(PixelBuffer.blend((from >>>  8) & 255, (to >>>  8) & 255, amount) <<  8) |
+			(PixelBuffer.blend((from       ) & 255, (to       ) & 255, amount)      )
+		);
+	}
+
+	private static class Scaled {
+
+		final double scale;
+		final Sprite sprite;
+
+		Scaled(double scale, Sprite sprite) {
+			this.scale = scale;
+			this.sprite = sprite;
+		}
+	}
+}
@@ -1,11 +1,19 @@
 package game.view.entities;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
 import game.common.AbstractValueNoiseGrid.ValueAndDerivativeHolder;
+import game.common.NoiseGrid;
 import game.common.Util;
 import game.common.VoronoiGrid;
 import game.common.VoronoiGrid.SeedPoint;
 import game.model.entities.AsteroidEntity;
 import game.view.GameView;
+import game.view.boilerplate.CoverageMask;
 import game.view.boilerplate.PixelBuffer;
 
 /** @author Michael Johnston (tky886) */
@@ -13,23 +21,148 @@ public class AsteroidView implements EntityView<AsteroidEntity> {
 
 	private static final float NEGATIVE_RECIPROCAL_SQRT_2 = (float)(-1.0D / Math.sqrt(2.0D));
 
+	private static final double OPAQUE_MARGIN = 0x1.0p-8D;
+	private static final int OPAQUE_CELLS = 32;
+
+	/**
+	the shading rate asteroids ask for, while they aren't shattering.
+	their lighting changes slowly, so it is still smooth when only shaded once per block of pixels,
+	but the actual rate is also capped by the {@link GameView#quality quality}.
+	shattering asteroids are always shaded at full rate, since their cracks are too thin for blocks.
+	see {@link game.view.boilerplate.CoarseShading}.
+	*/
+	public static int SHADING_RATE = 4;
+
 	public static final AsteroidView INSTANCE = new AsteroidView();
 
+	/**
+	cache for {@link #getOpaqueRadius}, keyed by {@link AsteroidEntity#heightNoise},
+	since that is shared between an asteroid and its render copies.
+	the value at index (layers) is the radius for that many layers, or NaN if it hasn't been computed yet.
+	only accessed from the thread that renders the {@link GameView}.
+	*/
+	private final Map<NoiseGrid, double[]> opaqueRadii = new WeakHashMap<>(16);
+	/**
+	the circles passed to {@link game.view.boilerplate.BufferedCanvas#runShaderCircles runShaderCircles()},
+	re-used between frames. only accessed from the thread that renders the {@link GameView}.
+	*/
+	private double[] centerX = new double[0], centerY = new double[0], radius = new double[0];
+	private int[] rates = new int[0];
+
 	@Override
 	public void render(AsteroidEntity asteroid, GameView gameView) {
-		gameView.canvas.runShaderCircle(asteroid.x, asteroid.y, asteroid.size, context -> {
-			ShaderThreadVariables variables = context.getPerThreadStorage();
-			if (variables == null) variables = context.setPerThreadStorage(new ShaderThreadVariables(asteroid.shatterNoise));
+		this.renderBatch(Collections.singletonList(asteroid), gameView);
+	}
 
-			if (asteroid.getSurfaceNormal(context.x - asteroid.x, context.y - asteroid.y, variables.seedPoint, variables.surfaceVec)) {
+	/** draws all the asteroids in one parallel pass. */
+	@Override
+	public void renderBatch(List<AsteroidEntity> asteroids, GameView gameView) {
+		int count = asteroids.size();
+		int layers = gameView.quality.asteroidLayers;
+		if (this.rates.length < count) {
+			int capacity = Math.max(count, this.rates.length << 1);
+			this.centerX = new double[capacity];
+			this.centerY = new double[capacity];
+			this.radius  = new double[capacity];
+			this.rates   = new int   [capacity];
+		}
+		double[] centerX = this.centerX, centerY = this.centerY, radius = this.radius;
+		int[] rates = this.rates;
+		for (int index = 0; index < count; index++) {
+			AsteroidEntity asteroid = asteroids.get(index);
+			centerX[index] = asteroid.x;
+			centerY[index] = asteroid.y;
+			radius [index] = asteroid.size;
+			rates  [index] = asteroid.integrity > 0.0D ? SHADING_RATE : 1;
+		}
+		gameView.canvas.runShaderCircles(count, centerX, centerY, radius, rates, context -> {
+			//one set of variables per asteroid, since every asteroid has its own shatterNoise.
+			ShaderThreadVariables[] allVariables = context.getPerThreadStorage();
+			if (allVariables == null) allVariables = context.setPerThreadStorage(new ShaderThreadVariables[count]);
+			AsteroidEntity asteroid = asteroids.get(context.instance);
+			ShaderThreadVariables variables = allVariables[context.instance];
+			if (variables == null) variables = allVariables[context.instance] = new ShaderThreadVariables(asteroid.shatterNoise);
+
+			if (asteroid.getSurfaceNormal(context.getLogicalX() - asteroid.x, context.getLogicalY() - asteroid.y, layers, variables.seedPoint, variables.surfaceVec)) {
 				float brightness = (variables.surfaceVec.partialDerivativeX + variables.surfaceVec.partialDerivativeY) * NEGATIVE_RECIPROCAL_SQRT_2;
 				brightness = brightness * 0.5F + 0.5F;
 				brightness *= Util.mix(0.5F, 2.0F - brightness, asteroid.brightness);
 				context.buffer.setGrayscale(context.baseOffset, PixelBuffer.f2i(brightness));
+				context.opaque = true;
+			}
+			else {
+				context.transparent = true;
 			}
 		});
 	}
 
+	/**
+	adds the {@link #getOpaqueRadius opaque interior} of every asteroid which isn't shattering.
+	shattering asteroids have transparent cracks which could be anywhere.
+	*/
+	@Override
+	public void addCoverage(List<AsteroidEntity> asteroids, GameView gameView, CoverageMask mask) {
+		int layers = gameView.quality.asteroidLayers;
+		double scale = gameView.canvas.scale;
+		for (int index = 0, size = asteroids.size(); index < size; index++) {
+			AsteroidEntity asteroid = asteroids.get(index);
+			if (asteroid.integrity <= 0.0D) continue;
+			mask.addCircle(asteroid.x * scale, asteroid.y * scale, this.getOpaqueRadius(asteroid, layers) * scale);
+		}
+	}
+
+	/**
+	returns a radius around the asteroid's center inside which it is guaranteed to be solid,
+	when shaded with the provided number of layers.
+	the asteroid's height is its noise plus a bias which decreases with distance from its center,
+	and it is solid wherever its height is positive.
+	so we split the area around the center into {@link #OPAQUE_CELLS} by {@link #OPAQUE_CELLS} cells,
+	and for each one, check whether the smallest bias anywhere in the cell plus the
+	{@link NoiseGrid#getLowerBound lowest the noise could possibly be} anywhere in the cell is positive.
+	the radius is the distance to the closest cell where it isn't.
+	a disk around the center looks the same no matter how the asteroid is rotated,
+	so the result only needs to be computed once per asteroid, and is cached.
+	*/
+	public double getOpaqueRadius(AsteroidEntity asteroid, int layers) {
+		NoiseGrid noise = asteroid.heightNoise;
+		layers = Math.min(layers, noise.getLayerCount());
+		double[] radii = this.opaqueRadii.get(noise);
+		if (radii == null) {
+			radii = new double[noise.getLayerCount() + 1];
+			Arrays.fill(radii, Double.NaN);
+			this.opaqueRadii.put(noise, radii);
+		}
+		double radius = radii[layers];
+		if (Double.isNaN(radius)) {
+			//the bias is 1 - 2 * (distance / size) ^ 2, which is 0 at size / sqrt(2),
+			//and the noise can't be positive everywhere, so the answer is always smaller than that.
+			double extent = asteroid.size * Math.sqrt(0.5D);
+			double cellSize = extent * 2.0D / OPAQUE_CELLS;
+			radius = extent;
+			for (int cellY = 0; cellY < OPAQUE_CELLS; cellY++) {
+				double minY = cellY * cellSize - extent, maxY = minY + cellSize;
+				for (int cellX = 0; cellX < OPAQUE_CELLS; cellX++) {
+					double minX = cellX * cellSize - extent, maxX = minX + cellSize;
+					double closest = Math.sqrt(Util.square(closestToZero(minX, maxX), closestToZero(minY, maxY)));
+					if (closest >= radius) continue;
+					double farthest = Math.sqrt(Util.square(Math.max(-minX, maxX), Math.max(-minY, maxY)));
+					double bias = 1.0D - 2.0D * Util.square(farthest * asteroid.reciprocalSize);
+					//a little margin, so that float rounding in the shader can't make an edge pixel transparent.
+					if (bias + noise.getLowerBound(0, layers, minX, minY, maxX, maxY) <= OPAQUE_MARGIN) {
+						radius = closest;
+					}
+				}
+			}
+			radii[layers] = radius;
+		}
+		return radius;
+	}
+
+	/** returns the number between min and max which is closest to 0. */
+	private static double closestToZero(double min, double max) {
+		return min > 0.0D ? min : max < 0.0D ? max : 0.0D;
+	}
+
 	private static class ShaderThreadVariables {
 
 		final ValueAndDerivativeHolder surfaceVec;
@@ -0,0 +1,274 @@
+package game.view.entities;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import game.common.LruCache;
+import game.common.NoiseGrid;
+import game.common.Util;
+import game.model.entities.BackgroundEntity;
+import game.view.boilerplate.BufferedCanvas;
+import game.view.boilerplate.PixelBuffer;
+
+/**
+the background only ever scrolls; it never changes.
+so instead of evaluating its noise for every pixel on the screen every frame,
+we evaluate it once for square tiles of world space, and keep the tiles around.
+every frame, the visible tiles are just copied onto the screen.
+the only tiles which need to be generated are the ones which are scrolling into view,
+and those are generated ahead of time on {@link #PREFETCHER} threads whenever possible.
+
+world space is the background's noise space multiplied by the canvas's
+{@link game.view.boilerplate.BufferedCanvas#scale scale}, so that 1 unit of world space is 1 pixel.
+a pixel at screen position (x, y) is at world position
+(x - floor(background.x * scale), y - floor(background.y * scale)).
+flooring the background's position means it scrolls in whole pixels,
+which is what allows tiles to be copied as-is instead of being resampled.
+{@link BackgroundView}'s direct path floors the position the same way, and anchors its dithering the same way,
+so the two paths draw the same background. they are not quite byte-for-byte identical though:
+the coarse grid is aligned to tiles here, but to the screen there,
+so interpolated values can round differently by 1 color step.
+
+tiles are stored in an {@link LruCache}, which evicts tiles
+which haven't been visible for a while once the memory limit is reached.
+tiles are keyed by their scale and number of
+{@link game.view.QualityGovernor.Level#droppedBackgroundLayers dropped layers} as well as their position,
+so when either of those changes, the old tiles aren't thrown away all at once.
+they just stop being visible, and get evicted like any other tile.
+if they change back soon after (which the render scale and quality level tend to do), the old tiles are still there.
+only a new background (with different noise) invalidates every tile.
+
+@author Michael Johnston (tky886)
+*/
+public class BackgroundTileCache {
+
+	public static final int TILE_SHIFT = 7;
+	public static final int TILE_SIZE = 1 << TILE_SHIFT;
+	public static final int TILE_BYTES = TILE_SIZE * TILE_SIZE * PixelBuffer.BYTES_PER_PIXEL;
+
+	/** threads used to generate tiles before they become visible. */
+	private static final ExecutorService PREFETCHER = Executors.newFixedThreadPool(
+		Math.max(BufferedCanvas.THREAD_COUNT >> 1, 1),
+		runnable -> {
+			Thread thread = new Thread(runnable, "Background tile prefetcher");
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		}
+	);
+
+	private final LruCache<TileKey, PixelBuffer> tiles;
+	/** tiles which are currently being generated by the {@link #PREFETCHER}. */
+	private final ConcurrentHashMap<TileKey, CompletableFuture<PixelBuffer>> pending = new ConcurrentHashMap<>(16);
+	/**
+	the noise that all our tiles were generated from. if the background changes, all our tiles are invalid.
+	this is only accessed while holding {@link #tiles}'s lock,
+	so that a prefetched tile can't be added to the cache right after the cache was invalidated.
+	*/
+	private NoiseGrid noise;
+	/** how many rows of tiles above the top of the screen to generate in advance. */
+	public int prefetchRows = 1;
+
+	/** re-used between frames to avoid re-allocating it. */
+	private PixelBuffer[] visibleTiles = new PixelBuffer[0];
+
+	public BackgroundTileCache(long maxBytes) {
+		this.tiles = new LruCache<>(maxBytes, tile -> TILE_BYTES);
+	}
+
+	public void setMaxBytes(long maxBytes) {
+		this.tiles.setMaxWeight(maxBytes);
+	}
+
+	public LruCache<TileKey, PixelBuffer> getTiles() {
+		return this.tiles;
+	}
+
+	public void render(BackgroundEntity background, PixelBuffer pixels, double scale, int droppedLayers) {
+		NoiseGrid noise = background.noise;
+		synchronized (this.tiles) {
+			if (this.noise != noise) {
+				this.noise = noise;
+				this.tiles.clear();
+				//any tiles still being generated will notice that
+				//the noise changed, and won't add themselves to the cache.
+				this.pending.clear();
+			}
+		}
+
+		int width   = pixels.width .intValue();
+		int height  = pixels.height.intValue();
+		int originX = Util.floor(background.x * scale);
+		int originY = Util.floor(background.y * scale);
+		int minTileX = Math.floorDiv(        -originX, TILE_SIZE);
+		int minTileY = Math.floorDiv(        -originY, TILE_SIZE);
+		int maxTileX = Math.floorDiv(width  - 1 - originX, TILE_SIZE);
+		int maxTileY = Math.floorDiv(height - 1 - originY, TILE_SIZE);
+		int tilesX = maxTileX - minTileX + 1;
+		int tilesY = maxTileY - minTileY + 1;
+
+		PixelBuffer[] visibleTiles = this.visibleTiles;
+		if (visibleTiles.length < tilesX * tilesY) {
+			visibleTiles = this.visibleTiles = new PixelBuffer[tilesX * tilesY];
+		}
+		List<TileKey> missing = null;
+		for (int tileY = minTileY; tileY <= maxTileY; tileY++) {
+			for (int tileX = minTileX; tileX <= maxTileX; tileX++) {
+				TileKey key = new TileKey(tileX, tileY, scale, droppedLayers);
+				PixelBuffer tile = this.getReadyTile(key);
+				if (tile == null) {
+					if (missing == null) missing = new ArrayList<>();
+					missing.add(key);
+				}
+				visibleTiles[(tileY - minTileY) * tilesX + (tileX - minTileX)] = tile;
+			}
+		}
+		if (missing != null) {
+			//nothing prefetched these (or prefetching them failed), so generate them ourselves, right now.
+			final PixelBuffer[] visible = visibleTiles;
+			missing.parallelStream().forEach(key -> {
+				PixelBuffer tile = generateTile(background, key.tileX, key.tileY, scale, droppedLayers);
+				this.tiles.put(key, tile);
+				visible[(key.tileY - minTileY) * tilesX + (key.tileX - minTileX)] = tile;
+			});
+		}
+
+		for (int tileY = minTileY - this.prefetchRows; tileY < minTileY; tileY++) {
+			for (int tileX = minTileX; tileX <= maxTileX; tileX++) {
+				this.prefetch(background, tileX, tileY, scale, droppedLayers);
+			}
+		}
+
+		final PixelBuffer[] visible = visibleTiles;
+		int threads = Math.min(BufferedCanvas.THREAD_COUNT, height);
+		IntStream.range(0, threads).parallel().forEach(thread -> {
+			int minY = height * thread / threads;
+			int maxY = height * (thread + 1) / threads;
+			for (int y = minY; y < maxY; y++) {
+				int worldY = y - originY;
+				int tileRow = (Math.floorDiv(worldY, TILE_SIZE) - minTileY) * tilesX;
+				int rowOffset = (worldY & (TILE_SIZE - 1)) << (TILE_SHIFT + PixelBuffer.BYTES_PER_PIXEL_SHIFT);
+				for (int x = 0; x < width;) {
+					int worldX = x - originX;
+					int tileColumn = Math.floorDiv(worldX, TILE_SIZE) - minTileX;
+					int startInTile = worldX & (TILE_SIZE - 1);
+					int length = Math.min(TILE_SIZE - startInTile, width - x);
+					pixels.copySpan(
+						x,
+						y,
+						visible[tileRow + tileColumn].getBackingArray(),
+						rowOffset + (startInTile << PixelBuffer.BYTES_PER_PIXEL_SHIFT),
+						length
+					);
+					x += length;
+				}
+			}
+		});
+	}
+
+	/**
+	returns the tile with this key if it is cached.
+	if it is currently being prefetched, waits for that to finish.
+	otherwise, or if prefetching it failed, returns null.
+	*/
+	private PixelBuffer getReadyTile(TileKey key) {
+		PixelBuffer tile = this.tiles.get(key);
+		if (tile == null) {
+			CompletableFuture<PixelBuffer> future = this.pending.get(key);
+			if (future != null) {
+				try {
+					tile = future.join();
+				}
+				catch (CompletionException | CancellationException exception) {
+					//don't fail the whole frame; the caller will generate the tile itself.
+					exception.printStackTrace();
+				}
+			}
+		}
+		return tile;
+	}
+
+	private void prefetch(BackgroundEntity background, int tileX, int tileY, double scale, int droppedLayers) {
+		TileKey key = new TileKey(tileX, tileY, scale, droppedLayers);
+		if (this.tiles.containsKey(key) || this.pending.containsKey(key)) return;
+		NoiseGrid noise = background.noise;
+		CompletableFuture<PixelBuffer> future = new CompletableFuture<>();
+		if (this.pending.putIfAbsent(key, future) != null) return;
+		PREFETCHER.execute(() -> {
+			try {
+				PixelBuffer tile = generateTile(background, tileX, tileY, scale, droppedLayers);
+				//checked under the same lock that render() invalidates under,
+				//so the background can't change between the check and the put.
+				synchronized (this.tiles) {
+					if (this.noise == noise) this.tiles.put(key, tile);
+				}
+				future.complete(tile);
+			}
+			catch (Throwable throwable) {
+				future.completeExceptionally(throwable);
+			}
+			finally {
+				this.pending.remove(key, future);
+			}
+		});
+	}
+
+	public static PixelBuffer generateTile(BackgroundEntity background, int tileX, int tileY, double scale, int droppedLayers) {
+		//tiles are copied a row at a time, so they are always row-major.
+		PixelBuffer tile = new PixelBuffer(TILE_SIZE, TILE_SIZE, PixelBuffer.Layout.ROW_MAJOR);
+		int worldX = tileX << TILE_SHIFT;
+		int worldY = tileY << TILE_SHIFT;
+		double noiseStep = 1.0D / scale;
+		BackgroundView.renderBlock(background, droppedLayers, worldX * noiseStep, worldY * noiseStep, noiseStep, worldX, worldY, tile, 0, 0, TILE_SIZE, TILE_SIZE, null);
+		return tile;
+	}
+
+	/** identifies a tile by its position in tiles, and everything else which affects what it looks like. */
+	public static final class TileKey {
+
+		public final int tileX, tileY;
+		public final double scale;
+		public final int droppedLayers;
+
+		public TileKey(int tileX, int tileY, double scale, int droppedLayers) {
+			this.tileX = tileX;
+			this.tileY = tileY;
+			this.scale = scale;
+			this.droppedLayers = droppedLayers;
+		}
+
+		@Override
+		public int hashCode() {
+			int hash = Double.hashCode(this.scale);
+			hash = hash * 31 + this.droppedLayers;
+			hash = hash * 31 + this.tileX;
+			hash = hash * 31 + this.tileY;
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (this == object) return true;
+			if (!(object instanceof TileKey)) return false;
+			TileKey that = (TileKey)(object);
+			return (
+				this.tileX == that.tileX &&
+				this.tileY == that.tileY &&
+				Double.compare(this.scale, that.scale) == 0 &&
+				this.droppedLayers == that.droppedLayers
+			);
+		}
+
+		@Override
+		public String toString() {
+			return "TileKey(" + this.tileX + ", " + this.tileY + ", scale: " + this.scale + ", dropped layers: " + this.droppedLayers + ')';
+		}
+	}
+}
@@ -1,20 +1,81 @@
 package game.view.entities;
 
+import java.util.Arrays;
 import java.util.stream.IntStream;
 
+import game.common.NoiseGrid;
+import game.common.Util;
 import game.model.entities.BackgroundEntity;
 import game.view.GameView;
 import game.view.boilerplate.BufferedCanvas;
+import game.view.boilerplate.CoverageMask;
 import game.view.boilerplate.Dithering;
 import game.view.boilerplate.PixelBuffer;
 
 /** @author Michael Johnston (tky886) */
 public class BackgroundView implements EntityView<BackgroundEntity> {
 
+	/**
+	when enabled, the background is drawn from a {@link BackgroundTileCache}
+	instead of evaluating its noise for every pixel every frame.
+	*/
+	public static boolean USE_TILE_CACHE = true;
+	/** memory limit for {@link #tileCache}. 32 MB is enough for about 512 tiles, or 2 1440p screens. */
+	public static final long DEFAULT_TILE_CACHE_BYTES = 32L << 20;
+	/**
+	layers of the background's noise before this index are low-frequency enough
+	that they can be evaluated on a coarse grid and interpolated,
+	instead of being evaluated for every pixel.
+	layers at or after this index are still evaluated for every pixel.
+	0 disables the coarse grid entirely.
+	the default was chosen with {@link #measureSplitError}.
+	with a {@link #COARSE_SHIFT} of 3, it keeps the largest color error
+	under 1/2 of a color step, which the dithering hides completely.
+	*/
+	public static int SPLIT_LAYER = 5;
+	/**
+	distance between coarse grid points is 1 << COARSE_SHIFT pixels.
+	this must not be larger than the size of any layer before {@link #SPLIT_LAYER}.
+	*/
+	public static int COARSE_SHIFT = 3;
+	/** when enabled, {@link #starfield decorative stars} are drawn on top of the background. */
+	public static boolean USE_STARFIELD = true;
+
 	public static final BackgroundView INSTANCE = new BackgroundView();
 
+	public final BackgroundTileCache tileCache = new BackgroundTileCache(DEFAULT_TILE_CACHE_BYTES);
+	public final Starfield starfield = new Starfield(Starfield.DEFAULT_MAX_BYTES);
+
 	@Override
 	public void render(BackgroundEntity background, GameView gameView) {
+		this.render(background, gameView, null);
+	}
+
+	/**
+	same as {@link #render(BackgroundEntity, GameView)},
+	but pixels which are covered by the mask are not drawn.
+	the mask can be null, in which case every pixel is drawn.
+	the mask is ignored when {@link #USE_TILE_CACHE} is enabled,
+	because copying a pixel from a tile is about as cheap as checking whether it needs to be copied.
+	stars are always drawn in full, since they're tiny anyways.
+	*/
+	public void render(BackgroundEntity background, GameView gameView, CoverageMask mask) {
+		//writes to the pixels directly, so nothing else will mark them.
+		gameView.canvas.pixels.markAllDirty();
+		if (USE_TILE_CACHE) {
+			this.tileCache.render(background, gameView.canvas.pixels, gameView.canvas.scale, gameView.quality.droppedBackgroundLayers);
+		}
+		else {
+			this.renderNoise(background, gameView, mask);
+		}
+		//stars scroll at different speeds than the noise, so they can't be part of the tiles.
+		if (USE_STARFIELD) {
+			this.starfield.render(background, gameView.canvas);
+		}
+	}
+
+	/** evaluates the noise for every pixel which isn't covered by the mask. */
+	private void renderNoise(BackgroundEntity background, GameView gameView, CoverageMask mask) {
 		//normally when using a Shader, the Context's perThreadStorage
 		//is intended to be mutated for every pixel drawn.
 		//but in this case the data we would normally want
@@ -31,30 +92,250 @@ public class BackgroundView implements EntityView<BackgroundEntity> {
 		//this probably won't make it *much* faster,
 		//but I kind of want to save every nanosecond I can.
 		PixelBuffer pixels = gameView.canvas.pixels;
+		int droppedLayers = gameView.quality.droppedBackgroundLayers;
+		double noiseStep = 1.0D / gameView.canvas.scale;
 		int width   = pixels.width.intValue();
 		int height  = pixels.height.intValue();
+		//scroll in whole pixels, and anchor the dithering in world space,
+		//the same way the BackgroundTileCache does,
+		//so that toggling USE_TILE_CACHE doesn't shift the background around.
+		int originX = Util.floor(background.x * gameView.canvas.scale);
+		int originY = Util.floor(background.y * gameView.canvas.scale);
 		int threads = Math.min(BufferedCanvas.THREAD_COUNT, height);
-		IntStream.range(0, BufferedCanvas.THREAD_COUNT).parallel().forEach(thread -> {
+		IntStream.range(0, threads).parallel().forEach(thread -> {
 			int minY = height * thread / threads;
 			int maxY = height * (thread + 1) / threads;
-			float[] values = new float[width];
-			for (int y = minY; y < maxY; y++) {
-				int baseOffset = pixels.rowOffset(y);
-				background.getNoiseValuesX(-background.x, y - background.y, width, values);
-				for (int x = 0; x < width; x++) {
-					float value = values[x];
-					assert value >= 0.0F && value <= 1.0F;
-					float commonFactor = value * (2.0F - value) * 255.0F; //used by the red and blue channels.
-					float dithering = Dithering.getFloat(x, y);
-					pixels.setRGB(
-						baseOffset,
-						(int)(value * commonFactor + dithering),
-						(int)(value * value * 255.0F + dithering),
-						(int)(commonFactor + dithering)
-					);
-					baseOffset += PixelBuffer.BYTES_PER_PIXEL;
-				}
+			renderBlock(background, droppedLayers, -originX * noiseStep, (minY - originY) * noiseStep, noiseStep, -originX, minY - originY, pixels, 0, minY, width, maxY - minY, mask);
+		});
+	}
+
+	/**
+	draws a (width) by (height) block of background,
+	with its top left corner at (pixelX, pixelY) in pixels.
+	the noise is sampled starting at (noiseX, noiseY), and advances by noiseStep per pixel.
+	the dithering pattern starts at (ditherX, ditherY).
+	the finest droppedLayers layers of noise which would otherwise be visible are skipped.
+	pixels which are covered by the mask (if it isn't null) are skipped too.
+	*/
+	public static void renderBlock(
+		BackgroundEntity background,
+		int droppedLayers,
+		double noiseX,
+		double noiseY,
+		double noiseStep,
+		int ditherX,
+		int ditherY,
+		PixelBuffer pixels,
+		int pixelX,
+		int pixelY,
+		int width,
+		int height,
+		CoverageMask mask
+	) {
+		sampleBlock(background, droppedLayers, SPLIT_LAYER, COARSE_SHIFT, noiseX, noiseY, noiseStep, width, height, mask, pixelX, pixelY, (y, values) -> {
+			if (mask == null) {
+				colorRow(values, pixels, pixelX, pixelY + y, ditherX, ditherY + y, 0, width);
+			}
+			else {
+				mask.forEachGap(pixelY + y, pixelX, pixelX + width, (start, end) -> {
+					colorRow(values, pixels, pixelX, pixelY + y, ditherX, ditherY + y, start - pixelX, end - pixelX);
+				});
+			}
+		});
+	}
+
+	/** converts values from (inclusive) minX to (exclusive) maxX into colors, and stores them on row pixelY. */
+	private static void colorRow(float[] values, PixelBuffer pixels, int pixelX, int pixelY, int ditherX, int ditherY, int minX, int maxX) {
+		int baseOffset = pixels.baseOffset(pixelX + minX, pixelY);
+		for (int x = minX; x < maxX; x++) {
+			float value = values[x];
+			assert value >= 0.0F && value <= 1.0F;
+			float commonFactor = value * (2.0F - value) * 255.0F; //used by the red and blue channels.
+			float dithering = Dithering.getFloat(ditherX + x, ditherY);
+			pixels.setRGB(
+				baseOffset,
+				(int)(value * commonFactor + dithering),
+				(int)(value * value * 255.0F + dithering),
+				(int)(commonFactor + dithering)
+			);
+			baseOffset = pixels.advance(baseOffset, pixelX + x + 1);
+		}
+	}
+
+	/**
+	computes the background's noise values for a (width) by (height) block,
+	starting at (noiseX, noiseY) and advancing by noiseStep per pixel,
+	and passes them to the action one row at a time.
+	the values array passed to the action is re-used for every row.
+
+	layers before splitLayer are evaluated once every (1 << coarseShift) pixels
+	in both directions, and bilinearly interpolated in between.
+	the remaining layers are evaluated for every pixel.
+	a splitLayer of 0 evaluates everything for every pixel.
+
+	layers which are smaller than a pixel (which can happen when
+	rendering at a low resolution) are skipped entirely.
+	they would only add aliasing, and they average out to 0 anyway.
+	after that, the finest droppedLayers of the remaining layers are skipped too,
+	which trades detail for speed.
+
+	if the mask isn't null, the position (x, y) in the block is at (maskX + x, maskY + y) in the mask,
+	and values for pixels which are covered by the mask are not computed.
+	the values at those positions will be garbage.
+	*/
+	public static void sampleBlock(
+		BackgroundEntity background,
+		int droppedLayers,
+		int splitLayer,
+		int coarseShift,
+		double noiseX,
+		double noiseY,
+		double noiseStep,
+		int width,
+		int height,
+		CoverageMask mask,
+		int maskX,
+		int maskY,
+		NoiseRowAction action
+	) {
+		NoiseGrid noise = background.noise;
+		int layerCount = Math.max(countLayersAtLeast(noise, noiseStep) - droppedLayers, 0);
+		float[] values = new float[width];
+		if (splitLayer <= 0 || coarseShift <= 0) {
+			for (int y = 0; y < height; y++) {
+				Arrays.fill(values, 0.5F);
+				sampleRow(noise, 0, layerCount, noiseX, noiseY + y * noiseStep, noiseStep, values, width, mask, maskX, maskY + y);
+				action.accept(y, values);
+			}
+			return;
+		}
+		int step = 1 << coarseShift;
+		double coarseNoiseStep = step * noiseStep;
+		splitLayer = Math.min(Math.min(splitLayer, countLayersAtLeast(noise, coarseNoiseStep)), layerCount);
+		int stepMask = step - 1;
+		float reciprocalStep = 1.0F / step;
+		int coarseWidth = ((width + stepMask) >> coarseShift) + 1;
+		float[] top    = new float[coarseWidth];
+		float[] bottom = new float[coarseWidth];
+		float[] row    = new float[coarseWidth];
+		sampleCoarseRow(noise, splitLayer, noiseX, noiseY, coarseNoiseStep, bottom);
+		for (int y = 0; y < height; y++) {
+			if ((y & stepMask) == 0) {
+				float[] tmp = top;
+				top = bottom;
+				bottom = tmp;
+				sampleCoarseRow(noise, splitLayer, noiseX, noiseY + (y + step) * noiseStep, coarseNoiseStep, bottom);
+			}
+			float fracY = (y & stepMask) * reciprocalStep;
+			for (int x = 0; x < coarseWidth; x++) {
+				row[x] = Util.mix(top[x], bottom[x], fracY);
+			}
+			for (int x = 0; x < width; x++) {
+				int coarseX = x >> coarseShift;
+				values[x] = Util.mix(row[coarseX], row[coarseX + 1], (x & stepMask) * reciprocalStep);
+			}
+			sampleRow(noise, splitLayer, layerCount, noiseX, noiseY + y * noiseStep, noiseStep, values, width, mask, maskX, maskY + y);
+			action.accept(y, values);
+		}
+	}
+
+	/** adds layers from fromLayer to toLayer to the values for every pixel which isn't covered by the mask. */
+	private static void sampleRow(
+		NoiseGrid noise,
+		int fromLayer,
+		int toLayer,
+		double noiseX,
+		double noiseY,
+		double noiseStep,
+		float[] values,
+		int width,
+		CoverageMask mask,
+		int maskX,
+		int maskY
+	) {
+		if (mask == null) {
+			noise.getValuesX(fromLayer, toLayer, noiseX, noiseY, noiseStep, values, 0, width);
+		}
+		else {
+			mask.forEachGap(maskY, maskX, maskX + width, (start, end) -> {
+				noise.getValuesX(fromLayer, toLayer, noiseX + (start - maskX) * noiseStep, noiseY, noiseStep, values, start - maskX, end - start);
+			});
+		}
+	}
+
+	private static void sampleCoarseRow(NoiseGrid noise, int splitLayer, double noiseX, double noiseY, double noiseStep, float[] out) {
+		Arrays.fill(out, 0.5F);
+		noise.getValuesX(0, splitLayer, noiseX, noiseY, noiseStep, out, 0, out.length);
+	}
+
+	/** layers get smaller as their index increases, so this is also the index of the first layer smaller than size. */
+	private static int countLayersAtLeast(NoiseGrid noise, double size) {
+		int count = 0;
+		while (count < noise.getLayerCount() && noise.getLayer(count).size >= size) count++;
+		return count;
+	}
+
+	/**
+	compares the colors produced with the provided splitLayer and coarseShift
+	to the colors produced when evaluating every layer for every pixel,
+	over a (size) by (size) block of background.
+	errors are measured per color channel, in color steps (1/255ths), before dithering.
+	*/
+	public static SplitError measureSplitError(BackgroundEntity background, int splitLayer, int coarseShift, int size) {
+		float[][] reference = new float[size][];
+		sampleBlock(background, 0, 0, 0, 0.0D, 0.0D, 1.0D, size, size, null, 0, 0, (y, values) -> reference[y] = values.clone());
+		SplitError error = new SplitError();
+		sampleBlock(background, 0, splitLayer, coarseShift, 0.0D, 0.0D, 1.0D, size, size, null, 0, 0, (y, values) -> {
+			for (int x = 0; x < size; x++) {
+				float expected = reference[y][x], actual = values[x];
+				error.add(expected * expected * (2.0F - expected) * 255.0F, actual * actual * (2.0F - actual) * 255.0F);
+				error.add(expected * expected * 255.0F, actual * actual * 255.0F);
+				error.add(expected * (2.0F - expected) * 255.0F, actual * (2.0F - actual) * 255.0F);
 			}
 		});
+		return error;
+	}
+
+	/**
+	returns the largest splitLayer whose {@link SplitError#maxError}
+	is at most maxError, according to {@link #measureSplitError}.
+	*/
+	public static int findLosslessSplit(BackgroundEntity background, int coarseShift, int size, float maxError) {
+		int best = 0;
+		for (int splitLayer = 1; splitLayer <= background.noise.getLayerCount(); splitLayer++) {
+			if (background.noise.getLayer(splitLayer - 1).size < (1 << coarseShift)) break;
+			if (measureSplitError(background, splitLayer, coarseShift, size).maxError > maxError) break;
+			best = splitLayer;
+		}
+		return best;
+	}
+
+	@FunctionalInterface
+	public static interface NoiseRowAction {
+
+		public abstract void accept(int y, float[] values);
+	}
+
+	public static class SplitError {
+
+		public float maxError;
+		public double sumSquaredError;
+		public long samples;
+
+		public void add(float expected, float actual) {
+			float error = Math.abs(expected - actual);
+			if (error > this.maxError) this.maxError = error;
+			this.sumSquaredError += error * error;
+			this.samples++;
+		}
+
+		public double getRmsError() {
+			return this.samples == 0L ? 0.0D : Math.sqrt(this.sumSquaredError / this.samples);
+		}
+
+		@Override
+		public String toString() {
+			return "max error: " + this.maxError + ", RMS error: " + this.getRmsError();
+		}
 	}
-}
\ No newline at end of file
+}
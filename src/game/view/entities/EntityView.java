@@ -1,7 +1,10 @@
 package game.view.entities;
 
+import java.util.List;
+
 import game.model.entities.Entity;
 import game.view.GameView;
+import game.view.boilerplate.CoverageMask;
 
 /**
 if I were doing this in my own project,
@@ -22,4 +25,29 @@ public interface EntityView<E extends Entity> {
 	requires knowing about other properties of the {@link GameView#game}.
 	*/
 	public abstract void render(E entity, GameView gameView);
+
+	/**
+	draws all the entities in the list, in order.
+	{@link GameView} groups entities by type and calls this once per type per frame.
+	by default this just calls {@link #render} for every entity,
+	but views which run a shader per entity should override it to draw
+	every entity in one parallel pass instead, to avoid the overhead of
+	starting a new parallel pass for every entity.
+	@see game.view.boilerplate.BufferedCanvas#runShaderCircles
+	*/
+	public default void renderBatch(List<E> entities, GameView gameView) {
+		for (int index = 0, size = entities.size(); index < size; index++) {
+			this.render(entities.get(index), gameView);
+		}
+	}
+
+	/**
+	called before anything is drawn, with the same entities as {@link #renderBatch}.
+	adds the pixels which renderBatch() is guaranteed to completely
+	overwrite with opaque colors to the mask, so that the
+	{@link BackgroundView background} doesn't waste time drawing them.
+	it's fine to add fewer pixels than will actually be overwritten,
+	but it is NOT fine to add more. by default, nothing is added.
+	*/
+	public default void addCoverage(List<E> entities, GameView gameView, CoverageMask mask) {}
 }
\ No newline at end of file
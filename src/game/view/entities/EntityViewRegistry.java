@@ -1,14 +1,24 @@
 package game.view.entities;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import game.model.entities.*;
 import game.model.upgrades.*;
+import game.view.GameView;
 import game.view.Images;
+import game.view.boilerplate.CoverageMask;
 
 /**
 holds mappings for all entity classes to their associated {@link EntityView}.
+
+every registered class is also assigned an index, in the order it was registered.
+{@link GameView} uses these indexes to group entities by type,
+and to draw each type in a consistent order.
+looking up an index goes through a {@link ClassValue},
+which caches it on the Class itself, so it doesn't need to hash anything.
 @see EntityView
 
 @author Michael Johnston (tky886)
@@ -16,6 +26,18 @@ holds mappings for all entity classes to their associated {@link EntityView}.
 public class EntityViewRegistry {
 
 	private static final Map<Class<? extends Entity>, EntityView<?>> REGISTRY = new HashMap<>(16);
+	private static final Map<Class<? extends Entity>, Integer> INDEXES = new HashMap<>(16);
+	/** views in the order they were registered. {@link #getIndex} returns indexes into this list. */
+	private static final List<EntityView<?>> VIEWS = new ArrayList<>(16);
+	private static final ClassValue<Integer> DISPATCH = new ClassValue<Integer>() {
+
+		@Override
+		protected Integer computeValue(Class<?> entityClass) {
+			Integer index = INDEXES.get(entityClass);
+			if (index != null) return index;
+			else throw new IllegalStateException("No view registered for " + entityClass);
+		}
+	};
 	static {
 		register(       BackgroundEntity.class,  BackgroundView.INSTANCE);
 		register(             ShipEntity.class,        ShipView.INSTANCE);
@@ -28,9 +50,15 @@ public class EntityViewRegistry {
 		register(     GhostUpgradeEntity.class, SimpleImageEntityView.of(Images.GHOST_UPGRADE));
 	}
 
-	/** adds an associated {@link EntityView} for the entity class. */
+	/**
+	adds an associated {@link EntityView} for the entity class.
+	this should only be called while this class is being initialized,
+	because {@link #getIndex} caches its results forever.
+	*/
 	public static <E extends Entity> void register(Class<E> entityClass, EntityView<E> view) {
 		REGISTRY.put(entityClass, view);
+		INDEXES.put(entityClass, VIEWS.size());
+		VIEWS.add(view);
 	}
 
 	/** returns the {@link EntityView} associated with the entity class. */
@@ -47,6 +75,36 @@ public class EntityViewRegistry {
 		return get((Class<E>)(entity.getClass()));
 	}
 
+	/** returns the index of the entity's class, in the order it was registered. */
+	public static int getIndex(Entity entity) {
+		return DISPATCH.get(entity.getClass()).intValue();
+	}
+
+	/** returns the number of registered entity classes. every {@link #getIndex index} is less than this. */
+	public static int getViewCount() {
+		return VIEWS.size();
+	}
+
+	/** returns the {@link EntityView} for the entity class with the provided {@link #getIndex index}. */
+	public static EntityView<?> getView(int index) {
+		return VIEWS.get(index);
+	}
+
+	/**
+	{@link EntityView#renderBatch renders} the entities with the view at the provided {@link #getIndex index}.
+	every entity must have that index.
+	*/
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public static void renderBatch(int index, List<? extends Entity> entities, GameView gameView) {
+		((EntityView)(VIEWS.get(index))).renderBatch(entities, gameView);
+	}
+
+	/** same as {@link #renderBatch}, but calls {@link EntityView#addCoverage} instead. */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public static void addCoverage(int index, List<? extends Entity> entities, GameView gameView, CoverageMask mask) {
+		((EntityView)(VIEWS.get(index))).addCoverage(entities, gameView, mask);
+	}
+
 	//does nothing, but will trigger classloading.
 	public static void clinit() {}
 }
\ No newline at end of file
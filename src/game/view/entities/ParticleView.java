@@ -0,0 +1,118 @@
+package game.view.entities;
+
+import java.util.stream.IntStream;
+
+import game.common.Util;
+import game.model.ParticleSystem;
+import game.view.GameView;
+import game.view.boilerplate.BufferedCanvas;
+import game.view.boilerplate.PixelBuffer;
+
+/**
+draws every particle in a {@link ParticleSystem} in one pass.
+
+particles are drawn as squares ("points") which are {@link ParticleSystem#size size} units wide,
+and at least 1 pixel wide, blended with their color and their faded opacity.
+at the sizes particles are drawn at, a square and a circle cover pretty much the same pixels,
+and a square doesn't need a {@link game.view.boilerplate.Sprite Sprite} per color and opacity.
+
+when there are lots of particles, the screen is split into horizontal bands, one per thread,
+and every thread visits every particle, but only draws the rows which are inside its own band.
+particles are so cheap to skip that this is faster than sorting them into bands first,
+and it means no 2 threads ever write to the same pixel.
+
+@author Michael Johnston (tky886)
+*/
+public class ParticleView {
+
+	/**
+	when enabled, and there are at least {@link #PARALLEL_THRESHOLD} particles,
+	particles are drawn on several threads at once.
+	*/
+	public static boolean USE_PARALLEL_RENDER = true;
+	/** below this many particles, starting a parallel stream costs more than it saves. */
+	public static final int PARALLEL_THRESHOLD = 2048;
+
+	public static final ParticleView INSTANCE = new ParticleView();
+
+	/**
+	{minX, minY, maxX, maxY} of the pixels each band drew to, so that they can be
+	{@link PixelBuffer#markDirty marked dirty} all at once afterwards. re-used every frame.
+	*/
+	private final int[] bandBounds = new int[BufferedCanvas.THREAD_COUNT << 2];
+
+	public void render(ParticleSystem particles, GameView gameView) {
+		int count = particles.count;
+		if (count <= 0) return;
+		BufferedCanvas canvas = gameView.canvas;
+		PixelBuffer pixels = canvas.pixels;
+		int height = pixels.height.intValue();
+		int[] bounds = this.bandBounds;
+		int bands;
+		if (USE_PARALLEL_RENDER && count >= PARALLEL_THRESHOLD) {
+			bands = Math.min(BufferedCanvas.THREAD_COUNT, height);
+			IntStream.range(0, bands).parallel().forEach(band -> {
+				renderBand(particles, count, pixels, canvas.scale, height * band / bands, height * (band + 1) / bands, bounds, band << 2);
+			});
+		}
+		else {
+			bands = 1;
+			renderBand(particles, count, pixels, canvas.scale, 0, height, bounds, 0);
+		}
+		for (int band = 0; band < bands; band++) {
+			int offset = band << 2;
+			if (bounds[offset + 2] > bounds[offset]) {
+				pixels.markDirty(bounds[offset], bounds[offset + 1], bounds[offset + 2], bounds[offset + 3]);
+			}
+		}
+	}
+
+	/**
+	draws the rows of every particle which are between minRow (inclusive) and maxRow (exclusive),
+	and stores the bounds of everything which was drawn in bounds, starting at boundsOffset.
+	if nothing was drawn, the stored maxX will not be greater than the stored minX.
+	*/
+	public static void renderBand(
+		ParticleSystem particles,
+		int count,
+		PixelBuffer pixels,
+		double scale,
+		int minRow,
+		int maxRow,
+		int[] bounds,
+		int boundsOffset
+	) {
+		float[] x = particles.x, y = particles.y, age = particles.age, lifetime = particles.lifetime, size = particles.size;
+		int[] color = particles.color;
+		int width = pixels.width.intValue();
+		float floatScale = (float)(scale);
+		int drawnMinX = Integer.MAX_VALUE, drawnMinY = Integer.MAX_VALUE, drawnMaxX = Integer.MIN_VALUE, drawnMaxY = Integer.MIN_VALUE;
+		for (int index = 0; index < count; index++) {
+			int pixelSize = Math.max((int)(size[index] * floatScale + 0.5F), 1);
+			//same rounding as BufferedCanvas.drawSpriteCentered().
+			int minY = Util.floor(y[index] * floatScale - pixelSize * 0.5F);
+			int maxY = Math.min(minY + pixelSize, maxRow);
+			minY = Math.max(minY, minRow);
+			if (maxY <= minY) continue;
+			int minX = Util.floor(x[index] * floatScale - pixelSize * 0.5F);
+			int maxX = Math.min(minX + pixelSize, width);
+			minX = Math.max(minX, 0);
+			if (maxX <= minX) continue;
+			int argb = color[index];
+			int alpha = (int)((argb >>> 24) * (1.0F - age[index] / lifetime[index]) + 0.5F);
+			if (alpha <= 0) continue;
+			int premultiplied = PixelBuffer.multiplyARGB(0xFF000000 | argb, Math.min(alpha, 255));
+			for (int row = minY; row < maxY; row++) {
+				pixels.blendSolidSpan(minX, row, maxX - minX, premultiplied);
+			}
+			drawnMinX = Math.min(drawnMinX, minX);
+			drawnMinY = Math.min(drawnMinY, minY);
+			drawnMaxX = Math.max(drawnMaxX, maxX);
+			drawnMaxY = Math.max(drawnMaxY, maxY);
+		}
+		bounds[boundsOffset    ] = drawnMinX;
+		bounds[boundsOffset + 1] = drawnMinY;
+		bounds[boundsOffset + 2] = drawnMaxX;
+		bounds[boundsOffset + 3] = drawnMaxY;
+	}
+}
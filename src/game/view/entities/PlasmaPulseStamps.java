@@ -0,0 +1,155 @@
+package game.view.entities;
+
+import game.common.LruCache;
+import game.common.Util;
+import game.model.entities.PlasmaPulseEntity;
+import game.model.entities.ShipEntity;
+import game.view.boilerplate.BufferedCanvas;
+import game.view.boilerplate.PixelBuffer;
+import game.view.boilerplate.Sprite;
+
+/**
+the shape and colors of a plasma pulse only depend on its
+{@link PlasmaPulseEntity#powerLevel power level} and direction,
+so instead of computing every pixel of every pulse every frame,
+we compute them once, and store the result as a {@link Sprite} (a "stamp").
+drawing a pulse is then just a matter of blending its stamp onto the screen.
+
+directions are rounded to one of {@link #ANGLE_BUCKETS} angles.
+pulses also move smoothly, so if a stamp was only ever drawn at whole pixels,
+pulses would visibly jitter as they move. so every angle also has variants for
+(subpixelSteps * subpixelSteps) sub-pixel offsets, and pulses are rounded to the nearest one.
+
+stamps are baked lazily the first time they are needed,
+at the {@link BufferedCanvas#scale scale} they are being drawn at,
+and kept in an {@link LruCache}. if the scale or the {@link PlasmaPulseView#COLORS colors} change,
+every stamp is invalid.
+
+@author Michael Johnston (tky886)
+*/
+public class PlasmaPulseStamps {
+
+	/** number of directions stamps are baked for. */
+	public static int ANGLE_BUCKETS = 64;
+	/** number of sub-pixel offsets (on each axis) stamps are baked for, at full detail. */
+	public static int SUBPIXEL_STEPS = 4;
+	/** memory limit for the stamps. */
+	public static final long DEFAULT_MAX_BYTES = 16L << 20;
+
+	private final LruCache<Long, Stamp> stamps;
+	/** the settings that all our stamps were baked with. if any of these change, all our stamps are invalid. */
+	private double scale;
+	private PlasmaPulseView.Colors colors;
+	private int angleBuckets;
+
+	public PlasmaPulseStamps(long maxBytes) {
+		//the span arrays are small compared to the pixels, and aren't counted.
+		this.stamps = new LruCache<>(maxBytes, stamp -> ((long)(stamp.sprite.pixels.length)) * (Integer.BYTES + PixelBuffer.BYTES_PER_PIXEL));
+	}
+
+	public LruCache<Long, Stamp> getStamps() {
+		return this.stamps;
+	}
+
+	/**
+	draws the pulse on the canvas, using a stamp
+	rounded to 1/subpixelSteps of a pixel on each axis.
+	*/
+	public void draw(BufferedCanvas canvas, PlasmaPulseEntity pulse, int subpixelSteps) {
+		double scale = canvas.scale;
+		if (this.scale != scale || this.colors != PlasmaPulseView.COLORS || this.angleBuckets != ANGLE_BUCKETS) {
+			this.scale = scale;
+			this.colors = PlasmaPulseView.COLORS;
+			this.angleBuckets = ANGLE_BUCKETS;
+			this.stamps.clear();
+		}
+
+		double x = pulse.x * scale;
+		double y = pulse.y * scale;
+		int pixelX = Util.floor(x);
+		int pixelY = Util.floor(y);
+		int subX = Util.round((x - pixelX) * subpixelSteps);
+		int subY = Util.round((y - pixelY) * subpixelSteps);
+		if (subX == subpixelSteps) { pixelX++; subX = 0; }
+		if (subY == subpixelSteps) { pixelY++; subY = 0; }
+		int angle = Math.floorMod(Util.round(Math.atan2(pulse.directionY, pulse.directionX) * (this.angleBuckets / (2.0D * Math.PI))), this.angleBuckets);
+
+		long key = (
+			(((long)(pulse.powerLevel)) << 48) |
+			(((long)(angle)) << 32) |
+			(subpixelSteps << 16) |
+			(subX << 8) |
+			subY
+		);
+		Stamp stamp = this.stamps.get(key);
+		if (stamp == null) {
+			stamp = bake(
+				pulse.powerLevel,
+				angle * (2.0D * Math.PI / this.angleBuckets),
+				((double)(subX)) / subpixelSteps,
+				((double)(subY)) / subpixelSteps,
+				scale,
+				this.colors
+			);
+			this.stamps.put(key, stamp);
+		}
+		canvas.drawSprite(pixelX + stamp.offsetX, pixelY + stamp.offsetY, stamp.sprite);
+	}
+
+	/**
+	computes the stamp for a pulse with the provided power level, moving in the provided direction (in radians).
+	the pulse is (fracX, fracY) pixels to the right of and below the stamp's origin.
+	every pixel gets the same color that {@link PlasmaPulseView}'s exact shader would have blended onto it,
+	premultiplied by the same alpha.
+	*/
+	public static Stamp bake(int powerLevel, double angle, double fracX, double fracY, double scale, PlasmaPulseView.Colors colors) {
+		double directionX = Math.cos(angle);
+		double directionY = Math.sin(angle);
+		double headRadius = PlasmaPulseEntity.getSize(powerLevel) * scale;
+		float power = powerLevel * (1.0F / ShipEntity.MAX_FIRE_POWER_UPGRADES);
+		//the head is a circle around the pulse's position, and the tail is
+		//never wider than the head, so this box contains the whole pulse.
+		double tailX = -directionX * PlasmaPulseEntity.TAIL_LENGTH * headRadius;
+		double tailY = -directionY * PlasmaPulseEntity.TAIL_LENGTH * headRadius;
+		int minX = Util.floor(fracX + Math.min(tailX, 0.0D) - headRadius);
+		int minY = Util.floor(fracY + Math.min(tailY, 0.0D) - headRadius);
+		int maxX = Util.ceil (fracX + Math.max(tailX, 0.0D) + headRadius) + 1;
+		int maxY = Util.ceil (fracY + Math.max(tailY, 0.0D) + headRadius) + 1;
+		int width  = maxX - minX;
+		int height = maxY - minY;
+
+		int[] pixels = new int[width * height];
+		for (int row = 0, index = 0; row < height; row++) {
+			double relativeY = minY + row - fracY;
+			for (int column = 0; column < width; column++, index++) {
+				double relativeX = minX + column - fracX;
+				float intensity = PlasmaPulseView.getIntensity(
+					(relativeX * directionX + relativeY * directionY) / headRadius,
+					(relativeX * directionY - relativeY * directionX) / headRadius
+				);
+				int alpha = PixelBuffer.f2i(intensity);
+				if (alpha <= 0) continue;
+				pixels[index] = (
+					(alpha << 24) |
+					(PixelBuffer.multiply(PixelBuffer.f2i(colors.get(intensity, power, 0)), alpha) << 16) |
+					(PixelBuffer.multiply(PixelBuffer.f2i(colors.get(intensity, power, 1)), alpha) <<  8) |
+					(PixelBuffer.multiply(PixelBuffer.f2i(colors.get(intensity, power, 2)), alpha)      )
+				);
+			}
+		}
+		return new Stamp(new Sprite(width, height, pixels), minX, minY);
+	}
+
+	public static class Stamp {
+
+		public final Sprite sprite;
+		/** position of the sprite's top left corner, relative to the pixel the pulse is on. */
+		public final int offsetX, offsetY;
+
+		public Stamp(Sprite sprite, int offsetX, int offsetY) {
+			this.sprite = sprite;
+			this.offsetX = offsetX;
+			this.offsetY = offsetY;
+		}
+	}
+}
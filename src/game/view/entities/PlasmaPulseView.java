@@ -1,5 +1,8 @@
 package game.view.entities;
 
+import java.util.Collections;
+import java.util.List;
+
 import game.common.Util;
 import game.model.entities.PlasmaPulseEntity;
 import game.model.entities.ShipEntity;
@@ -18,50 +21,122 @@ public class PlasmaPulseView implements EntityView<PlasmaPulseEntity> {
 	public static Colors COLORS = Colors.RED_YELLOW;
 	public static final PlasmaPulseView INSTANCE = new PlasmaPulseView();
 
+	public final PlasmaPulseStamps stamps = new PlasmaPulseStamps(PlasmaPulseStamps.DEFAULT_MAX_BYTES);
+	/**
+	the circles passed to {@link game.view.boilerplate.BufferedCanvas#runShaderCircles runShaderCircles()}
+	by {@link #renderExact}, and the per-pulse values its shader needs.
+	re-used between frames. only accessed from the thread that renders the {@link GameView}.
+	*/
+	private double[] centerX = new double[0], centerY = new double[0], radius = new double[0], headRadii = new double[0];
+	private float[] powers = new float[0];
+
 	@Override
 	public void render(PlasmaPulseEntity pulse, GameView gameView) {
-		double headRadius = pulse.getSize();
-		//center = average of (position + direction * headRadius) and (position - direction * headRadius * TAIL_LENGTH)
-		//= ((position + direction * headRadius) + (position - direction * headRadius * TAIL_LENGTH)) / 2
-		//= (position + direction * headRadius + position - direction * headRadius * TAIL_LENGTH) / 2
-		//= (position * 2 + direction * headRadius - direction * headRadius * TAIL_LENGTH) / 2
-		//= position + (direction * headRadius - direction * headRadius * TAIL_LENGTH) / 2
-		//= position + direction * headRadius * (1 - TAIL_LENGTH) / 2
-		//
-		//combined radius = -headRadius * (1 - TAIL_LENGTH) / 2 + headRadius
-		//= headRadius * (TAIL_LENGTH - 1) / 2 + headRadius
-		//= headRadius * ((TAIL_LENGTH - 1) / 2 + 1)
-		gameView.canvas.runShaderCircle(
-			pulse.x + pulse.directionX * headRadius * ((1.0D - PlasmaPulseEntity.TAIL_LENGTH) * 0.5D),
-			pulse.y + pulse.directionY * headRadius * ((1.0D - PlasmaPulseEntity.TAIL_LENGTH) * 0.5D),
-			headRadius * ((PlasmaPulseEntity.TAIL_LENGTH - 1.0D) * 0.5D + 1.0D),
-			context -> {
-				double forwardComponent  = ((context.x - pulse.x) * pulse.directionX + (context.y - pulse.y) * pulse.directionY) / headRadius;
-				double sidewaysComponent = ((context.x - pulse.x) * pulse.directionY - (context.y - pulse.y) * pulse.directionX) / headRadius;
-				float intensity;
-				if (forwardComponent >= 0.0D) {
-					intensity = 1.0F - ((float)(Math.sqrt(Util.square(forwardComponent, sidewaysComponent))));
-					if (intensity <= 0.0F) return; //from shader lambda
-					intensity = Util.square(intensity);
-				}
-				else {
-					double thickness = 1.0D + forwardComponent * (1.0D / PlasmaPulseEntity.TAIL_LENGTH);
-					if (thickness <= 0.0D) return; //from shader lambda
-					thickness = Util.smooth(thickness);
-					intensity = 1.0F - ((float)(Math.abs(sidewaysComponent) / thickness));
-					if (intensity <= 0.0F) return; //from shader lambda
-					intensity = Util.square(intensity) * (float)(thickness);
-				}
-				float power = pulse.powerLevel * (1.0F / ShipEntity.MAX_FIRE_POWER_UPGRADES);
-				context.buffer.blendRGB(
-					context.baseOffset,
-					PixelBuffer.f2i(COLORS.get(intensity, power, 0)),
-					PixelBuffer.f2i(COLORS.get(intensity, power, 1)),
-					PixelBuffer.f2i(COLORS.get(intensity, power, 2)),
-					PixelBuffer.f2i(intensity)
-				);
-			}
-		);
+		this.renderBatch(Collections.singletonList(pulse), gameView);
+	}
+
+	/**
+	draws all the pulses, either from {@link #stamps},
+	or in one parallel pass if the {@link GameView#quality quality} asks for {@link Detail#EXACT exact} pulses.
+	*/
+	@Override
+	public void renderBatch(List<PlasmaPulseEntity> pulses, GameView gameView) {
+		Detail detail = gameView.quality.pulseDetail;
+		if (detail == Detail.EXACT) {
+			this.renderExact(pulses, gameView);
+			return;
+		}
+		int subpixelSteps = detail == Detail.STAMPED ? PlasmaPulseStamps.SUBPIXEL_STEPS : 1;
+		for (int index = 0, size = pulses.size(); index < size; index++) {
+			this.stamps.draw(gameView.canvas, pulses.get(index), subpixelSteps);
+		}
+	}
+
+	/** computes every pixel of every pulse, in one parallel pass. */
+	public void renderExact(List<PlasmaPulseEntity> pulses, GameView gameView) {
+		int count = pulses.size();
+		if (this.powers.length < count) {
+			int capacity = Math.max(count, this.powers.length << 1);
+			this.centerX   = new double[capacity];
+			this.centerY   = new double[capacity];
+			this.radius    = new double[capacity];
+			this.headRadii = new double[capacity];
+			this.powers    = new float [capacity];
+		}
+		double[] centerX = this.centerX, centerY = this.centerY, radius = this.radius;
+		double[] headRadii = this.headRadii;
+		float[] powers = this.powers;
+		for (int index = 0; index < count; index++) {
+			PlasmaPulseEntity pulse = pulses.get(index);
+			double headRadius = headRadii[index] = pulse.getSize();
+			powers[index] = pulse.powerLevel * (1.0F / ShipEntity.MAX_FIRE_POWER_UPGRADES);
+			//center = average of (position + direction * headRadius) and (position - direction * headRadius * TAIL_LENGTH)
+			//= ((position + direction * headRadius) + (position - direction * headRadius * TAIL_LENGTH)) / 2
+			//= (position + direction * headRadius + position - direction * headRadius * TAIL_LENGTH) / 2
+			//= (position * 2 + direction * headRadius - direction * headRadius * TAIL_LENGTH) / 2
+			//= position + (direction * headRadius - direction * headRadius * TAIL_LENGTH) / 2
+			//= position + direction * headRadius * (1 - TAIL_LENGTH) / 2
+			//
+			//combined radius = -headRadius * (1 - TAIL_LENGTH) / 2 + headRadius
+			//= headRadius * (TAIL_LENGTH - 1) / 2 + headRadius
+			//= headRadius * ((TAIL_LENGTH - 1) / 2 + 1)
+			centerX[index] = pulse.x + pulse.directionX * headRadius * ((1.0D - PlasmaPulseEntity.TAIL_LENGTH) * 0.5D);
+			centerY[index] = pulse.y + pulse.directionY * headRadius * ((1.0D - PlasmaPulseEntity.TAIL_LENGTH) * 0.5D);
+			radius [index] = headRadius * ((PlasmaPulseEntity.TAIL_LENGTH - 1.0D) * 0.5D + 1.0D);
+		}
+		gameView.canvas.runShaderCircles(count, centerX, centerY, radius, context -> {
+			PlasmaPulseEntity pulse = pulses.get(context.instance);
+			double headRadius = headRadii[context.instance];
+			double relativeX = context.getLogicalX() - pulse.x;
+			double relativeY = context.getLogicalY() - pulse.y;
+			float intensity = getIntensity(
+				(relativeX * pulse.directionX + relativeY * pulse.directionY) / headRadius,
+				(relativeX * pulse.directionY - relativeY * pulse.directionX) / headRadius
+			);
+			if (intensity <= 0.0F) return; //from shader lambda
+			float power = powers[context.instance];
+			context.buffer.blendRGB(
+				context.baseOffset,
+				PixelBuffer.f2i(COLORS.get(intensity, power, 0)),
+				PixelBuffer.f2i(COLORS.get(intensity, power, 1)),
+				PixelBuffer.f2i(COLORS.get(intensity, power, 2)),
+				PixelBuffer.f2i(intensity)
+			);
+		});
+	}
+
+	/**
+	returns how bright a pulse is at a point, from 0 to 1.
+	the components are the distance from the pulse's position along its direction (forwards)
+	and perpendicular to its direction (sideways), both divided by the radius of its head.
+	*/
+	public static float getIntensity(double forwardComponent, double sidewaysComponent) {
+		float intensity;
+		if (forwardComponent >= 0.0D) {
+			intensity = 1.0F - ((float)(Math.sqrt(Util.square(forwardComponent, sidewaysComponent))));
+			if (intensity <= 0.0F) return 0.0F;
+			intensity = Util.square(intensity);
+		}
+		else {
+			double thickness = 1.0D + forwardComponent * (1.0D / PlasmaPulseEntity.TAIL_LENGTH);
+			if (thickness <= 0.0D) return 0.0F;
+			thickness = Util.smooth(thickness);
+			intensity = 1.0F - ((float)(Math.abs(sidewaysComponent) / thickness));
+			if (intensity <= 0.0F) return 0.0F;
+			intensity = Util.square(intensity) * (float)(thickness);
+		}
+		return intensity;
+	}
+
+	/** how much detail to draw plasma pulses with. */
+	public static enum Detail {
+
+		/** every pixel of every pulse is computed every frame. */
+		EXACT,
+		/** pulses are drawn from {@link PlasmaPulseStamps}, positioned to 1/{@link PlasmaPulseStamps#SUBPIXEL_STEPS} of a pixel. */
+		STAMPED,
+		/** pulses are drawn from {@link PlasmaPulseStamps}, positioned to the nearest whole pixel. */
+		COARSE_STAMPED;
 	}
 
 	/**
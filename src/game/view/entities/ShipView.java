@@ -3,36 +3,43 @@ package game.view.entities;
 import game.common.Util;
 import game.model.entities.ShipEntity;
 import game.view.GameView;
-import game.view.Images;
-import game.view.boilerplate.PixelBuffer;
-import game.view.boilerplate.TranslatedSampler;
+import game.view.Sprites;
+import game.view.boilerplate.Sprite;
 
 /** @author Michael Johnston (tky886) */
 public class ShipView implements EntityView<ShipEntity> {
 
+	private static final double EXPLOSION_FRAMES_PER_SECOND = Sprites.EXPLOSION.length / 0.75D;
+	public static final ShipView INSTANCE = new ShipView();
+
 	/**
-	number of frames in {@link Images#EXPLOSION}.
-	the frames are arranged horizontally left to right.
+	stores the pixel bounds which every frame of the ship's explosion is drawn in
+	as {minX, minY, maxX, maxY} in bounds, where the maxes are exclusive.
+	every frame is the same size, so the bounds don't depend on which frame is being drawn.
 	*/
-	private static final int EXPLOSION_FRAMES = 9;
-	private static final double EXPLOSION_FRAMES_PER_SECOND = EXPLOSION_FRAMES / 0.75D;
-	public static final ShipView INSTANCE = new ShipView();
+	public void getExplosionBounds(ShipEntity ship, GameView gameView, int[] bounds) {
+		double scale = gameView.canvas.scale;
+		Sprite sprite = Sprites.EXPLOSION[0].scaled(scale);
+		//same rounding as BufferedCanvas.drawSpriteCentered().
+		bounds[0] = Util.floor(ship.x * scale - sprite.width  * 0.5D);
+		bounds[1] = Util.floor(ship.y * scale - sprite.height * 0.5D);
+		bounds[2] = bounds[0] + sprite.width;
+		bounds[3] = bounds[1] + sprite.height;
+	}
 
 	@Override
 	public void render(ShipEntity ship, GameView gameView) {
-		int startX = (int)(ship.x - Images.SHIP.getWidth()  * 0.5D);
-		int startY = (int)(ship.y - Images.SHIP.getHeight() * 0.5D);
 		if (ship.lives.getCount() < 0) {
 			int frame = (int)(ship.destroyedTime * EXPLOSION_FRAMES_PER_SECOND);
-			if (frame < EXPLOSION_FRAMES) {
-				gameView.canvas.drawImage(startX, startY, frame * 64, 0, 64, 64, Images.EXPLOSION);
+			if (frame < Sprites.EXPLOSION.length) {
+				gameView.canvas.drawSpriteCentered(ship.x, ship.y, Sprites.EXPLOSION[frame]);
 			}
 		}
 		else if (ship.ghostTime <= 0.0D) {
-			gameView.canvas.drawImage(startX, startY, Images.SHIP);
+			gameView.canvas.drawSpriteCentered(ship.x, ship.y, Sprites.SHIP);
 		}
 		else if (ship.ghostTime >= 5.0D) {
-			gameView.canvas.drawImage(startX, startY, Images.SHIP_GHOST);
+			gameView.canvas.drawSpriteCentered(ship.x, ship.y, Sprites.SHIP_GHOST);
 		}
 		else {
 			double scaledTime = ship.ghostTime * 0.2D;
@@ -42,26 +49,12 @@ public class ShipView implements EntityView<ShipEntity> {
 				Math.cos(10.5D * 2.0D * Math.PI * scaledTime) * -0.5D + 0.5D
 			);
 			int opacityI = (int)(opacityD * 255.0D);
-			TranslatedSampler      opaqueSampler = new TranslatedSampler(Images.SHIP,       startX, startY);
-			TranslatedSampler translucentSampler = new TranslatedSampler(Images.SHIP_GHOST, startX, startY);
-			gameView.canvas.runShaderSquare(
-				startX,
-				startY,
-				startX + ((int)(Images.SHIP.getWidth())),
-				startY + ((int)(Images.SHIP.getHeight())),
-				context -> {
-					int      opaqueColor =      opaqueSampler.getArgb(context.x, context.y);
-					int translucentColor = translucentSampler.getArgb(context.x, context.y);
-					if (opaqueColor >>> 24 == 0 && translucentColor >>> 24 == 0) return; //from the shader lambda.
-					context.buffer.blendRGB(
-						context.baseOffset,
-						PixelBuffer.blend((translucentColor >>> 16) & 255, (opaqueColor >>> 16) & 255, opacityI),
-						PixelBuffer.blend((translucentColor >>>  8) & 255, (opaqueColor >>>  8) & 255, opacityI),
-						PixelBuffer.blend((translucentColor       ) & 255, (opaqueColor       ) & 255, opacityI),
-						PixelBuffer.blend((translucentColor >>> 24),       (opaqueColor >>> 24),       opacityI)
-					);
-				}
-			);
+			if (gameView.quality.ghostCrossfade) {
+				gameView.canvas.drawSpriteCrossfadeCentered(ship.x, ship.y, Sprites.SHIP_GHOST, Sprites.SHIP, opacityI);
+			}
+			else {
+				gameView.canvas.drawSpriteCentered(ship.x, ship.y, opacityI >= 128 ? Sprites.SHIP : Sprites.SHIP_GHOST);
+			}
 		}
 	}
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package game.view.entities;
 
 import game.model.entities.Entity;
 import game.view.GameView;
+import game.view.boilerplate.Sprite;
 import javafx.scene.image.Image;
 
 /**
@@ -25,11 +26,6 @@ public abstract class SimpleImageEntityView<E extends Entity> implements EntityV
 
 	@Override
 	public void render(E entity, GameView gameView) {
-		Image image = this.getImage(entity);
-		gameView.canvas.drawImage(
-			(int)(entity.x - image.getWidth() * 0.5D),
-			(int)(entity.y - image.getHeight() * 0.5D),
-			image
-		);
+		gameView.canvas.drawSpriteCentered(entity.x, entity.y, Sprite.of(this.getImage(entity)));
 	}
 }
\ No newline at end of file
@@ -0,0 +1,221 @@
+package game.view.entities;
+
+import game.common.LruCache;
+import game.common.Util;
+import game.model.entities.BackgroundEntity;
+import game.view.boilerplate.BufferedCanvas;
+import game.view.boilerplate.PixelBuffer;
+import game.view.boilerplate.Sprite;
+
+/**
+decorative stars which are drawn on top of the background, with a parallax effect.
+
+checking whether every pixel on the screen has a star on it would cost about as much as
+another layer of the background's noise. so instead, stars are points: world space is split into
+square chunks, {@link #CHUNK_SIZE} units on each side, and every chunk has a fixed number of stars
+at random positions, which only depend on the background's {@link BackgroundEntity#seed seed}
+and the chunk's position. chunks are generated the first time they become visible,
+and kept in an {@link LruCache}. every frame, we only visit the chunks which are on screen,
+and draw each star in them as a small {@link Sprite} (a "stamp"),
+so the cost depends on how many stars are visible, not on how many pixels there are.
+
+stars are split into several {@link Layer}'s, which are at different depths.
+each layer scrolls at a fraction of the speed of the background,
+so stars which are further away seem to move more slowly.
+further layers also have more stars, but they are smaller and dimmer.
+
+stamps are baked at the {@link BufferedCanvas#scale scale} they are drawn at.
+chunks are in the background's units, so they don't depend on the scale.
+
+@author Michael Johnston (tky886)
+*/
+public class Starfield {
+
+	/** width and height of a chunk, in the background's units. */
+	public static final double CHUNK_SIZE = 256.0D;
+	/** memory limit for chunks. */
+	public static final long DEFAULT_MAX_BYTES = 256L << 10;
+	/** number of different stamps, from smallest and dimmest to largest and brightest. */
+	public static final int STAMP_COUNT = 6;
+	/** radius of the largest stamp, in the background's units. */
+	public static final double MAX_STAR_RADIUS = 2.0D;
+	/** the depth layers, from furthest to closest. */
+	public static final Layer[] LAYERS = {
+		new Layer(0.125D, 24, 3),
+		new Layer(0.25D,  12, 5),
+		new Layer(0.5D,    4, STAMP_COUNT),
+	};
+
+	private final LruCache<Long, Chunk> chunks;
+	/** the seed that all our chunks were generated from. if the background changes, all our chunks are invalid. */
+	private long seed;
+	/** the scale that our {@link #stamps} were baked at. */
+	private double scale;
+	private Sprite[] stamps;
+	/** the number of stars which were drawn in the most recent frame. */
+	private volatile int drawnStars;
+
+	public Starfield(long maxBytes) {
+		this.chunks = new LruCache<>(maxBytes, chunk -> ((long)(chunk.x.length)) * (Float.BYTES + Float.BYTES + Byte.BYTES));
+	}
+
+	public static long key(int layer, int chunkX, int chunkY) {
+		return (((long)(layer)) << 56) | ((chunkX & 0x0FFF_FFFFL) << 28) | (chunkY & 0x0FFF_FFFFL);
+	}
+
+	public LruCache<Long, Chunk> getChunks() {
+		return this.chunks;
+	}
+
+	/** returns the number of stars which were drawn in the most recent frame. */
+	public int getDrawnStars() {
+		return this.drawnStars;
+	}
+
+	/** draws every visible star on top of whatever is already on the canvas. */
+	public void render(BackgroundEntity background, BufferedCanvas canvas) {
+		double scale = canvas.scale;
+		if (this.seed != background.seed || this.stamps == null) {
+			this.seed = background.seed;
+			this.chunks.clear();
+		}
+		if (this.scale != scale || this.stamps == null) {
+			this.scale = scale;
+			this.stamps = bakeStamps(scale);
+		}
+		Sprite[] stamps = this.stamps;
+		int width  = canvas.pixels.width .intValue();
+		int height = canvas.pixels.height.intValue();
+		//a star at world position (x, y) in a layer is on screen at
+		//((x + background.x * scrollFactor) * scale, (y + background.y * scrollFactor) * scale).
+		//stars near the edges of the screen might still be partly visible, so the area we check is a bit bigger.
+		double margin = MAX_STAR_RADIUS + 1.0D / scale;
+		double screenWidth  = width  / scale;
+		double screenHeight = height / scale;
+		int drawnStars = 0;
+		for (int layerIndex = 0; layerIndex < LAYERS.length; layerIndex++) {
+			Layer layer = LAYERS[layerIndex];
+			double offsetX = background.x * layer.scrollFactor;
+			double offsetY = background.y * layer.scrollFactor;
+			int minChunkX = Util.floor((               -margin - offsetX) / CHUNK_SIZE);
+			int minChunkY = Util.floor((               -margin - offsetY) / CHUNK_SIZE);
+			int maxChunkX = Util.floor((screenWidth  + margin - offsetX) / CHUNK_SIZE);
+			int maxChunkY = Util.floor((screenHeight + margin - offsetY) / CHUNK_SIZE);
+			for (int chunkY = minChunkY; chunkY <= maxChunkY; chunkY++) {
+				for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+					Chunk chunk = this.getChunk(layerIndex, chunkX, chunkY);
+					double chunkOffsetX = chunkX * CHUNK_SIZE + offsetX;
+					double chunkOffsetY = chunkY * CHUNK_SIZE + offsetY;
+					for (int star = 0, count = chunk.x.length; star < count; star++) {
+						double x = chunk.x[star] + chunkOffsetX;
+						double y = chunk.y[star] + chunkOffsetY;
+						if (x < -margin || x >= screenWidth + margin || y < -margin || y >= screenHeight + margin) continue;
+						Sprite stamp = stamps[chunk.stamp[star]];
+						canvas.drawSprite(
+							Util.floor(x * scale) - (stamp.width  >> 1),
+							Util.floor(y * scale) - (stamp.height >> 1),
+							stamp
+						);
+						drawnStars++;
+					}
+				}
+			}
+		}
+		this.drawnStars = drawnStars;
+	}
+
+	private Chunk getChunk(int layerIndex, int chunkX, int chunkY) {
+		Long key = key(layerIndex, chunkX, chunkY);
+		Chunk chunk = this.chunks.get(key);
+		if (chunk == null) {
+			chunk = generateChunk(this.seed, layerIndex, chunkX, chunkY);
+			this.chunks.put(key, chunk);
+		}
+		return chunk;
+	}
+
+	/** places the stars in a chunk. the same arguments always produce the same stars. */
+	public static Chunk generateChunk(long seed, int layerIndex, int chunkX, int chunkY) {
+		Layer layer = LAYERS[layerIndex];
+		seed ^= 0x3A8F05C5D26B1E97L;
+		seed = Util.permute(seed, layerIndex);
+		seed = Util.permute(seed, chunkX);
+		seed = Util.permute(seed, chunkY);
+		Chunk chunk = new Chunk(layer.starsPerChunk);
+		for (int star = 0; star < layer.starsPerChunk; star++) {
+			chunk.x[star] = Util.nextPositiveFloat(seed = Util.nextSeed(seed)) * ((float)(CHUNK_SIZE));
+			chunk.y[star] = Util.nextPositiveFloat(seed = Util.nextSeed(seed)) * ((float)(CHUNK_SIZE));
+			//most stars are small. squaring makes bigger ones rarer.
+			float size = Util.nextPositiveFloat(seed = Util.nextSeed(seed));
+			chunk.stamp[star] = (byte)(size * size * layer.stampCount);
+		}
+		return chunk;
+	}
+
+	/**
+	bakes every stamp at the provided scale.
+	stamps are round, fade out towards their edges, and are very slightly blue.
+	the star's position is the center of the stamp's middle pixel.
+
+	no channel of a star's color is above 240, so blending a star onto the background
+	never makes any channel brighter than whichever of the 2 was brighter already.
+	this keeps stars from ever reaching the {@link game.view.boilerplate.Bloom#THRESHOLD bloom threshold}.
+	*/
+	public static Sprite[] bakeStamps(double scale) {
+		Sprite[] stamps = new Sprite[STAMP_COUNT];
+		for (int index = 0; index < STAMP_COUNT; index++) {
+			double fraction = ((double)(index + 1)) / STAMP_COUNT;
+			double radius = Math.max(MAX_STAR_RADIUS * (0.25D + 0.75D * fraction) * scale, 1.0D);
+			double brightness = 0.5D + 0.5D * fraction;
+			int halfSize = Util.ceil(radius);
+			int size = (halfSize << 1) + 1;
+			int[] pixels = new int[size * size];
+			for (int row = 0, pixel = 0; row < size; row++) {
+				for (int column = 0; column < size; column++, pixel++) {
+					double distance = Math.sqrt(Util.square(column - halfSize, row - halfSize)) / radius;
+					if (distance >= 1.0D) continue;
+					int alpha = PixelBuffer.d2i(Util.square(1.0D - distance) * brightness);
+					if (alpha <= 0) continue;
+					pixels[pixel] = (
+						(alpha << 24) |
+						(PixelBuffer.multiply(232, alpha) << 16) |
+						(PixelBuffer.multiply(236, alpha) <<  8) |
+						(PixelBuffer.multiply(240, alpha)      )
+					);
+				}
+			}
+			stamps[index] = new Sprite(size, size, pixels);
+		}
+		return stamps;
+	}
+
+	/** a depth at which stars are drawn. */
+	public static class Layer {
+
+		/** how fast this layer scrolls, as a fraction of the speed of the background. */
+		public final double scrollFactor;
+		public final int starsPerChunk;
+		/** stars in this layer use stamps from 0 (inclusive) to stampCount (exclusive). */
+		public final int stampCount;
+
+		public Layer(double scrollFactor, int starsPerChunk, int stampCount) {
+			this.scrollFactor = scrollFactor;
+			this.starsPerChunk = starsPerChunk;
+			this.stampCount = stampCount;
+		}
+	}
+
+	/** the positions and stamps of every star in a chunk, relative to its top left corner. */
+	public static class Chunk {
+
+		public final float[] x, y;
+		/** indexes into the stamps. */
+		public final byte[] stamp;
+
+		public Chunk(int stars) {
+			this.x = new float[stars];
+			this.y = new float[stars];
+			this.stamp = new byte[stars];
+		}
+	}
+}
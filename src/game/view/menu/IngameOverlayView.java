@@ -4,12 +4,14 @@ import game.Main;
 import game.common.Util;
 import game.model.Game;
 import game.model.entities.ShipEntity;
-import game.view.Images;
+import game.view.QualityGovernor;
+import game.view.Sprites;
 import game.view.boilerplate.*;
+import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.SimpleDoubleProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.value.ChangeListener;
-import javafx.scene.image.Image;
 
 /**
 display's the ship's stats at the top of the screen.
@@ -17,80 +19,293 @@ when the user pauses the game, this overlay expands to cover the whole screen,
 and forms the background for other {@link Menu}'s.
 @see game.controller.MenuHandler
 
+the overlay is drawn in 2 layers: the gradient, on our {@link #canvas},
+and the stat icons, on our {@link #iconLayer}, which sits on top of the bottom {@link #ICON_ROWS} rows of the canvas.
+the gradient only depends on how far down the overlay a pixel is, as a fraction of our height.
+so if our canvas's presenter {@link FramePresenter#supportsScaling supports scaling},
+the gradient is drawn once at {@link #fullHeight}, and stretched to whatever our actual height is.
+this means the canvas's pixels don't change at all while we expand or collapse,
+and only the icon layer needs to be drawn again every frame.
+
+the icon layer also shows the ship's points, and its final score while a menu is open,
+with a {@link BitmapFont}. points change whenever an asteroid is destroyed,
+but nothing else on the icon layer does. so when only text changed since the icon layer was last drawn,
+only the glyphs which are different are drawn again (see {@link BitmapFont#getChangedBounds}),
+along with the gradient and any icons behind them.
+
+{@link #doRender} might not run on the FX application thread
+(see {@link RenderGroup}), so it only reads what {@link #prepareRender} saved for it.
+
 @author Michael Johnston (tky886)
 */
 public class IngameOverlayView extends BufferedCanvasView {
 
 	public static final int MIN_HEIGHT = 56;
+	/** stat icons are drawn on the bottom ICON_ROWS rows. */
+	public static final int ICON_ROWS = 48;
+	/** size of every pixel of our {@link #font}. */
+	public static final int TEXT_SCALE = 2;
+	/** where the points and the lower line of text are drawn, on the {@link #iconLayer}. */
+	public static final int UPPER_TEXT_Y = 1, LOWER_TEXT_Y = 25;
+	/** when enabled, the lower line of text shows the FPS while the game is being played. useful in development. */
+	public static boolean SHOW_FPS = false;
+	/**
+	when enabled, the lower line of text shows the {@link QualityGovernor#getDebugLine quality level}
+	(and the FPS too, if {@link #SHOW_FPS} is enabled) while the game is being played, in a smaller font so that it fits.
+	useful in development.
+	*/
+	public static boolean SHOW_QUALITY = false;
 
 	public final Game game;
 	public final IntegerProperty iconOpacity;
+	/** bound to {@link game.controller.GameTimer#getFPS} by the {@link game.controller.MenuHandler}. only shown when {@link #SHOW_FPS} is enabled. */
+	public final IntegerProperty fps;
+	/** set to the {@link game.view.GameView#qualityGovernor} by the {@link game.controller.MenuHandler}. only shown when {@link #SHOW_QUALITY} is enabled. */
+	public QualityGovernor qualityGovernor;
+	/** the height of the window, which is as tall as we can get. */
+	public final DoubleProperty fullHeight;
+	/** drawn on top of our {@link #canvas}. its {@link BufferedCanvas#node node} needs to be added to the scene graph too. */
+	public final BufferedCanvas iconLayer;
+	/** true if our gradient is drawn at {@link #fullHeight} and stretched to fit, false if it's drawn at our actual height. */
+	private final boolean stretchGradient;
+	/** the size our gradient was last drawn at. if it hasn't changed, our canvas doesn't need to be drawn again. */
+	private int gradientWidth, gradientHeight;
+	/** everything {@link #doRender} needs, saved by {@link #prepareRender}. */
+	private int renderWidth, renderHeight, renderGradientHeight, renderIconOpacity;
+	private int firePowerCount, fireRateCount, speedCount, livesCount;
+	private int points, finalScore, fpsCount;
+	private String qualityLine = "";
+	/** where the {@link #iconLayer} should be moved to when it's flushed. */
+	private int iconLayerY;
+	private final BitmapFont font = new BitmapFont(TEXT_SCALE, 0xFFFFFFFF);
+	/** the quality line is too long to fit in our normal {@link #font}. */
+	private final BitmapFont smallFont = new BitmapFont(1, 0xFFFFFFFF);
+	private final Label
+		pointsLabel  = new Label(this.font, UPPER_TEXT_Y),
+		scoreLabel   = new Label(this.font, LOWER_TEXT_Y),
+		fpsLabel     = new Label(this.font, LOWER_TEXT_Y),
+		qualityLabel = new Label(this.smallFont, LOWER_TEXT_Y + ((this.font.getHeight() - this.smallFont.getHeight()) >> 1));
+	private final Label[] labels = { this.pointsLabel, this.scoreLabel, this.fpsLabel, this.qualityLabel };
+	/**
+	everything except text that the {@link #iconLayer} was last drawn with.
+	if any of it changed, the whole icon layer needs to be drawn again.
+	*/
+	private int drawnWidth = -1, drawnHeight, drawnIconOpacity, drawnFirePower, drawnFireRate, drawnSpeed, drawnLives;
+	/** the area of the {@link #iconLayer} currently being drawn. icons and text outside it are not drawn. */
+	private int clipMinX, clipMinY, clipMaxX, clipMaxY;
+	/** re-used by {@link #renderIcons}. */
+	private final int[] changedBounds = new int[4];
 
 	public IngameOverlayView(Game game) {
-		super(Main.DEFAULT_WINDOW_WIDTH, MIN_HEIGHT);
+		this(game, null);
+	}
+
+	/** if the group is not null, we render as part of it. */
+	public IngameOverlayView(Game game, RenderGroup group) {
+		super(Main.DEFAULT_WINDOW_WIDTH, MIN_HEIGHT, false, group);
 		this.game = game;
 		this.iconOpacity = new SimpleIntegerProperty(this, "iconOpacity");
+		this.fps = new SimpleIntegerProperty(this, "fps");
+		this.fullHeight = new SimpleDoubleProperty(this, "fullHeight", Main.DEFAULT_WINDOW_HEIGHT);
+		this.iconLayer = new BufferedCanvas(Main.DEFAULT_WINDOW_WIDTH, ICON_ROWS);
+		this.iconLayer.width.bind(this.width);
+		//resized by prepareRender(), just like our canvas's pixels.
+		this.iconLayer.pixels.width.unbind();
+		this.stretchGradient = this.canvas.presenter.supportsScaling();
 
 		ChangeListener<Number> render = (observable, oldValue, newValue) -> this.render();
 		game.ship.speed    .countProperty().addListener(render);
 		game.ship.fireRate .countProperty().addListener(render);
 		game.ship.firePower.countProperty().addListener(render);
 		game.ship.lives    .countProperty().addListener(render);
+		game.ship.pointsProperty()         .addListener(render);
+		game.ship.finalScoreProperty()     .addListener(render);
 		this.iconOpacity                   .addListener(render);
+		this.fullHeight                    .addListener(render);
+		//the quality level isn't observable, but the FPS changes often enough to keep it up to date.
+		this.fps                           .addListener((observable, oldValue, newValue) -> {
+			if (SHOW_FPS || SHOW_QUALITY) this.render();
+		});
+	}
+
+	@Override
+	protected void prepareRender() {
+		int width  = this.renderWidth  = this.width .intValue();
+		int height = this.renderHeight = this.height.intValue();
+		//when stretching, the pixels stay as tall as the window, even when the canvas itself is shorter.
+		int gradientHeight = this.renderGradientHeight = this.stretchGradient ? this.fullHeight.intValue() : height;
+		this.canvas.pixels.width .set(width);
+		this.canvas.pixels.height.set(gradientHeight);
+		this.iconLayer.pixels.width.set(width);
+		this.renderIconOpacity = this.iconOpacity.intValue();
+		ShipEntity ship = this.game.ship;
+		this.firePowerCount = ship.firePower.getCount();
+		this.fireRateCount  = ship.fireRate .getCount();
+		this.speedCount     = ship.speed    .getCount();
+		this.livesCount     = ship.lives    .getCount();
+		this.points         = ship.getPoints();
+		this.finalScore     = ship.getFinalScore();
+		this.fpsCount       = this.fps.get();
+		QualityGovernor governor = this.qualityGovernor;
+		this.qualityLine    = SHOW_QUALITY && governor != null ? governor.getDebugLine() : "";
 	}
 
 	@Override
 	protected void doRender() {
-		BufferedCanvas canvas = this.canvas;
-		PixelBuffer pixels = canvas.pixels;
+		int width  = this.renderWidth;
+		int height = this.renderHeight;
+		int gradientHeight = this.renderGradientHeight;
+		if (width != this.gradientWidth || gradientHeight != this.gradientHeight) {
+			this.gradientWidth  = width;
+			this.gradientHeight = gradientHeight;
+			PixelBuffer pixels = this.canvas.pixels;
+			pixels.markDirty(0, 0, width, gradientHeight);
+			drawGradient(pixels, gradientHeight, 0, width, 0, 0, gradientHeight);
+		}
+		this.renderIcons(width, height);
+	}
 
-		int width  = this.width .intValue();
-		int height = this.height.intValue();
+	/**
+	fills columns from (inclusive) minX to (exclusive) maxX, and rows from (inclusive) minY to (exclusive) maxY
+	of a gradient which is (height) rows tall, starting at row startY of the pixels.
+	*/
+	private static void drawGradient(PixelBuffer pixels, int height, int minX, int maxX, int startY, int minY, int maxY) {
 		float reciprocalMaxY = 1.0F / ((float)(height - 1));
-
-		for (int y = 0; y < height; y++) {
+		for (int y = minY; y < maxY; y++) {
 			float frac = Util.square(y * reciprocalMaxY);
 			float brightness = Util.mix(0.125F, 0.25F, frac) * 255.0F;
-			int baseOffset = pixels.rowOffset(y);
-			for (int x = 0; x < width; x++) {
-				pixels.setGrayscale(baseOffset, (int)(brightness + Dithering.getFloat(x, y)));
-				baseOffset += PixelBuffer.BYTES_PER_PIXEL;
+			pixels.fillGradientRow(startY + y - minY, minX, maxX, brightness);
+		}
+	}
+
+	/**
+	draws the bottom {@link #ICON_ROWS} rows of the gradient at our actual height
+	on our {@link #iconLayer}, then the stat icons and text on top of that.
+	if only the text changed since last time, only the glyphs which changed are drawn again.
+	*/
+	private void renderIcons(int width, int height) {
+		this.iconLayerY = Math.max(height - ICON_ROWS, 0);
+		this.layoutLabels(width);
+		if (
+			width                  != this.drawnWidth       ||
+			height                 != this.drawnHeight      ||
+			this.renderIconOpacity != this.drawnIconOpacity ||
+			this.firePowerCount    != this.drawnFirePower   ||
+			this.fireRateCount     != this.drawnFireRate    ||
+			this.speedCount        != this.drawnSpeed       ||
+			this.livesCount        != this.drawnLives
+		) {
+			this.drawnWidth       = width;
+			this.drawnHeight      = height;
+			this.drawnIconOpacity = this.renderIconOpacity;
+			this.drawnFirePower   = this.firePowerCount;
+			this.drawnFireRate    = this.fireRateCount;
+			this.drawnSpeed       = this.speedCount;
+			this.drawnLives       = this.livesCount;
+			this.drawIconLayer(width, height, 0, 0, width, ICON_ROWS);
+		}
+		else {
+			int[] bounds = this.changedBounds;
+			for (Label label : this.labels) {
+				if (label.font.getChangedBounds(label.drawnText, label.drawnX, label.text, label.x, label.y, bounds)) {
+					this.drawIconLayer(width, height, bounds[0], bounds[1], bounds[2], bounds[3]);
+				}
 			}
 		}
-		if (this.iconOpacity.intValue() > 0) {
-			ShipEntity ship = this.game.ship;
-			for (int i = 0, count = ship.firePower.getCount(); i <= count; i++) {
-				this.drawStatIcon(i * 16 + 8, height - 48, Images.FIRE_POWER_STAT);
+		for (Label label : this.labels) {
+			label.drawnText = label.text;
+			label.drawnX = label.x;
+		}
+	}
+
+	/**
+	decides what every {@link Label} should show.
+	labels which are fully transparent show nothing,
+	so that they don't need to be drawn again when their text changes.
+	*/
+	private void layoutLabels(int width) {
+		this.pointsLabel.set(Integer.toString(this.points), width, 255);
+		int scoreOpacity = 255 - this.renderIconOpacity;
+		this.scoreLabel.set(scoreOpacity > 0 ? "SCORE " + this.finalScore : "", width, scoreOpacity);
+		//the quality line takes up the whole lower line, so the FPS goes in front of it instead of in its own label.
+		boolean showQuality = !this.qualityLine.isEmpty();
+		int fpsOpacity = SHOW_FPS && !showQuality ? this.renderIconOpacity : 0;
+		this.fpsLabel.set(fpsOpacity > 0 ? "FPS " + this.fpsCount : "", width, fpsOpacity);
+		int qualityOpacity = showQuality ? this.renderIconOpacity : 0;
+		this.qualityLabel.set(qualityOpacity > 0 ? (SHOW_FPS ? "FPS " + this.fpsCount + "  " : "") + this.qualityLine : "", width, qualityOpacity);
+	}
+
+	/** draws the gradient, stat icons, and labels from (minX, minY) (inclusive) to (maxX, maxY) (exclusive) on our {@link #iconLayer}. */
+	private void drawIconLayer(int width, int height, int minX, int minY, int maxX, int maxY) {
+		minX = Math.max(minX, 0);
+		minY = Math.max(minY, 0);
+		maxX = Math.min(maxX, width);
+		maxY = Math.min(maxY, ICON_ROWS);
+		if (maxX <= minX || maxY <= minY) return;
+		this.clipMinX = minX;
+		this.clipMinY = minY;
+		this.clipMaxX = maxX;
+		this.clipMaxY = maxY;
+		PixelBuffer pixels = this.iconLayer.pixels;
+		pixels.markDirty(minX, minY, maxX, maxY);
+		drawGradient(pixels, height, minX, maxX, minY, this.iconLayerY + minY, Math.min(this.iconLayerY + maxY, height));
+		if (this.renderIconOpacity > 0) {
+			for (int i = 0; i <= this.firePowerCount; i++) {
+				this.drawStatIcon(i * 16 + 8, 0, Sprites.FIRE_POWER_STAT);
 			}
-			for (int i = 0, count = ship.fireRate.getCount(); i <= count; i++) {
-				this.drawStatIcon(i * 16 + 8, height - 24, Images.FIRE_RATE_STAT);
+			for (int i = 0; i <= this.fireRateCount; i++) {
+				this.drawStatIcon(i * 16 + 8, 24, Sprites.FIRE_RATE_STAT);
 			}
-			for (int i = 0, count = ship.speed.getCount(); i <= count; i++) {
-				this.drawStatIcon(width - i * 16 - 24, height - 48, Images.SPEED_STAT);
+			for (int i = 0; i <= this.speedCount; i++) {
+				this.drawStatIcon(width - i * 16 - 24, 0, Sprites.SPEED_STAT);
 			}
-			for (int i = 0, count = ship.lives.getCount(); i <= count; i++) {
-				this.drawStatIcon(width - i * 32 - 24, height - 24, Images.EXTRA_LIFE_STAT);
+			for (int i = 0; i <= this.livesCount; i++) {
+				this.drawStatIcon(width - i * 32 - 24, 24, Sprites.EXTRA_LIFE_STAT);
 			}
 		}
+		for (Label label : this.labels) {
+			label.font.drawClipped(this.iconLayer, label.x, label.y, label.text, label.opacity, minX, minY, maxX, maxY);
+		}
+	}
+
+	private void drawStatIcon(int x, int y, Sprite sprite) {
+		this.iconLayer.drawSpriteClipped(x, y, sprite, this.renderIconOpacity, this.clipMinX, this.clipMinY, this.clipMaxX, this.clipMaxY);
+	}
+
+	/** also moves our {@link #iconLayer} to the bottom of the overlay, and flushes it. */
+	@Override
+	protected void flush() {
+		super.flush();
+		this.iconLayer.node.relocate(0.0D, this.iconLayerY);
+		this.iconLayer.flush();
 	}
 
-	private void drawStatIcon(int x, int y, Image image) {
-		int opacity = this.iconOpacity.intValue();
-		if (opacity <= 0) return;
-		if (opacity >= 255) {
-			this.canvas.drawImage(x, y, image);
-			return;
+	@Override
+	public long getAllocatedBytes() {
+		return super.getAllocatedBytes() + this.iconLayer.pixels.getAllocatedBytes();
+	}
+
+	/** a line of text, horizontally centered on the {@link #iconLayer}. */
+	private static class Label {
+
+		public final BitmapFont font;
+		public final int y;
+		/** what should be drawn this frame. */
+		public String text = "";
+		public int x, opacity;
+		/** what is currently drawn on the {@link #iconLayer}. */
+		public String drawnText = "";
+		public int drawnX;
+
+		public Label(BitmapFont font, int y) {
+			this.font = font;
+			this.y = y;
+		}
+
+		public void set(String text, int width, int opacity) {
+			this.text = text;
+			this.x = (width - this.font.getWidth(text)) >> 1;
+			this.opacity = opacity;
 		}
-		TranslatedSampler sampler = new TranslatedSampler(image, 0, 0, x, y);
-		this.canvas.runShaderSquare(x, y, x + 16, y + 16, context -> {
-			int color = sampler.getArgb(context.x, context.y);
-			context.buffer.blendRGB(
-				context.baseOffset,
-				(color >>> 16) & 255,
-				(color >>>  8) & 255,
-				(color       ) & 255,
-				((color >>> 24) * opacity + 127) / 255
-			);
-		});
 	}
 }
\ No newline at end of file
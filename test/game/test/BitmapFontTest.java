@@ -0,0 +1,85 @@
+package game.test;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import game.view.boilerplate.BitmapFont;
+import game.view.boilerplate.BufferedCanvas;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BitmapFontTest {
+
+	public static final int WIDTH = 200, HEIGHT = 24, Y = 3;
+
+	@Test
+	public void changedBoundsCoverOnlyChangedGlyphs() {
+		BitmapFont font = new BitmapFont(2, 0xFFFFFFFF);
+		int advance = font.getAdvance(), glyphWidth = BitmapFont.GLYPH_WIDTH * font.scale;
+		int[] bounds = { -1, -1, -1, -1 };
+		assertFalse(font.getChangedBounds("1234", 10, "1234", 10, Y, bounds));
+		//spaces look the same as nothing at all.
+		assertFalse(font.getChangedBounds("12", 10, "12 ", 10, Y, bounds));
+		assertArrayEquals("bounds must not be modified when nothing changed", new int[] { -1, -1, -1, -1 }, bounds);
+
+		assertTrue(font.getChangedBounds("1234", 10, "1235", 10, Y, bounds));
+		assertArrayEquals(new int[] { 10 + advance * 3, Y, 10 + advance * 3 + glyphWidth, Y + font.getHeight() }, bounds);
+
+		//lowercase letters are drawn as uppercase letters.
+		assertFalse(font.getChangedBounds("score", 10, "SCORE", 10, Y, bounds));
+
+		//moving by a whole glyph only changes the glyphs which don't line up with the same glyph anymore.
+		assertTrue(font.getChangedBounds("999", 10, "999", 10 + advance, Y, bounds));
+		assertEquals(10, bounds[0]);
+		assertEquals(10 + advance * 3 + glyphWidth, bounds[2]);
+	}
+
+	/** drawing only what {@link BitmapFont#getChangedBounds} says changed must look the same as drawing everything again. */
+	@Test
+	public void partialRedrawMatchesFullRedraw() {
+		BitmapFont font = new BitmapFont(2, 0xFFFFFFFF);
+		BufferedCanvas partial = new BufferedCanvas(WIDTH, HEIGHT);
+		fillBackground(partial, 0, 0, WIDTH, HEIGHT);
+		Random random = new Random(42L);
+		String oldText = "";
+		int oldX = 0, points = 0;
+		int[] bounds = new int[4];
+		for (int frame = 0; frame < 300; frame++) {
+			points += random.nextInt(4) == 0 ? 0 : random.nextInt(frame < 200 ? 200 : 5000);
+			String text = Integer.toString(points);
+			int x = (WIDTH - font.getWidth(text)) >> 1;
+			if (font.getChangedBounds(oldText, oldX, text, x, Y, bounds)) {
+				fillBackground(partial, bounds[0], bounds[1], bounds[2], bounds[3]);
+				font.drawClipped(partial, x, Y, text, 255, bounds[0], bounds[1], bounds[2], bounds[3]);
+			}
+			oldText = text;
+			oldX = x;
+
+			BufferedCanvas full = new BufferedCanvas(WIDTH, HEIGHT);
+			fillBackground(full, 0, 0, WIDTH, HEIGHT);
+			font.draw(full, x, Y, text, 255);
+			for (int y = 0; y < HEIGHT; y++) {
+				for (int column = 0; column < WIDTH; column++) {
+					int expected = full.pixels.getARGB(column, y), actual = partial.pixels.getARGB(column, y);
+					if (expected != actual) {
+						assertEquals(
+							"frame " + frame + " (" + text + ") at " + column + ", " + y,
+							Integer.toHexString(expected),
+							Integer.toHexString(actual)
+						);
+					}
+				}
+			}
+		}
+	}
+
+	public static void fillBackground(BufferedCanvas canvas, int minX, int minY, int maxX, int maxY) {
+		for (int y = Math.max(minY, 0); y < Math.min(maxY, HEIGHT); y++) {
+			canvas.pixels.fillGradientRow(y, Math.max(minX, 0), Math.min(maxX, WIDTH), 40 + y);
+		}
+	}
+}
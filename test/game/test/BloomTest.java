@@ -0,0 +1,276 @@
+package game.test;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import game.view.FrozenFrameCache;
+import game.view.QualityGovernor;
+import game.view.boilerplate.Bloom;
+import game.view.boilerplate.PixelBuffer;
+
+import static org.junit.Assert.assertEquals;
+
+public class BloomTest {
+
+	/** row 12 of pascal's triangle, same as Bloom's. */
+	public static final int[] WEIGHTS = { 1, 12, 66, 220, 495, 792, 924, 792, 495, 220, 66, 12, 1 };
+
+	@Test
+	public void matchesReference() {
+		boolean packed = PixelBuffer.USE_PACKED_KERNELS;
+		try {
+			//deliberately odd sizes, so that the last half resolution row and column only cover 1 pixel.
+			int[][] sizes = { { 37, 23 }, { 201, 131 }, { 640, 360 } };
+			for (boolean usePackedKernels : new boolean[] { true, false }) {
+				PixelBuffer.USE_PACKED_KERNELS = usePackedKernels;
+				for (int[] size : sizes) {
+					int width = size[0], height = size[1];
+					int[] source = randomPicture(width, height, width * 31L + height);
+					int[] expected = reference(source, width, height);
+					for (PixelBuffer.Layout layout : PixelBuffer.Layout.values()) {
+						PixelBuffer pixels = toBuffer(source, width, height, layout);
+						new Bloom().apply(pixels);
+						assertMatches(layout + " " + width + 'x' + height + " (packed kernels: " + usePackedKernels + ')', expected, pixels);
+					}
+				}
+			}
+		}
+		finally {
+			PixelBuffer.USE_PACKED_KERNELS = packed;
+		}
+	}
+
+	@Test
+	public void partialMatchesWholeFrame() {
+		Random random = new Random(42L);
+		for (PixelBuffer.Layout layout : PixelBuffer.Layout.values()) {
+			for (int iteration = 0; iteration < 20; iteration++) {
+				int width = 20 + random.nextInt(300), height = 20 + random.nextInt(200);
+				int[] source = randomPicture(width, height, random.nextLong());
+				PixelBuffer whole = toBuffer(source, width, height, layout);
+				new Bloom().apply(whole);
+				int minX = random.nextInt(width + 40) - 20, minY = random.nextInt(height + 40) - 20;
+				int maxX = minX + random.nextInt(width), maxY = minY + random.nextInt(height);
+				PixelBuffer part = toBuffer(source, width, height, layout);
+				new Bloom().apply(part, minX, minY, maxX, maxY);
+				//the area is rounded out to even coordinates.
+				minX &= -2;
+				minY &= -2;
+				maxX = (maxX + 1) & -2;
+				maxY = (maxY + 1) & -2;
+				for (int y = 0; y < height; y++) {
+					for (int x = 0; x < width; x++) {
+						boolean inside = x >= minX && x < maxX && y >= minY && y < maxY;
+						int expectedColor = inside ? whole.getARGB(x, y) : source[y * width + x] | 0xFF000000;
+						int actualColor = part.getARGB(x, y);
+						if (expectedColor != actualColor) {
+							assertEquals(
+								layout + " " + width + 'x' + height + " at " + x + ", " + y + " (inside: " + inside + ')',
+								Integer.toHexString(expectedColor),
+								Integer.toHexString(actualColor)
+							);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/** does what GameView does while the ship is exploding, on 3 buffers which take turns being drawn on, like RenderThread's. */
+	@Test
+	public void frozenExplosionMatchesFullRedraw() {
+		int width = 200, height = 180;
+		//one box in the middle, near something bright, and one touching the edges of the frame.
+		int[][] explosions = { { 91, 97, 121, 124 }, { 1, 157, 27, 180 } };
+		for (int[] explosion : explosions) {
+			PixelBuffer[] buffers = { new PixelBuffer(width, height), new PixelBuffer(width, height), new PixelBuffer(width, height) };
+			FrozenFrameCache cache = new FrozenFrameCache();
+			Bloom bloom = new Bloom();
+			int[] restoreBounds = new int[4], glowBounds = new int[4];
+			for (int frame = 0; frame < 15; frame++) {
+				//not a simple rotation, so that buffers are sometimes drawn on twice in a row.
+				PixelBuffer pixels = buffers[(frame * frame + (frame >> 1)) % 3];
+				System.arraycopy(explosion, 0, restoreBounds, 0, 4);
+				Bloom.addReach(restoreBounds);
+				System.arraycopy(restoreBounds, 0, glowBounds, 0, 4);
+				Bloom.addReach(restoreBounds);
+				boolean restored = cache.restore(pixels, 1.0D, QualityGovernor.Level.HIGH, true, restoreBounds[0], restoreBounds[1], restoreBounds[2], restoreBounds[3]);
+				assertEquals(frame > 0, restored);
+				if (restored) {
+					drawExplosion(pixels, explosion, frame);
+					bloom.apply(pixels, glowBounds[0], glowBounds[1], glowBounds[2], glowBounds[3]);
+					cache.restoreGlow(pixels, glowBounds, restoreBounds);
+				}
+				else {
+					drawWorld(pixels, width, height);
+					cache.capture(pixels, 1.0D, QualityGovernor.Level.HIGH);
+					drawExplosion(pixels, explosion, frame);
+					bloom.apply(pixels);
+					cache.captureGlow(pixels);
+				}
+
+				PixelBuffer expected = new PixelBuffer(width, height);
+				drawWorld(expected, width, height);
+				drawExplosion(expected, explosion, frame);
+				new Bloom().apply(expected);
+				for (int y = 0; y < height; y++) {
+					for (int x = 0; x < width; x++) {
+						int expectedColor = expected.getARGB(x, y), actualColor = pixels.getARGB(x, y);
+						if (expectedColor != actualColor) {
+							assertEquals(
+								"frame " + frame + " at " + x + ", " + y,
+								Integer.toHexString(expectedColor),
+								Integer.toHexString(actualColor)
+							);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/** a dim, noisy background with some bright circles, as RGB colors. */
+	public static int[] randomPicture(int width, int height, long seed) {
+		Random random = new Random(seed);
+		int[] colors = new int[width * height];
+		for (int index = 0; index < colors.length; index++) {
+			colors[index] = random.nextInt() & 0x3F3F3F;
+		}
+		for (int circle = 0; circle < 6; circle++) {
+			int centerX = random.nextInt(width), centerY = random.nextInt(height), radius = 3 + random.nextInt(20);
+			int color = 0xFFC040 ^ random.nextInt(0x40);
+			for (int y = Math.max(centerY - radius, 0); y < Math.min(centerY + radius, height); y++) {
+				for (int x = Math.max(centerX - radius, 0); x < Math.min(centerX + radius, width); x++) {
+					if ((x - centerX) * (x - centerX) + (y - centerY) * (y - centerY) < radius * radius) {
+						colors[y * width + x] = color;
+					}
+				}
+			}
+		}
+		return colors;
+	}
+
+	public static PixelBuffer toBuffer(int[] colors, int width, int height, PixelBuffer.Layout layout) {
+		PixelBuffer pixels = new PixelBuffer(width, height, layout);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int color = colors[y * width + x];
+				pixels.setRGB(x, y, color >>> 16, (color >>> 8) & 255, color & 255);
+			}
+		}
+		return pixels;
+	}
+
+	/**
+	bloom done the slow and obvious way, as 4 separate passes over whole (half resolution) images,
+	one channel at a time: bright-pass, horizontal blur, vertical blur, and composite.
+	*/
+	public static int[] reference(int[] source, int width, int height) {
+		int halfWidth = (width + 1) >> 1, halfHeight = (height + 1) >> 1;
+		int threshold = Bloom.THRESHOLD;
+		int[][] bright = new int[3][halfWidth * halfHeight];
+		for (int y = 0; y < halfHeight; y++) {
+			for (int x = 0; x < halfWidth; x++) {
+				int x0 = x << 1, x1 = Math.min(x0 + 1, width - 1), y0 = y << 1, y1 = Math.min(y0 + 1, height - 1);
+				int[] average = new int[3];
+				for (int channel = 0; channel < 3; channel++) {
+					int shift = 16 - (channel << 3);
+					average[channel] = (
+						((source[y0 * width + x0] >>> shift) & 255) +
+						((source[y0 * width + x1] >>> shift) & 255) +
+						((source[y1 * width + x0] >>> shift) & 255) +
+						((source[y1 * width + x1] >>> shift) & 255)
+					) >> 2;
+				}
+				int brightest = Math.max(average[0], Math.max(average[1], average[2]));
+				if (brightest <= threshold) continue;
+				int fraction = (brightest - threshold) * 255 / (255 - threshold);
+				for (int channel = 0; channel < 3; channel++) {
+					bright[channel][y * halfWidth + x] = PixelBuffer.multiply(average[channel], fraction);
+				}
+			}
+		}
+		int[][] horizontal = new int[3][halfWidth * halfHeight];
+		for (int channel = 0; channel < 3; channel++) {
+			for (int y = 0; y < halfHeight; y++) {
+				for (int x = 0; x < halfWidth; x++) {
+					int sum = 0;
+					for (int tap = 0; tap < WEIGHTS.length; tap++) {
+						int tapX = Math.min(Math.max(x + tap - 6, 0), halfWidth - 1);
+						sum += bright[channel][y * halfWidth + tapX] * WEIGHTS[tap];
+					}
+					horizontal[channel][y * halfWidth + x] = (sum + 2048) >>> 12;
+				}
+			}
+		}
+		int[] result = source.clone();
+		for (int y = 0; y < halfHeight; y++) {
+			for (int x = 0; x < halfWidth; x++) {
+				int[] glow = new int[3];
+				for (int channel = 0; channel < 3; channel++) {
+					int sum = 0;
+					for (int tap = 0; tap < WEIGHTS.length; tap++) {
+						int tapY = Math.min(Math.max(y + tap - 6, 0), halfHeight - 1);
+						sum += horizontal[channel][tapY * halfWidth + x] * WEIGHTS[tap];
+					}
+					glow[channel] = (sum * Bloom.STRENGTH + (1 << 19)) >>> 20;
+				}
+				for (int fullY = y << 1; fullY < Math.min((y << 1) + 2, height); fullY++) {
+					for (int fullX = x << 1; fullX < Math.min((x << 1) + 2, width); fullX++) {
+						int color = result[fullY * width + fullX];
+						result[fullY * width + fullX] = (
+							Math.min(((color >>> 16) & 255) + glow[0], 255) << 16 |
+							Math.min(((color >>>  8) & 255) + glow[1], 255) <<  8 |
+							Math.min(((color       ) & 255) + glow[2], 255)
+						);
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	public static void assertMatches(String message, int[] expected, PixelBuffer pixels) {
+		int width = pixels.width.intValue(), height = pixels.height.intValue();
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int expectedColor = expected[y * width + x], actualColor = pixels.getARGB(x, y) & 0xFFFFFF;
+				if (expectedColor != actualColor) {
+					assertEquals(message + " at " + x + ", " + y, Integer.toHexString(expectedColor), Integer.toHexString(actualColor));
+				}
+			}
+		}
+	}
+
+	/** a dim background, with a few bright spots, one of which is close enough to the first explosion to glow onto it. */
+	public static void drawWorld(PixelBuffer pixels, int width, int height) {
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				pixels.setRGB(x, y, (x * 7 + y) & 31, 20, (y * 3) & 31);
+			}
+		}
+		fillRect(pixels, 20, 40, 30, 50, 255, 220, 80);
+		fillRect(pixels, 170, 150, 175, 160, 90, 255, 255);
+		fillRect(pixels, 84, 88, 90, 95, 255, 255, 200);
+	}
+
+	/** a different bright pattern inside the bounds every frame. */
+	public static void drawExplosion(PixelBuffer pixels, int[] bounds, int frame) {
+		for (int y = bounds[1]; y < bounds[3]; y++) {
+			for (int x = bounds[0]; x < bounds[2]; x++) {
+				if ((x + y + frame) % 5 < 2 + (frame & 1)) {
+					pixels.setRGB(x, y, 255, (frame * 20) & 255, (frame * 50) & 255);
+				}
+			}
+		}
+	}
+
+	public static void fillRect(PixelBuffer pixels, int minX, int minY, int maxX, int maxY, int red, int green, int blue) {
+		for (int y = minY; y < maxY; y++) {
+			for (int x = minX; x < maxX; x++) {
+				pixels.setRGB(x, y, red, green, blue);
+			}
+		}
+	}
+}
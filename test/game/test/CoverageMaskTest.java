@@ -0,0 +1,139 @@
+package game.test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import game.model.Game;
+import game.model.entities.AsteroidEntity;
+import game.model.entities.BackgroundEntity;
+import game.view.GameView;
+import game.view.QualityGovernor;
+import game.view.boilerplate.CoverageMask;
+import game.view.boilerplate.PixelBuffer;
+import game.view.entities.AsteroidView;
+import game.view.entities.BackgroundView;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CoverageMaskTest {
+
+	public static final int ASTEROIDS = 200;
+
+	/** every pixel in the mask must be painted over completely by the asteroid, no matter what was behind it. */
+	@Test
+	public void maskedPixelsArePaintedOpaque() throws ReflectiveOperationException {
+		seedAsteroids(42L);
+		Random random = new Random(42L);
+		GameView view = new GameView(new Game());
+		long checked = 0L;
+		for (int index = 0; index < ASTEROIDS; index++) {
+			AsteroidEntity asteroid = new AsteroidEntity(0.0D, 0.0D);
+			asteroid.addRotation(random.nextDouble() * Math.PI * 2.0D);
+			double scale = new double[] { 0.625D, 1.0D, 1.5D }[index % 3];
+			QualityGovernor.Level level = QualityGovernor.Level.values()[index % QualityGovernor.Level.values().length];
+			int size = (int)(Math.ceil(asteroid.size * scale * 2.0D)) + 8;
+			asteroid.x = size * 0.5D / scale + random.nextDouble();
+			asteroid.y = size * 0.5D / scale + random.nextDouble();
+			view.canvas.scale = scale;
+			view.quality = level;
+
+			CoverageMask mask = new CoverageMask();
+			mask.reset(size, size);
+			AsteroidView.INSTANCE.addCoverage(Collections.singletonList(asteroid), view, mask);
+			PixelBuffer magenta = drawOver(view, asteroid, size, 255, 0, 255);
+			PixelBuffer green   = drawOver(view, asteroid, size, 0, 255, 0);
+			for (int y = 0; y < size; y++) {
+				for (int span = 0, spans = mask.getSpanCount(y); span < spans; span++) {
+					for (int x = mask.getSpanStart(y, span), end = mask.getSpanEnd(y, span); x < end; x++) {
+						int expected = magenta.getARGB(x, y), actual = green.getARGB(x, y);
+						if (expected != actual) {
+							assertEquals(
+								"asteroid " + index + " (scale: " + scale + ", quality: " + level + ") at " + x + ", " + y,
+								Integer.toHexString(expected),
+								Integer.toHexString(actual)
+							);
+						}
+						checked++;
+					}
+				}
+			}
+		}
+		assertTrue("nothing was masked", checked > 0L);
+	}
+
+	/** skipping the background under the mask must not change a single byte of the frame. */
+	@Test
+	public void maskedFrameMatchesUnmaskedFrame() throws ReflectiveOperationException {
+		boolean tileCache = BackgroundView.USE_TILE_CACHE;
+		try {
+			//the mask is ignored when drawing from tiles.
+			BackgroundView.USE_TILE_CACHE = false;
+			seedAsteroids(42L);
+			Random random = new Random(42L);
+			int width = 400, height = 744;
+			GameView view = new GameView(new Game());
+			view.canvas.scale = 1.0D;
+			view.quality = QualityGovernor.Level.HIGH;
+			BackgroundEntity background = new BackgroundEntity(0.0D, 0.0D);
+			for (int frame = 0; frame < ASTEROIDS / 10; frame++) {
+				List<AsteroidEntity> asteroids = new ArrayList<>(10);
+				for (int index = 0; index < 10; index++) {
+					AsteroidEntity asteroid = new AsteroidEntity(random.nextDouble() * width, random.nextDouble() * height);
+					asteroid.addRotation(random.nextDouble() * Math.PI * 2.0D);
+					asteroids.add(asteroid);
+				}
+				CoverageMask mask = new CoverageMask();
+				mask.reset(width, height);
+				AsteroidView.INSTANCE.addCoverage(asteroids, view, mask);
+
+				PixelBuffer masked = new PixelBuffer(width, height);
+				view.canvas.pixels = masked;
+				BackgroundView.INSTANCE.render(background, view, mask);
+				AsteroidView.INSTANCE.renderBatch(asteroids, view);
+
+				PixelBuffer unmasked = new PixelBuffer(width, height);
+				view.canvas.pixels = unmasked;
+				BackgroundView.INSTANCE.render(background, view, null);
+				AsteroidView.INSTANCE.renderBatch(asteroids, view);
+
+				assertTrue("nothing was masked", mask.getCoveredPixels() > 0L);
+				for (int y = 0; y < height; y++) {
+					for (int x = 0; x < width; x++) {
+						int expected = unmasked.getARGB(x, y), actual = masked.getARGB(x, y);
+						if (expected != actual) {
+							assertEquals("frame " + frame + " at " + x + ", " + y, Integer.toHexString(expected), Integer.toHexString(actual));
+						}
+					}
+				}
+			}
+		}
+		finally {
+			BackgroundView.USE_TILE_CACHE = tileCache;
+		}
+	}
+
+	public static PixelBuffer drawOver(GameView view, AsteroidEntity asteroid, int size, int red, int green, int blue) {
+		PixelBuffer pixels = new PixelBuffer(size, size);
+		for (int y = 0; y < size; y++) {
+			for (int x = 0; x < size; x++) {
+				pixels.setRGB(x, y, red, green, blue);
+			}
+		}
+		view.canvas.pixels = pixels;
+		AsteroidView.INSTANCE.renderBatch(Collections.singletonList(asteroid), view);
+		return pixels;
+	}
+
+	/** asteroids pick their size, shape, and texture randomly. this makes them the same every time the test runs. */
+	public static void seedAsteroids(long seed) throws ReflectiveOperationException {
+		Field field = AsteroidEntity.class.getDeclaredField("RANDOM");
+		field.setAccessible(true);
+		((Random)(field.get(null))).setSeed(seed);
+	}
+}
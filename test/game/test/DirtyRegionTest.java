@@ -0,0 +1,102 @@
+package game.test;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import game.view.boilerplate.DirtyRegion;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DirtyRegionTest {
+
+	@Test
+	public void touchingRectanglesMergeForFree() {
+		DirtyRegion region = new DirtyRegion();
+		assertTrue(region.isEmpty());
+		//rows next to each other, like a shader drawing a circle.
+		for (int y = 10; y < 20; y++) {
+			region.add(5, y, 25, y + 1);
+		}
+		assertEquals(1, region.getCount());
+		assertRectangle(region, 0, 5, 10, 25, 20);
+		//already covered.
+		region.add(6, 11, 24, 19);
+		assertEquals(1, region.getCount());
+		assertRectangle(region, 0, 5, 10, 25, 20);
+		//far away, so it gets a rectangle of its own.
+		region.add(100, 100, 110, 110);
+		assertEquals(2, region.getCount());
+		//empty rectangles are ignored.
+		region.add(50, 50, 50, 60);
+		region.add(50, 60, 60, 50);
+		assertEquals(2, region.getCount());
+	}
+
+	@Test
+	public void fullRegionIgnoresRectangles() {
+		DirtyRegion region = new DirtyRegion();
+		region.add(0, 0, 10, 10);
+		region.addAll();
+		assertTrue(region.isFull());
+		assertEquals(0, region.getCount());
+		region.add(20, 20, 30, 30);
+		assertEquals(0, region.getCount());
+		DirtyRegion other = new DirtyRegion();
+		other.add(region);
+		assertTrue(other.isFull());
+		region.clear();
+		assertTrue(region.isEmpty());
+		assertFalse(region.isFull());
+	}
+
+	/** no matter how many rectangles are merged together, every pixel which was added must still be covered. */
+	@Test
+	public void mergingNeverLosesPixels() {
+		int size = 128;
+		Random random = new Random(42L);
+		for (int iteration = 0; iteration < 200; iteration++) {
+			DirtyRegion region = new DirtyRegion(), copy = new DirtyRegion();
+			boolean[] added = new boolean[size * size];
+			for (int rectangle = 0, count = 1 + random.nextInt(40); rectangle < count; rectangle++) {
+				int minX = random.nextInt(size), minY = random.nextInt(size);
+				int maxX = minX + 1 + random.nextInt(size - minX), maxY = minY + 1 + random.nextInt(Math.min(size - minY, 16));
+				region.add(minX, minY, maxX, maxY);
+				for (int y = minY; y < maxY; y++) {
+					for (int x = minX; x < maxX; x++) {
+						added[y * size + x] = true;
+					}
+				}
+			}
+			assertTrue(region.getCount() <= DirtyRegion.MAX_RECTANGLES);
+			copy.add(region);
+			for (DirtyRegion check : new DirtyRegion[] { region, copy }) {
+				for (int y = 0; y < size; y++) {
+					for (int x = 0; x < size; x++) {
+						if (added[y * size + x] && !covers(check, x, y)) {
+							throw new AssertionError("iteration " + iteration + ": " + x + ", " + y + " was added but isn't covered");
+						}
+					}
+				}
+			}
+		}
+	}
+
+	public static boolean covers(DirtyRegion region, int x, int y) {
+		for (int index = 0; index < region.getCount(); index++) {
+			if (x >= region.getMinX(index) && x < region.getMaxX(index) && y >= region.getMinY(index) && y < region.getMaxY(index)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public static void assertRectangle(DirtyRegion region, int index, int minX, int minY, int maxX, int maxY) {
+		assertEquals(minX, region.getMinX(index));
+		assertEquals(minY, region.getMinY(index));
+		assertEquals(maxX, region.getMaxX(index));
+		assertEquals(maxY, region.getMaxY(index));
+	}
+}
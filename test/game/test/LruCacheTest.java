@@ -0,0 +1,75 @@
+package game.test;
+
+import org.junit.Test;
+
+import game.common.LruCache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LruCacheTest {
+
+	@Test
+	public void evictsLeastRecentlyUsedFirst() {
+		//every string weighs as much as it is long.
+		LruCache<String, String> cache = new LruCache<>(6L, String::length);
+		cache.put("a", "aa");
+		cache.put("b", "bb");
+		cache.put("c", "cc");
+		assertEquals(6L, cache.getTotalWeight());
+		assertEquals(0L, cache.getEvictions());
+		//a is used more recently than b now, so b goes first.
+		assertEquals("aa", cache.get("a"));
+		cache.put("d", "dd");
+		assertFalse(cache.containsKey("b"));
+		assertTrue(cache.containsKey("a"));
+		assertTrue(cache.containsKey("c"));
+		assertTrue(cache.containsKey("d"));
+		assertEquals(1L, cache.getEvictions());
+		assertEquals(6L, cache.getTotalWeight());
+		//containsKey() doesn't count as a use, so c goes next even though we just checked it.
+		cache.put("e", "ee");
+		assertFalse(cache.containsKey("c"));
+		assertEquals(2L, cache.getEvictions());
+	}
+
+	@Test
+	public void replacingAndShrinking() {
+		LruCache<String, String> cache = new LruCache<>(10L, String::length);
+		cache.put("a", "aaaa");
+		cache.put("b", "bbbb");
+		//replacing a value only counts the new value's weight.
+		cache.put("a", "a");
+		assertEquals(5L, cache.getTotalWeight());
+		assertEquals(2, cache.size());
+		//the new entry is kept even if it's too heavy all by itself, and everything else is evicted.
+		cache.put("c", "cccccccccccc");
+		assertEquals(1, cache.size());
+		assertEquals(12L, cache.getTotalWeight());
+		assertEquals(2L, cache.getEvictions());
+		cache.setMaxWeight(100L);
+		cache.put("d", "dddd");
+		//shrinking evicts right away.
+		cache.setMaxWeight(5L);
+		assertEquals(1, cache.size());
+		assertTrue(cache.containsKey("d"));
+		assertEquals(4L, cache.getTotalWeight());
+	}
+
+	@Test
+	public void countsHitsAndMisses() {
+		LruCache<String, String> cache = new LruCache<>(10L, String::length);
+		cache.put("a", "a");
+		cache.get("a");
+		cache.get("a");
+		assertNull(cache.get("b"));
+		assertEquals(2L, cache.getHits());
+		assertEquals(1L, cache.getMisses());
+		cache.clear();
+		assertEquals(0, cache.size());
+		assertEquals(0L, cache.getTotalWeight());
+		assertNull(cache.get("a"));
+	}
+}
@@ -0,0 +1,88 @@
+package game.test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import game.model.ParticleSystem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ParticleSystemTest {
+
+	public static final float DELTA_TIME = 1.0F / 60.0F;
+
+	/**
+	dead particles are removed by moving the last particle into their place.
+	every particle which is still alive must survive that exactly once,
+	and be moved exactly as much as if nothing had been removed.
+	*/
+	@Test
+	public void tickRemovesExactlyTheDeadParticles() {
+		boolean parallel = ParticleSystem.USE_PARALLEL_UPDATE;
+		try {
+			for (boolean useParallelUpdate : new boolean[] { false, true }) {
+				ParticleSystem.USE_PARALLEL_UPDATE = useParallelUpdate;
+				//enough particles for the parallel update to actually run in parallel.
+				int count = ParticleSystem.PARALLEL_THRESHOLD + 1000;
+				ParticleSystem particles = new ParticleSystem(count);
+				Random random = new Random(42L);
+				float[] x = new float[count], velocityX = new float[count], age = new float[count], lifetime = new float[count];
+				for (int id = 0; id < count; id++) {
+					x[id] = random.nextFloat() * 400.0F;
+					velocityX[id] = random.nextFloat() * 200.0F - 100.0F;
+					lifetime[id] = random.nextFloat();
+					//the color identifies the particle, no matter where it gets moved to.
+					assertTrue(particles.spawn(x[id], 0.0F, velocityX[id], 0.0F, lifetime[id], 1.0F, id));
+				}
+				boolean[] alive = new boolean[count];
+				Arrays.fill(alive, true);
+				for (int tick = 0; tick < 70; tick++) {
+					particles.tick(DELTA_TIME);
+					int expectedCount = 0;
+					for (int id = 0; id < count; id++) {
+						if (!alive[id]) continue;
+						if ((age[id] += DELTA_TIME) >= lifetime[id]) {
+							alive[id] = false;
+							continue;
+						}
+						x[id] += velocityX[id] * DELTA_TIME;
+						expectedCount++;
+					}
+					String message = "tick " + tick + " (parallel: " + useParallelUpdate + ')';
+					assertEquals(message, expectedCount, particles.count);
+					boolean[] seen = new boolean[count];
+					for (int index = 0; index < particles.count; index++) {
+						int id = particles.color[index];
+						assertTrue(message + ": particle " + id + " should be dead", alive[id]);
+						assertFalse(message + ": particle " + id + " is there twice", seen[id]);
+						seen[id] = true;
+						assertEquals(message + ": particle " + id + "'s position", x[id], particles.x[index], 0.0F);
+						assertEquals(message + ": particle " + id + "'s age", age[id], particles.age[index], 0.0F);
+					}
+				}
+				assertEquals("every particle should be dead after more than a second", 0, particles.count);
+			}
+		}
+		finally {
+			ParticleSystem.USE_PARALLEL_UPDATE = parallel;
+		}
+	}
+
+	@Test
+	public void spawnStopsAtCapacity() {
+		ParticleSystem particles = new ParticleSystem(4);
+		for (int index = 0; index < 4; index++) {
+			assertTrue(particles.spawn(0.0F, 0.0F, 0.0F, 0.0F, 1.0F, 1.0F, index));
+		}
+		assertFalse(particles.spawn(0.0F, 0.0F, 0.0F, 0.0F, 1.0F, 1.0F, 4));
+		assertEquals(4, particles.count);
+		//particles which would be dead immediately aren't spawned at all.
+		particles.clear();
+		assertFalse(particles.spawn(0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 1.0F, 0));
+		assertEquals(0, particles.count);
+	}
+}
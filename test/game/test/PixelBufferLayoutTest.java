@@ -0,0 +1,108 @@
+package game.test;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import game.view.boilerplate.BufferedCanvas;
+import game.view.boilerplate.PixelBuffer;
+import game.view.boilerplate.Shader;
+
+import static org.junit.Assert.assertEquals;
+
+public class PixelBufferLayoutTest {
+
+	//deliberately not a multiple of any tile size or stride alignment.
+	public static final int WIDTH = 301, HEIGHT = 157;
+
+	@Test
+	public void test() {
+		boolean packed = PixelBuffer.USE_PACKED_KERNELS;
+		try {
+			for (boolean usePackedKernels : new boolean[] { true, false }) {
+				PixelBuffer.USE_PACKED_KERNELS = usePackedKernels;
+				PixelBuffer expected = draw(PixelBuffer.Layout.ROW_MAJOR);
+				for (PixelBuffer.Layout layout : PixelBuffer.Layout.values()) {
+					PixelBuffer actual = draw(layout);
+					for (int y = 0; y < HEIGHT; y++) {
+						for (int x = 0; x < WIDTH; x++) {
+							int expectedColor = expected.getARGB(x, y), actualColor = actual.getARGB(x, y);
+							if (expectedColor != actualColor) {
+								assertEquals(
+									layout + " (packed kernels: " + usePackedKernels + ") at " + x + ", " + y,
+									Integer.toHexString(expectedColor),
+									Integer.toHexString(actualColor)
+								);
+							}
+						}
+					}
+				}
+			}
+		}
+		finally {
+			PixelBuffer.USE_PACKED_KERNELS = packed;
+		}
+	}
+
+	/** draws the same picture every time, on a new buffer with the provided layout. */
+	public static PixelBuffer draw(PixelBuffer.Layout layout) {
+		Random random = new Random(42L);
+		PixelBuffer pixels = new PixelBuffer(WIDTH, HEIGHT, layout);
+		BufferedCanvas canvas = new BufferedCanvas(WIDTH, HEIGHT);
+		canvas.pixels = pixels;
+
+		for (int y = 0; y < HEIGHT; y++) {
+			pixels.fillGradientRow(y, 0, WIDTH, y * 1.5F);
+		}
+
+		int count = 24;
+		double[] centerX = new double[count], centerY = new double[count], radius = new double[count];
+		int[] rates = new int[count];
+		for (int index = 0; index < count; index++) {
+			centerX[index] = random.nextDouble() * WIDTH;
+			centerY[index] = random.nextDouble() * HEIGHT;
+			radius [index] = 4.0D + random.nextDouble() * 40.0D;
+			rates  [index] = 1 << random.nextInt(3);
+		}
+		//write-only, like an asteroid.
+		Shader opaque = context -> {
+			context.buffer.setRGB(context.baseOffset, context.x & 255, context.y & 255, (context.instance * 10) & 255);
+			context.opaque = true;
+		};
+		//read-modify-write, like a plasma pulse.
+		Shader blend = context -> context.buffer.blendRGB(context.baseOffset, 255, 128 + (context.instance & 127), 32, 96);
+		canvas.runShaderCircles(count, centerX, centerY, radius, rates, opaque);
+		canvas.runShaderCircles(count, centerX, centerY, radius, blend);
+		canvas.runShaderEllipse(WIDTH * 0.5D, HEIGHT * 0.5D, WIDTH * 0.25D, HEIGHT * 0.4D, 4, opaque);
+
+		int[] colors = new int[WIDTH];
+		for (int span = 0; span < 200; span++) {
+			int y = random.nextInt(HEIGHT);
+			int x = random.nextInt(WIDTH);
+			int length = 1 + random.nextInt(WIDTH - x);
+			for (int index = 0; index < length; index++) {
+				colors[index] = PixelBuffer.multiplyARGB(random.nextInt() | 0xFF000000, random.nextInt(256));
+			}
+			switch (span & 3) {
+				case 0: pixels.blendSpan(x, y, colors, 0, length, random.nextInt(256)); break;
+				case 1: pixels.blendSolidSpan(x, y, length, colors[0]); break;
+				case 2: pixels.addSpan(x, y, colors, 0, length); break;
+				case 3: pixels.copySpan(x, y, toBytes(colors, length), 0, length); break;
+			}
+		}
+		return pixels;
+	}
+
+	/** converts ARGB colors into bytes in {@link PixelBuffer}'s byte order, with an alpha of 255. */
+	public static byte[] toBytes(int[] colors, int length) {
+		byte[] bytes = new byte[length * PixelBuffer.BYTES_PER_PIXEL];
+		for (int index = 0; index < length; index++) {
+			int offset = index * PixelBuffer.BYTES_PER_PIXEL;
+			bytes[offset + PixelBuffer.  RED_OFFSET] = (byte)(colors[index] >>> 16);
+			bytes[offset + PixelBuffer.GREEN_OFFSET] = (byte)(colors[index] >>>  8);
+			bytes[offset + PixelBuffer. BLUE_OFFSET] = (byte)(colors[index]       );
+			bytes[offset + PixelBuffer.ALPHA_OFFSET] = (byte)(255);
+		}
+		return bytes;
+	}
+}